@@ -14,9 +14,13 @@ import java.awt.Dimension;
 import java.awt.Font;
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
 
 import javax.swing.SwingUtilities;
 
@@ -24,12 +28,21 @@ import application.multimedia.iut.Metier.Colorisation;
 import application.multimedia.iut.Metier.Format;
 import application.multimedia.iut.Metier.GestionnaireOutils;
 import application.multimedia.iut.Metier.Journaux;
+import application.multimedia.iut.Metier.image.CoucheAjustement;
 import application.multimedia.iut.Metier.image.CoucheImage;
 import application.multimedia.iut.Metier.image.ImageManagerMetier;
 import application.multimedia.iut.Metier.image.PileCouches;
 import application.multimedia.iut.Metier.image.RenduToile;
 import application.multimedia.iut.Metier.image.SessionPlacement;
 import application.multimedia.iut.Metier.outils.OutilDessin;
+import application.multimedia.iut.Metier.traitement.ChaineAjustements;
+import application.multimedia.iut.Metier.traitement.Reechantillonneur.Filtre;
+import application.multimedia.iut.Metier.traitement.RemplissageSpans;
+import application.multimedia.iut.Metier.traitement.SessionRemplissage;
+import application.multimedia.iut.Metier.traitement.StatistiquesImage;
+import application.multimedia.iut.Metier.traitement.TableCouleurs;
+import application.multimedia.iut.Metier.traitement.TamponPixels;
+import application.multimedia.iut.Metier.traitement.TraitementEnFlux;
 import application.multimedia.iut.Vue.PaintFrame;
 import application.multimedia.iut.Vue.utils.ImageDialogs.LoadChoice;
 
@@ -49,6 +62,17 @@ public class Controleur {
 	
 	// ========== MODÈLE - Gestion des outils ==========
 	private GestionnaireOutils gestionnaireOutils;
+
+	// ========== MODÈLE - Pot de peinture ==========
+	private SessionRemplissage sessionRemplissage;
+	private Object entreeRemplissage;
+	private BufferedImage imageRemplie;
+	private int xRemplissage;
+	private int yRemplissage;
+	private boolean remplissageContinu;
+	private int couleurRemplissage;
+	private int toleranceAppliquee;
+	private int toleranceRemplissage = 50;
 	
 	/**
 	 * Constructeur du contrôleur.
@@ -188,8 +212,9 @@ public class Controleur {
 		imageManagerMetier.enregistrerFichier(fichier);
 	}
 
-	public BufferedImage ouvrirFichier(File fichier, LoadChoice choix, Dimension tailleToile) throws IOException {
-		imageManagerMetier.ouvrirFichier(fichier, choix, tailleToile);
+	public BufferedImage ouvrirFichier(File fichier, LoadChoice choix, Dimension tailleToile, boolean apercuReduit)
+			throws IOException {
+		imageManagerMetier.ouvrirFichier(fichier, choix, tailleToile, apercuReduit);
 
 		historiqueModification = new Journaux(this);
 		historiqueModification.ajouterImage(obtenirImageCourante());
@@ -201,16 +226,40 @@ public class Controleur {
 		return imageManagerMetier.isImageInitialeBlanchePresente();
 	}
 
+	public boolean tientEnMemoire(File fichier) {
+		return imageManagerMetier.tientEnMemoire(fichier);
+	}
+
+	public Dimension tailleFichier(File fichier) {
+		return ImageManagerMetier.tailleFichier(fichier);
+	}
+
+	public boolean contientApercuReduit() {
+		return imageManagerMetier.contientApercuReduit();
+	}
+
+	public File fichierApercuReduit() {
+		return imageManagerMetier.fichierApercuReduit();
+	}
+
+	public Dimension tailleReelleApercu() {
+		return imageManagerMetier.tailleReelleApercu();
+	}
+
 	// ========================================
 	// DÉLÉGATION - Gestion des outils
 	// ========================================
 	
-	public void commencerDessin(BufferedImage image, int x, int y) {
-		gestionnaireOutils.commencerDessin(image, x, y);
+	public Rectangle commencerDessin(BufferedImage image, int x, int y) {
+		Rectangle zone = gestionnaireOutils.commencerDessin(image, x, y);
+		if (zone != null) pileCouches.marquerModifiee(image, zone);
+		return zone;
 	}
 	
-	public void continuerDessin(BufferedImage image, int x, int y) {
-		gestionnaireOutils.continuerDessin(image, x, y);
+	public Rectangle continuerDessin(BufferedImage image, int x, int y) {
+		Rectangle zone = gestionnaireOutils.continuerDessin(image, x, y);
+		if (zone != null) pileCouches.marquerModifiee(image, zone);
+		return zone;
 	}
 	
 	public void terminerDessin() {
@@ -221,6 +270,7 @@ public class Controleur {
 	
 	public void dessinerTexte(BufferedImage image, String texte, int x, int y) {
 		gestionnaireOutils.dessinerTexte(image, texte, x, y);
+		pileCouches.marquerModifiee(image, null);
 
 		historiqueModification.ajouterImage(obtenirImageCourante());
 	}
@@ -301,20 +351,68 @@ public class Controleur {
 		BufferedImage image = imageManagerMetier.obtenirImageCourante();
 		if (image != null) {
 			Colorisation.teinter(image, red, green, blue, alpha);
+			pileCouches.marquerModifiee(image, null);
 
 			historiqueModification.ajouterImage(obtenirImageCourante());
 		}
 	}
 	
 	/**
-	 * Ajuste le contraste de l'image courante.
+	 * Ajuste le contraste de l'image courante autour de sa valeur moyenne.
 	 * 
 	 * @param contraste Le niveau de contraste (-100 à +100).
 	 */
 	public void appliquerContraste(int contraste) {
 		BufferedImage image = imageManagerMetier.obtenirImageCourante();
 		if (image != null) {
-			Colorisation.contraste(image, contraste);
+			Colorisation.contraste(image, contraste, Colorisation.statistiques(image).pivotContraste());
+			pileCouches.marquerModifiee(image, null);
+
+			historiqueModification.ajouterImage(obtenirImageCourante());
+		}
+	}
+	
+	/**
+	 * Calcule les statistiques (histogrammes, moyenne, centiles) de l'image courante.
+	 * 
+	 * @return Les statistiques, ou null si aucune image.
+	 */
+	public StatistiquesImage statistiquesImageCourante() {
+		BufferedImage image = imageManagerMetier.obtenirImageCourante();
+		return image != null ? Colorisation.statistiques(image) : null;
+	}
+	
+	/**
+	 * Obtient le pivot utilisé pour le contraste de l'image courante (sa moyenne).
+	 * 
+	 * @return La valeur pivot (0-255).
+	 */
+	public int pivotContraste() {
+		StatistiquesImage stats = statistiquesImageCourante();
+		return stats != null ? stats.pivotContraste() : ChaineAjustements.PIVOT_DEFAUT;
+	}
+	
+	/**
+	 * Étire automatiquement le contraste de l'image courante.
+	 */
+	public void appliquerContrasteAuto() {
+		BufferedImage image = imageManagerMetier.obtenirImageCourante();
+		if (image != null) {
+			Colorisation.contrasteAuto(image);
+			pileCouches.marquerModifiee(image, null);
+
+			historiqueModification.ajouterImage(obtenirImageCourante());
+		}
+	}
+	
+	/**
+	 * Ajuste automatiquement les niveaux de chaque composante de l'image courante.
+	 */
+	public void appliquerNiveauxAuto() {
+		BufferedImage image = imageManagerMetier.obtenirImageCourante();
+		if (image != null) {
+			Colorisation.niveauxAuto(image);
+			pileCouches.marquerModifiee(image, null);
 
 			historiqueModification.ajouterImage(obtenirImageCourante());
 		}
@@ -329,11 +427,229 @@ public class Controleur {
 		BufferedImage image = imageManagerMetier.obtenirImageCourante();
 		if (image != null) {
 			Colorisation.luminosite(image, luminosite);
+			pileCouches.marquerModifiee(image, null);
 
 			historiqueModification.ajouterImage(obtenirImageCourante());
 		}
 	}
 	
+	/**
+	 * Applique une chaîne d'ajustements sur l'image courante en une seule passe.
+	 * Un seul instantané est ajouté à l'historique pour toute la chaîne.
+	 * 
+	 * @param chaine La chaîne d'ajustements (luminosité, contraste, teinte).
+	 */
+	public void appliquerAjustements(ChaineAjustements chaine) {
+		BufferedImage image = imageManagerMetier.obtenirImageCourante();
+		if (image != null && chaine != null && !chaine.estVide()) {
+			Colorisation.appliquerAjustements(image, chaine);
+			pileCouches.marquerModifiee(image, null);
+
+			historiqueModification.ajouterImage(obtenirImageCourante());
+		}
+	}
+	
+	/**
+	 * Signale que les pixels d'une image de la pile ont été modifiés hors du contrôleur.
+	 * Périme les tuiles mises en cache par les calques de réglage.
+	 * 
+	 * @param image L'image modifiée.
+	 */
+	public void signalerModification(BufferedImage image) {
+		pileCouches.marquerModifiee(image, null);
+		if (imageRemplie == image) oublierRemplissage();
+	}
+	
+	// ========================================
+	// DÉLÉGATION - Calques de réglage
+	// ========================================
+	
+	/**
+	 * Ajoute un calque de réglage non destructif au sommet de la pile.
+	 * Les pixels ne sont pas modifiés : l'historique n'enregistre que l'état
+	 * des calques de réglage, sans copier l'image.
+	 * 
+	 * @param chaine Les ajustements du calque.
+	 * @return Le calque créé, ou null si aucune image.
+	 */
+	public CoucheAjustement ajouterCalqueReglage(ChaineAjustements chaine) {
+		if (pileCouches.estVide()) return null;
+		PileCouches.EtatAjustements avant = pileCouches.etatAjustements();
+		CoucheAjustement calque = pileCouches.ajouterAjustement(chaine);
+		enregistrerReglages(avant, null);
+		return calque;
+	}
+	
+	/**
+	 * Modifie les ajustements d'un calque de réglage.
+	 * Seules les tuiles visibles sont recalculées au prochain affichage.
+	 * Les modifications successives d'un même calque (curseur déplacé) ne
+	 * forment qu'une entrée de l'historique.
+	 * 
+	 * @param calque Le calque à modifier.
+	 * @param chaine Les nouveaux ajustements.
+	 */
+	public void modifierCalqueReglage(CoucheAjustement calque, ChaineAjustements chaine) {
+		if (calque == null) return;
+		PileCouches.EtatAjustements avant = pileCouches.etatAjustements();
+		pileCouches.modifierAjustement(calque, chaine);
+		Journaux.Action courante = historiqueModification != null ? historiqueModification.getActionCourante() : null;
+		if (courante instanceof ActionReglages && ((ActionReglages) courante).calque == calque) {
+			((ActionReglages) courante).apres = pileCouches.etatAjustements();
+		} else {
+			enregistrerReglages(avant, calque);
+		}
+	}
+	
+	/**
+	 * Retire un calque de réglage de la pile.
+	 * 
+	 * @param calque Le calque à retirer.
+	 */
+	public void supprimerCalqueReglage(CoucheAjustement calque) {
+		if (calque == null || !pileCouches.ajustements().contains(calque)) return;
+		PileCouches.EtatAjustements avant = pileCouches.etatAjustements();
+		pileCouches.supprimerAjustement(calque);
+		enregistrerReglages(avant, null);
+	}
+	
+	/**
+	 * Retire tous les calques de réglage, sans modifier les pixels.
+	 */
+	public void supprimerCalquesReglage() {
+		if (pileCouches.ajustements().isEmpty()) return;
+		PileCouches.EtatAjustements avant = pileCouches.etatAjustements();
+		pileCouches.supprimerAjustements();
+		enregistrerReglages(avant, null);
+	}
+	
+	/**
+	 * Obtient le dernier calque de réglage ajouté.
+	 * 
+	 * @return Le calque au sommet de la pile, ou null s'il n'y en a pas.
+	 */
+	public CoucheAjustement dernierCalqueReglage() {
+		List<CoucheAjustement> calques = pileCouches.ajustements();
+		return calques.isEmpty() ? null : calques.get(calques.size() - 1);
+	}
+	
+	/**
+	 * Applique définitivement les calques de réglage aux pixels de chaque couche,
+	 * puis les retire de la pile. L'historique garde une copie de chaque couche
+	 * avant l'aplatissement : l'annuler restaure toutes les couches et les calques.
+	 */
+	public void aplatirCalquesReglage() {
+		if (!pileCouches.aDesAjustements()) {
+			supprimerCalquesReglage();
+			return;
+		}
+		ActionAplatissement action = new ActionAplatissement();
+		action.reglages = pileCouches.etatAjustements();
+		action.chaine = pileCouches.chaineAjustements();
+		for (CoucheImage couche : pileCouches.couches()) {
+			action.avant.put(couche, copierPixels(couche.image));
+		}
+		action.refaire();
+		if (historiqueModification != null) historiqueModification.ajouterAction(obtenirImageCourante(), action);
+	}
+
+	/**
+	 * Ajoute à l'historique un changement des calques de réglage.
+	 *
+	 * @param avant L'état des calques avant le changement.
+	 * @param calque Le calque modifié (pour regrouper les modifications suivantes), ou null.
+	 */
+	private void enregistrerReglages(PileCouches.EtatAjustements avant, CoucheAjustement calque) {
+		if (historiqueModification == null) return;
+		ActionReglages action = new ActionReglages();
+		action.avant = avant;
+		action.apres = pileCouches.etatAjustements();
+		action.calque = calque;
+		historiqueModification.ajouterAction(null, action);
+	}
+
+	/**
+	 * Copie les pixels d'une image dans une nouvelle image du même type.
+	 */
+	private static BufferedImage copierPixels(BufferedImage image) {
+		return new BufferedImage(image.getColorModel(), image.copyData(null), image.isAlphaPremultiplied(), null);
+	}
+
+	/**
+	 * Changement des calques de réglage : les pixels ne changent pas, seul
+	 * l'état des calques est remis.
+	 */
+	private final class ActionReglages implements Journaux.Action {
+		PileCouches.EtatAjustements avant;
+		PileCouches.EtatAjustements apres;
+		CoucheAjustement calque;
+
+		@Override
+		public boolean annuler() {
+			pileCouches.restaurerAjustements(avant);
+			return true;
+		}
+
+		@Override
+		public boolean refaire() {
+			pileCouches.restaurerAjustements(apres);
+			return true;
+		}
+	}
+
+	/**
+	 * Aplatissement des calques de réglage dans toutes les couches.
+	 */
+	private final class ActionAplatissement implements Journaux.Action {
+		final Map<CoucheImage, BufferedImage> avant = new IdentityHashMap<>();
+		PileCouches.EtatAjustements reglages;
+		ChaineAjustements chaine;
+
+		/**
+		 * Remet les pixels de chaque couche et les calques de réglage. Si la pile
+		 * a été remplacée entre-temps (retour à une image de l'historique), seuls
+		 * les calques sont remis et l'image précédente est restaurée par l'historique.
+		 */
+		@Override
+		public boolean annuler() {
+			pileCouches.restaurerAjustements(reglages);
+			if (!avant.keySet().containsAll(pileCouches.couches())) return false;
+			for (CoucheImage couche : pileCouches.couches()) {
+				couche.image.setData(avant.get(couche).getRaster());
+				couche.marquerModifiee(null);
+			}
+			return true;
+		}
+
+		/**
+		 * Applique la chaîne aux couches présentes puis retire les calques.
+		 */
+		@Override
+		public boolean refaire() {
+			for (CoucheImage couche : pileCouches.couches()) {
+				Colorisation.appliquerAjustements(couche.image, chaine);
+				couche.marquerModifiee(null);
+			}
+			pileCouches.supprimerAjustements();
+			return true;
+		}
+	}
+	
+	/**
+	 * Applique les calques de réglage visibles à un fichier d'image, en pleine
+	 * résolution, sans le charger en entier : l'image est lue, ajustée et
+	 * écrite en PNG par bandes. Convient aux images trop grandes pour être
+	 * ouvertes (elles ne sont affichées que sous-échantillonnées).
+	 * 
+	 * @param entree Le fichier source.
+	 * @param sortie Le fichier PNG produit.
+	 * @throws IOException en cas d'erreur de lecture ou d'écriture.
+	 */
+	public void appliquerReglagesAuFichier(File entree, File sortie) throws IOException {
+		TableCouleurs table = pileCouches.chaineAjustements().compiler();
+		TraitementEnFlux.traiter(entree, sortie, (bande, yDebut) -> table.appliquer(bande));
+	}
+	
 	/**
 	 * Applique l'outil pot de peinture sur l'image courante.
 	 * 
@@ -342,12 +658,110 @@ public class Controleur {
 	 * @param estContinue true pour remplissage continu, false pour global.
 	 * @param xOrig La coordonnée X du point de départ.
 	 * @param yOrig La coordonnée Y du point de départ.
+	 * @return La zone modifiée de l'image, ou null si aucun pixel n'a changé.
 	 */
-	public void appliquerPotDePeinture(int couleurDest, int distance, boolean estContinue, int xOrig, int yOrig) {
+	public Rectangle appliquerPotDePeinture(int couleurDest, int distance, boolean estContinue, int xOrig, int yOrig) {
 		BufferedImage image = imageManagerMetier.obtenirImageCourante();
-		if (image != null) {
-			Colorisation.potDePeinture(image, couleurDest, distance, estContinue, xOrig, yOrig);
+		if (image == null || xOrig < 0 || xOrig >= image.getWidth() || yOrig < 0 || yOrig >= image.getHeight()) {
+			return null;
+		}
+		oublierRemplissage();
+		int coulOrig = image.getRGB(xOrig, yOrig) & 0xFFFFFF;
+		Rectangle zone;
+		if (estContinue) {
+			zone = new Rectangle();
+			TamponPixels tampon = TamponPixels.ouvrir(image);
+			RemplissageSpans.remplir(tampon, xOrig, yOrig, coulOrig, couleurDest, distance, zone);
+			tampon.valider();
+			if (zone.isEmpty()) zone = null;
+			if (zone != null) pileCouches.marquerModifiee(image, zone);
+		} else {
+			// La région globale peut toucher toute l'image
+			Colorisation.remplacerCouleur(image, coulOrig, couleurDest, distance);
+			zone = new Rectangle(0, 0, image.getWidth(), image.getHeight());
+			pileCouches.marquerModifiee(image, null);
 		}
+
+		historiqueModification.ajouterImage(obtenirImageCourante());
+		entreeRemplissage = historiqueModification.getEntreeCourante();
+		imageRemplie = image;
+		xRemplissage = xOrig;
+		yRemplissage = yOrig;
+		remplissageContinu = estContinue;
+		couleurRemplissage = couleurDest;
+		toleranceAppliquee = distance;
+		return zone;
+	}
+
+	/**
+	 * Change la tolérance du pot de peinture. Si le dernier remplissage est
+	 * encore la dernière modification de l'image, sa région est recalculée à
+	 * partir de la carte des distances, sans refaire le remplissage. La carte
+	 * n'est construite qu'au premier changement, à partir de l'image d'avant le
+	 * remplissage gardée par l'historique.
+	 * 
+	 * @param tolerance La nouvelle tolérance (0-441).
+	 * @return true si le dernier remplissage a été mis à jour.
+	 */
+	public boolean modifierToleranceRemplissage(int tolerance) {
+		toleranceRemplissage = tolerance;
+		if (!remplissageModifiable()) return false;
+		if (sessionRemplissage == null) {
+			BufferedImage avant = historiqueModification.getImagePrecedente();
+			if (avant != null) {
+				sessionRemplissage = SessionRemplissage.reprendre(imageRemplie, avant, xRemplissage, yRemplissage,
+						remplissageContinu, couleurRemplissage, toleranceAppliquee);
+			}
+			if (sessionRemplissage == null) {
+				oublierRemplissage();
+				return false;
+			}
+		}
+		Rectangle zone = sessionRemplissage.appliquer(couleurRemplissage, tolerance);
+		toleranceAppliquee = tolerance;
+		if (zone != null) pileCouches.marquerModifiee(imageRemplie, zone);
+		return true;
+	}
+
+	/**
+	 * Enregistre dans l'historique la tolérance choisie pour le dernier remplissage,
+	 * à la place de l'état enregistré lors du clic. La carte des distances est
+	 * libérée ; elle sera reconstruite si la tolérance change de nouveau.
+	 */
+	public void validerToleranceRemplissage() {
+		if (!remplissageModifiable()) return;
+		historiqueModification.remplacerImageCourante(obtenirImageCourante());
+		entreeRemplissage = historiqueModification.getEntreeCourante();
+		sessionRemplissage = null;
+	}
+
+	/**
+	 * Obtient la tolérance utilisée par le pot de peinture.
+	 * 
+	 * @return La tolérance (0-441).
+	 */
+	public int getToleranceRemplissage() {
+		return toleranceRemplissage;
+	}
+
+	/**
+	 * Vérifie que le dernier remplissage concerne toujours l'image courante
+	 * et qu'aucune autre modification n'a été enregistrée depuis.
+	 */
+	private boolean remplissageModifiable() {
+		if (imageRemplie == null) return false;
+		if (imageRemplie != obtenirImageCourante()
+				|| entreeRemplissage != historiqueModification.getEntreeCourante()) {
+			oublierRemplissage();
+			return false;
+		}
+		return true;
+	}
+
+	private void oublierRemplissage() {
+		sessionRemplissage = null;
+		entreeRemplissage = null;
+		imageRemplie = null;
 	}
 
 	// ========================================
@@ -384,6 +798,26 @@ public class Controleur {
 		return null;
 	}
 	
+	/**
+	 * Retourne l'image courante directement dans son raster, sans copie.
+	 * La couche garde sa position ; un instantané est ajouté à l'historique.
+	 * 
+	 * @param horizontal true pour un retournement gauche-droite, false pour haut-bas.
+	 */
+	public void retournerImageCourante(boolean horizontal) {
+		BufferedImage image = imageManagerMetier.obtenirImageCourante();
+		if (image != null) {
+			if (horizontal) {
+				Format.symetrieHorizontaleEnPlace(image);
+			} else {
+				Format.symetrieVerticaleEnPlace(image);
+			}
+			pileCouches.marquerModifiee(image, null);
+
+			historiqueModification.ajouterImage(obtenirImageCourante());
+		}
+	}
+	
 	/**
 	 * Applique une rotation à l'image.
 	 * 
@@ -392,8 +826,20 @@ public class Controleur {
 	 * @return L'image pivotée.
 	 */
 	public BufferedImage rotation(BufferedImage image, double angle) {
+		return rotation(image, angle, false);
+	}
+
+	/**
+	 * Applique une rotation à l'image, avec lissage bilinéaire éventuel.
+	 * 
+	 * @param image L'image à pivoter.
+	 * @param angle L'angle de rotation en degrés.
+	 * @param lisse true pour interpoler les angles qui ne sont pas droits.
+	 * @return L'image pivotée.
+	 */
+	public BufferedImage rotation(BufferedImage image, double angle, boolean lisse) {
 		if (image != null) {
-			BufferedImage img = Format.rotation(image, angle);
+			BufferedImage img = Format.rotation(image, angle, lisse);
 			return img;
 		}
 		return null;
@@ -408,8 +854,21 @@ public class Controleur {
 	 * @return L'image redimensionnée.
 	 */
 	public BufferedImage redimensionner(BufferedImage image, int largeur, int hauteur) {
+		return redimensionner(image, largeur, hauteur, Filtre.BILINEAIRE);
+	}
+
+	/**
+	 * Redimensionne l'image aux dimensions spécifiées avec le filtre choisi.
+	 * 
+	 * @param image L'image à redimensionner.
+	 * @param largeur La nouvelle largeur.
+	 * @param hauteur La nouvelle hauteur.
+	 * @param filtre Le filtre de rééchantillonnage.
+	 * @return L'image redimensionnée.
+	 */
+	public BufferedImage redimensionner(BufferedImage image, int largeur, int hauteur, Filtre filtre) {
 		if (image != null && largeur > 0 && hauteur > 0) {
-			BufferedImage img = Format.redimensionner(image, largeur, hauteur);
+			BufferedImage img = Format.redimensionner(image, largeur, hauteur, filtre);
 			historiqueModification.ajouterImage(obtenirImageCourante());
 			return img;
 		}
@@ -1,6 +1,9 @@
 package application.multimedia.iut.Metier;
 
 import application.multimedia.iut.Metier.image.*;
+import application.multimedia.iut.Metier.traitement.ExecuteurTuiles;
+import application.multimedia.iut.Metier.traitement.TamponPixels;
+import application.multimedia.iut.Metier.traitement.Reechantillonneur.Filtre;
 
 import java.awt.AlphaComposite;
 import java.awt.BasicStroke;
@@ -113,150 +116,282 @@ public class AjoutContenu {
 	}
 
 	public static BufferedImage fusionHorizontale(BufferedImage imgGauche, BufferedImage imgDroite, int fondu) {
+		return fusionHorizontale(List.of(imgGauche, imgDroite), fondu);
+	}
 
-		if (fondu < 0 || fondu > imgGauche.getWidth() || fondu > imgDroite.getWidth()) {
-			throw new IllegalArgumentException(
-					"La largeur du fondu (" + fondu
-							+ ") doit être positive et inférieure aux largeurs des deux images.");
-		}
+	public static BufferedImage fusionVerticale(BufferedImage imgHaut, BufferedImage imgBas, int fondu) {
+		return fusionVerticale(List.of(imgHaut, imgBas), fondu);
+	}
 
-		if (imgGauche.getHeight() != imgDroite.getHeight()) {
+	/**
+	 * Fusionne une suite d'images de gauche à droite (panorama), avec un fondu
+	 * de même largeur entre chaque paire d'images voisines.
+	 * Les images plus hautes que la plus basse sont d'abord réduites à sa
+	 * hauteur, proportions conservées. L'image finale est allouée une seule fois
+	 * puis remplie ligne par ligne en parallèle : le résultat est celui des
+	 * fusions deux à deux enchaînées, sans recopier le résultat intermédiaire à chaque image.
+	 *
+	 * @param images Les images, de gauche à droite (au moins une).
+	 * @param fondu La largeur de chaque fondu, au plus la largeur des images
+	 *              et la moitié de celle des images intermédiaires.
+	 * @return Une nouvelle image ARGB.
+	 * @throws IllegalArgumentException si la liste est vide ou le fondu trop large.
+	 */
+	public static BufferedImage fusionHorizontale(List<BufferedImage> images, int fondu) {
+		TamponPixels[] tampons = aMemeDimension(images, true);
+		verifierFondu(tampons, fondu, true);
+
+		int[] debuts = new int[tampons.length];
+		int width = tampons[0].largeur;
+		for (int i = 1; i < tampons.length; i++) {
+			debuts[i] = width - fondu;
+			width = debuts[i] + tampons[i].largeur;
+		}
+		int height = tampons[0].hauteur;
 
-			if (imgGauche.getHeight() > imgDroite.getHeight()) {
-				double ratio = (double) imgDroite.getHeight() / imgGauche.getHeight();
-				int newWidth = (int) (imgGauche.getWidth() * ratio);
-				imgGauche = Format.redimensionner(imgGauche, newWidth, imgDroite.getHeight());
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		TamponPixels sortie = TamponPixels.ouvrir(result);
+		int[] poids = rampe(fondu);
+		int derniere = tampons.length - 1;
+
+		// Sur chaque ligne, chaque image copie sa partie hors fondu puis mélange
+		// son fondu droit avec le début de l'image suivante
+		ExecuteurTuiles.partage().parcourirLignes(width, height, (yDebut, yFin) -> {
+			for (int y = yDebut; y < yFin; y++) {
+				int ligne = sortie.indice(0, y);
+				for (int i = 0; i <= derniere; i++) {
+					TamponPixels image = tampons[i];
+					int xDebut = i == 0 ? 0 : fondu;
+					int xFin = i == derniere ? image.largeur : image.largeur - fondu;
+					image.copierArgb(image.indice(xDebut, y), sortie.pixels, ligne + debuts[i] + xDebut, xFin - xDebut);
+					if (i < derniere) {
+						int iGauche = image.indice(xFin, y);
+						int iDroite = tampons[i + 1].indice(0, y);
+						TamponPixels droite = tampons[i + 1];
+						int iSortie = ligne + debuts[i + 1];
+						for (int x = 0; x < fondu; x++) {
+							sortie.pixels[iSortie + x] = melanger(image.argb(iGauche + x), droite.argb(iDroite + x), poids[x]);
+						}
+					}
+				}
 			}
+		});
+		return result;
+	}
 
-			if (imgGauche.getHeight() < imgDroite.getHeight()) {
-				double ratio = (double) imgGauche.getHeight() / imgDroite.getHeight();
-				int newWidth = (int) (imgDroite.getWidth() * ratio);
-				imgDroite = Format.redimensionner(imgDroite, newWidth, imgGauche.getHeight());
-			}
+	/**
+	 * Fusionne une suite d'images de haut en bas, avec un fondu de même hauteur
+	 * entre chaque paire d'images voisines.
+	 * Les images plus larges que la plus étroite sont d'abord réduites à sa
+	 * largeur, proportions conservées. L'image finale est allouée une seule fois
+	 * puis remplie ligne par ligne en parallèle.
+	 *
+	 * @param images Les images, de haut en bas (au moins une).
+	 * @param fondu La hauteur de chaque fondu, au plus la hauteur des images
+	 *              et la moitié de celle des images intermédiaires.
+	 * @return Une nouvelle image ARGB.
+	 * @throws IllegalArgumentException si la liste est vide ou le fondu trop haut.
+	 */
+	public static BufferedImage fusionVerticale(List<BufferedImage> images, int fondu) {
+		TamponPixels[] tampons = aMemeDimension(images, false);
+		verifierFondu(tampons, fondu, false);
+
+		int[] debuts = new int[tampons.length];
+		int height = tampons[0].hauteur;
+		for (int i = 1; i < tampons.length; i++) {
+			debuts[i] = height - fondu;
+			height = debuts[i] + tampons[i].hauteur;
 		}
-
-		int width = imgGauche.getWidth() + imgDroite.getWidth() - fondu;
-		int height = Math.max(imgGauche.getHeight(), imgDroite.getHeight());
+		int width = tampons[0].largeur;
 
 		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-		Graphics g = result.getGraphics();
-
-		int xDebutFondu = imgGauche.getWidth() - fondu;
-
-		g.drawImage(imgGauche,
-				0, 0, xDebutFondu, height,
-				0, 0, xDebutFondu, imgGauche.getHeight(),
-				null);
-
-		g.drawImage(imgDroite,
-				imgGauche.getWidth(), 0, width, height,
-				fondu, 0, imgDroite.getWidth(), imgDroite.getHeight(),
-				null);
-
-		for (int x = 0; x < fondu; x++) {
-			float alpha = x / (float) fondu;
-
-			for (int y = 0; y < height; y++) {
-
-				int color1 = y < imgGauche.getHeight() ? imgGauche.getRGB(xDebutFondu + x, y) : Color.TRANSLUCENT;
-				int color2 = y < imgDroite.getHeight() ? imgDroite.getRGB(x, y) : Color.TRANSLUCENT;
-
-				int a1 = (color1 >> 24) & 0xff;
-				int r1 = (color1 >> 16) & 0xff;
-				int g1 = (color1 >> 8) & 0xff;
-				int b1 = color1 & 0xff;
-
-				int a2 = (color2 >> 24) & 0xff;
-				int r2 = (color2 >> 16) & 0xff;
-				int g2 = (color2 >> 8) & 0xff;
-				int b2 = color2 & 0xff;
-
-				int a = (int) (a1 * (1 - alpha) + a2 * alpha);
-				int r = (int) (r1 * (1 - alpha) + r2 * alpha);
-				int g_ = (int) (g1 * (1 - alpha) + g2 * alpha);
-				int b = (int) (b1 * (1 - alpha) + b2 * alpha);
-
-				int argb = (a << 24) | (r << 16) | (g_ << 8) | b;
-
-				result.setRGB(xDebutFondu + x, y, argb);
+		TamponPixels sortie = TamponPixels.ouvrir(result);
+		int[] poids = rampe(fondu);
+
+		// Chaque ligne vient d'une seule image, ou du fondu entre deux images
+		ExecuteurTuiles.partage().parcourirLignes(width, height, (yDebut, yFin) -> {
+			int i = 0;
+			for (int y = yDebut; y < yFin; y++) {
+				while (i + 1 < debuts.length && debuts[i + 1] <= y) {
+					i++;
+				}
+				int yImage = y - debuts[i];
+				int ligne = sortie.indice(0, y);
+				if (i > 0 && yImage < fondu) {
+					TamponPixels haut = tampons[i - 1];
+					int iHaut = haut.indice(0, haut.hauteur - fondu + yImage);
+					int iBas = tampons[i].indice(0, yImage);
+					int p = poids[yImage];
+					for (int x = 0; x < width; x++) {
+						sortie.pixels[ligne + x] = melanger(haut.argb(iHaut + x), tampons[i].argb(iBas + x), p);
+					}
+				} else {
+					tampons[i].copierArgb(tampons[i].indice(0, yImage), sortie.pixels, ligne, width);
+				}
 			}
-		}
-
-		g.dispose();
+		});
 		return result;
 	}
 
-public static BufferedImage fusionVerticale(BufferedImage imgHaut, BufferedImage imgBas, int fondu) {
-
-        if (fondu < 0 || fondu > imgHaut.getHeight() || fondu > imgBas.getHeight()) {
-            throw new IllegalArgumentException(
-                    "La hauteur du fondu (" + fondu
-                            + ") doit être positive et inférieure aux hauteurs des deux images.");
-        }
-
-        if (imgHaut.getWidth() != imgBas.getWidth()) {
-
-            if (imgHaut.getWidth() > imgBas.getWidth()) {
-                double ratio = (double) imgBas.getWidth() / imgHaut.getWidth();
-                int newHeight = (int) (imgHaut.getHeight() * ratio);
-                imgHaut = Format.redimensionner(imgHaut, imgBas.getWidth(), newHeight);
-            }
-
-            if (imgHaut.getWidth() < imgBas.getWidth()) {
-                double ratio = (double) imgHaut.getWidth() / imgBas.getWidth();
-                int newHeight = (int) (imgBas.getHeight() * ratio);
-                imgBas = Format.redimensionner(imgBas, imgHaut.getWidth(), newHeight);
-            }
-        }
-
-        int width = Math.max(imgHaut.getWidth(), imgBas.getWidth());
-        int height = imgHaut.getHeight() + imgBas.getHeight() - fondu;
-
-        BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
-        Graphics g = result.getGraphics();
-
-        int yDebutFondu = imgHaut.getHeight() - fondu;
-
-        g.drawImage(imgHaut,
-                0, 0, width, yDebutFondu,
-                0, 0, imgHaut.getWidth(), yDebutFondu,
-                null);
-
-        g.drawImage(imgBas,
-                0, imgHaut.getHeight(), width, height,
-                0, fondu, imgBas.getWidth(), imgBas.getHeight(),
-                null);
-
-        for (int y = 0; y < fondu; y++) {
-            float alpha = y / (float) fondu;
-
-            for (int x = 0; x < width; x++) {
-
-                int color1 = x < imgHaut.getWidth() ? imgHaut.getRGB(x, yDebutFondu + y) : Color.TRANSLUCENT;
-                int color2 = x < imgBas.getWidth() ? imgBas.getRGB(x, y) : Color.TRANSLUCENT;
+	/**
+	 * Assemble des images en planche contact : une grille de cases de même
+	 * taille, remplie ligne par ligne, séparées par une marge transparente.
+	 * Chaque image est mise à l'échelle pour tenir dans sa case, proportions
+	 * conservées, et centrée. La planche est allouée une seule fois puis
+	 * remplie ligne par ligne en parallèle.
+	 *
+	 * @param images Les images, dans l'ordre de lecture (au moins une).
+	 * @param colonnes Le nombre de colonnes de la grille.
+	 * @param largeurCase La largeur d'une case.
+	 * @param hauteurCase La hauteur d'une case.
+	 * @param marge L'espace entre les cases et autour de la grille.
+	 * @return Une nouvelle image ARGB.
+	 * @throws IllegalArgumentException si la liste est vide ou une dimension invalide.
+	 */
+	public static BufferedImage planche(List<BufferedImage> images, int colonnes, int largeurCase, int hauteurCase, int marge) {
+		if (images.isEmpty()) {
+			throw new IllegalArgumentException("Aucune image à assembler.");
+		}
+		if (colonnes <= 0 || largeurCase <= 0 || hauteurCase <= 0 || marge < 0) {
+			throw new IllegalArgumentException("Dimensions de la planche invalides.");
+		}
+		int n = images.size();
+		int nbColonnes = Math.min(colonnes, n);
+		int nbLignes = (n + nbColonnes - 1) / nbColonnes;
+		int width = nbColonnes * (largeurCase + marge) + marge;
+		int height = nbLignes * (hauteurCase + marge) + marge;
+
+		TamponPixels[] vignettes = new TamponPixels[n];
+		int[] xCases = new int[n];
+		int[] yCases = new int[n];
+		for (int i = 0; i < n; i++) {
+			BufferedImage image = images.get(i);
+			double echelle = Math.min((double) largeurCase / image.getWidth(), (double) hauteurCase / image.getHeight());
+			int largeur = Math.max(1, Math.min(largeurCase, (int) Math.round(image.getWidth() * echelle)));
+			int hauteur = Math.max(1, Math.min(hauteurCase, (int) Math.round(image.getHeight() * echelle)));
+			vignettes[i] = TamponPixels.ouvrir(mettreAEchelle(image, largeur, hauteur));
+			xCases[i] = marge + (i % nbColonnes) * (largeurCase + marge) + (largeurCase - largeur) / 2;
+			yCases[i] = marge + (i / nbColonnes) * (hauteurCase + marge) + (hauteurCase - hauteur) / 2;
+		}
 
-                int a1 = (color1 >> 24) & 0xff;
-                int r1 = (color1 >> 16) & 0xff;
-                int g1 = (color1 >> 8) & 0xff;
-                int b1 = color1 & 0xff;
+		BufferedImage result = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+		TamponPixels sortie = TamponPixels.ouvrir(result);
+
+		// Une ligne de la planche ne traverse que les vignettes d'une ligne de la grille
+		ExecuteurTuiles.partage().parcourirLignes(width, height, (yDebut, yFin) -> {
+			for (int y = yDebut; y < yFin; y++) {
+				int rangee = Math.min(nbLignes - 1, Math.max(0, (y - marge) / (hauteurCase + marge)));
+				int fin = Math.min(n, (rangee + 1) * nbColonnes);
+				for (int i = rangee * nbColonnes; i < fin; i++) {
+					TamponPixels vignette = vignettes[i];
+					int yVignette = y - yCases[i];
+					if (yVignette >= 0 && yVignette < vignette.hauteur) {
+						vignette.copierArgb(vignette.indice(0, yVignette), sortie.pixels, sortie.indice(xCases[i], y),
+								vignette.largeur);
+					}
+				}
+			}
+		});
+		return result;
+	}
 
-                int a2 = (color2 >> 24) & 0xff;
-                int r2 = (color2 >> 16) & 0xff;
-                int g2 = (color2 >> 8) & 0xff;
-                int b2 = color2 & 0xff;
+	/**
+	 * Ramène les images à la même hauteur (fusion horizontale) ou à la même
+	 * largeur (fusion verticale) : celle de la plus petite, proportions conservées.
+	 *
+	 * @param images Les images à fusionner.
+	 * @param horizontale true pour égaliser les hauteurs, false pour les largeurs.
+	 * @return Les pixels de chaque image, dans l'ordre.
+	 */
+	private static TamponPixels[] aMemeDimension(List<BufferedImage> images, boolean horizontale) {
+		if (images.isEmpty()) {
+			throw new IllegalArgumentException("Aucune image à fusionner.");
+		}
+		int cible = Integer.MAX_VALUE;
+		for (BufferedImage image : images) {
+			cible = Math.min(cible, horizontale ? image.getHeight() : image.getWidth());
+		}
+		TamponPixels[] tampons = new TamponPixels[images.size()];
+		for (int i = 0; i < tampons.length; i++) {
+			BufferedImage image = images.get(i);
+			if (horizontale && image.getHeight() != cible) {
+				double ratio = (double) cible / image.getHeight();
+				int newWidth = Math.max(1, (int) (image.getWidth() * ratio));
+				image = Format.reduireParPyramide(image, newWidth, cible, Filtre.BILINEAIRE);
+			} else if (!horizontale && image.getWidth() != cible) {
+				double ratio = (double) cible / image.getWidth();
+				int newHeight = Math.max(1, (int) (image.getHeight() * ratio));
+				image = Format.reduireParPyramide(image, cible, newHeight, Filtre.BILINEAIRE);
+			}
+			tampons[i] = TamponPixels.ouvrir(image);
+		}
+		return tampons;
+	}
 
-                int a = (int) (a1 * (1 - alpha) + a2 * alpha);
-                int r = (int) (r1 * (1 - alpha) + r2 * alpha);
-                int g_ = (int) (g1 * (1 - alpha) + g2 * alpha);
-                int b = (int) (b1 * (1 - alpha) + b2 * alpha);
+	/**
+	 * Vérifie qu'un fondu tient dans chaque image et que les deux fondus d'une
+	 * image intermédiaire ne se chevauchent pas.
+	 *
+	 * @param tampons Les images, déjà mises à la même dimension.
+	 * @param fondu La taille du fondu.
+	 * @param horizontale true si le fondu porte sur les largeurs, false sur les hauteurs.
+	 */
+	private static void verifierFondu(TamponPixels[] tampons, int fondu, boolean horizontale) {
+		for (int i = 0; i < tampons.length; i++) {
+			int taille = horizontale ? tampons[i].largeur : tampons[i].hauteur;
+			int maximum = i == 0 || i == tampons.length - 1 ? taille : taille / 2;
+			if (fondu < 0 || fondu > maximum) {
+				throw new IllegalArgumentException(
+						(horizontale ? "La largeur" : "La hauteur") + " du fondu (" + fondu
+								+ ") doit être positive et inférieure aux " + (horizontale ? "largeurs" : "hauteurs")
+								+ " des images (la moitié pour les images intermédiaires).");
+			}
+		}
+	}
 
-                int argb = (a << 24) | (r << 16) | (g_ << 8) | b;
+	/**
+	 * Met une image à la taille voulue : réduction par la pyramide, agrandissement
+	 * par le rééchantillonneur, image inchangée si elle a déjà cette taille.
+	 */
+	private static BufferedImage mettreAEchelle(BufferedImage image, int largeur, int hauteur) {
+		if (image.getWidth() == largeur && image.getHeight() == hauteur) {
+			return image;
+		}
+		if (largeur <= image.getWidth() && hauteur <= image.getHeight()) {
+			return Format.reduireParPyramide(image, largeur, hauteur, Filtre.BILINEAIRE);
+		}
+		return Format.redimensionner(image, largeur, hauteur, Filtre.BILINEAIRE);
+	}
 
-                result.setRGB(x, yDebutFondu + y, argb);
-            }
-        }
+	/**
+	 * Calcule les poids du fondu en virgule fixe sur 8 bits : à la position i,
+	 * la seconde image pèse floor(256 i / fondu) et la première le reste.
+	 *
+	 * @param fondu La largeur (ou hauteur) du fondu en pixels.
+	 * @return Le poids de la seconde image pour chaque position du fondu.
+	 */
+	private static int[] rampe(int fondu) {
+		int[] poids = new int[fondu];
+		for (int i = 0; i < fondu; i++) {
+			poids[i] = (i << 8) / fondu;
+		}
+		return poids;
+	}
 
-        g.dispose();
-        return result;
-    }
-}
\ No newline at end of file
+	/**
+	 * Mélange deux pixels ARGB composante par composante.
+	 * Les composantes sont calculées deux par deux (alpha et vert, rouge et bleu)
+	 * dans des champs de 16 bits, avec arrondi.
+	 *
+	 * @param color1 Le pixel de la première image.
+	 * @param color2 Le pixel de la seconde image.
+	 * @param p Le poids de la seconde image (0 à 256).
+	 * @return Le pixel mélangé.
+	 */
+	private static int melanger(int color1, int color2, int p) {
+		int q = 256 - p;
+		int rb = (((color1 & 0xFF00FF) * q + (color2 & 0xFF00FF) * p + 0x800080) >>> 8) & 0xFF00FF;
+		int ag = ((((color1 >>> 8) & 0xFF00FF) * q + ((color2 >>> 8) & 0xFF00FF) * p + 0x800080)) & 0xFF00FF00;
+		return ag | rb;
+	}
+}
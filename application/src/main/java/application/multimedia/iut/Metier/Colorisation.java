@@ -10,12 +10,21 @@ package application.multimedia.iut.Metier;
 import java.awt.Color;
 import java.awt.image.BufferedImage;
 
+import application.multimedia.iut.Metier.traitement.ChaineAjustements;
+import application.multimedia.iut.Metier.traitement.ExecuteurTuiles;
+import application.multimedia.iut.Metier.traitement.NoyauxCouleur;
+import application.multimedia.iut.Metier.traitement.RemplissageSpans;
+import application.multimedia.iut.Metier.traitement.StatistiquesImage;
+import application.multimedia.iut.Metier.traitement.TamponPixels;
+
 /**
  * Fournit des outils de colorisation et de transformation de couleurs.
  * Permet d'appliquer teinte, contraste, luminosité et pot de peinture.
  */
 public class Colorisation {
 	static public final int VALEUR_MOYENNE = 127;
+	/** Pourcentage de pixels saturés à chaque extrémité par le contraste et les niveaux automatiques. */
+	static public final double COUPURE_AUTO = 0.5;
 
 	/**
 	 * Applique une teinte de couleur sur l'image avec alpha blending.
@@ -33,25 +42,11 @@ public class Colorisation {
         blue  = clamp(blue);
         alpha = clamp(alpha);
 
-        for (int x = 0; x < image.getWidth(); x++) {
-            for (int y = 0; y < image.getHeight(); y++) {
-                int rgb = image.getRGB(x, y);
-				
-				int a = (rgb >> 24) & 0xFF;
-                int r = (rgb >> 16) & 0xFF;
-				int g = (rgb >> 8) & 0xFF;
-				int b = rgb & 0xFF;
-				
-
-                // alpha blending : résultat = tint*alpha + origine*(255-alpha)
-                int nr = (red * alpha + r * (255 - alpha)) / 255;
-                int ng = (green * alpha + g * (255 - alpha)) / 255;
-                int nb = (blue * alpha + b * (255 - alpha)) / 255;
-
-                int teinteCouleur = (a << 24) | (nr << 16) | (ng << 8) | nb;
-                image.setRGB(x, y, teinteCouleur);
-			}
-		}
+		int rouge = red, vert = green, bleu = blue, intensite = alpha;
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		ExecuteurTuiles.partage().parcourirLignes(tampon.largeur, tampon.hauteur,
+				(yDebut, yFin) -> NoyauxCouleur.teinter(tampon, yDebut, yFin, rouge, vert, bleu, intensite));
+		tampon.valider();
 	}
 
 	/**
@@ -72,35 +67,60 @@ public class Colorisation {
 	 * @param contraste Le niveau de contraste (-100 à +100).
 	 */
 	public static void contraste( BufferedImage image, int contraste) {
-		for(int x = 0; x < image.getWidth(); x++){
-			for (int y = 0; y < image.getHeight(); y++){
-				Color coul = new Color(image.getRGB(x,y));
-
-				if (contraste < -100) contraste = -100;
-				if (contraste >  100) contraste =  100;
-
-				int r = coul.getRed();
-				int g = coul.getGreen();
-				int b = coul.getBlue();
-
-				r = (int)(r + contraste / 100f * (r - VALEUR_MOYENNE));
-				g = (int)(g + contraste / 100f * (g - VALEUR_MOYENNE));
-				b = (int)(b + contraste / 100f * (b - VALEUR_MOYENNE));
-
-				if (r < 0)   r = 0;   
-				if (r > 255) r = 255;
+		contraste(image, contraste, VALEUR_MOYENNE);
+	}
 
-				if (g < 0)   g = 0;   
-				if (g > 255) g = 255;
+	/**
+	 * Ajuste le contraste de l'image autour d'une valeur pivot.
+	 * Avec la moyenne de l'image comme pivot (voir statistiques), la luminosité
+	 * globale est conservée.
+	 *
+	 * @param image L'image à modifier (modifiée).
+	 * @param contraste Le niveau de contraste (-100 à +100).
+	 * @param pivot La valeur autour de laquelle le contraste est appliqué (0-255).
+	 */
+	public static void contraste( BufferedImage image, int contraste, int pivot) {
+		if (contraste < -100) contraste = -100;
+		if (contraste >  100) contraste =  100;
+
+		int niveau = contraste;
+		int centre = clamp(pivot);
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		ExecuteurTuiles.partage().parcourirLignes(tampon.largeur, tampon.hauteur,
+				(yDebut, yFin) -> NoyauxCouleur.contraste(tampon, yDebut, yFin, niveau, centre));
+		tampon.valider();
+	}
 
-				if (b < 0)   b = 0;   
-				if (b > 255) b = 255;
+	/**
+	 * Calcule les statistiques de l'image en un parcours parallèle.
+	 * Histogrammes par composante et de luminance, moyenne, extrêmes, centiles.
+	 *
+	 * @param image L'image à analyser (non modifiée).
+	 * @return Les statistiques de l'image.
+	 */
+	public static StatistiquesImage statistiques(BufferedImage image) {
+		return StatistiquesImage.calculer(image);
+	}
 
-				int contrasteCouleur = new Color(r,g,b).getRGB();
+	/**
+	 * Étire automatiquement le contraste de l'image.
+	 * Le même intervalle est étiré sur les trois composantes (teintes conservées),
+	 * en ignorant COUPURE_AUTO % des pixels à chaque extrémité.
+	 *
+	 * @param image L'image à modifier (modifiée).
+	 */
+	public static void contrasteAuto(BufferedImage image) {
+		statistiques(image).contrasteAuto(COUPURE_AUTO).appliquer(image);
+	}
 
-				image.setRGB(x,y, contrasteCouleur);
-			}
-		}
+	/**
+	 * Ajuste automatiquement les niveaux de chaque composante.
+	 * Chaque composante est étirée indépendamment, ce qui corrige une dominante.
+	 *
+	 * @param image L'image à modifier (modifiée).
+	 */
+	public static void niveauxAuto(BufferedImage image) {
+		statistiques(image).niveauxAuto(COUPURE_AUTO).appliquer(image);
 	}
 
 	/**
@@ -129,36 +149,35 @@ public class Colorisation {
 	 * @param luminosite Le niveau de luminosité (-255 à +255).
 	 */
 	public static void luminosite(BufferedImage image, int luminosite) {
-		for(int x = 0; x < image.getWidth(); x++){
-			for (int y = 0; y < image.getHeight(); y++){
-				Color coul = new Color(image.getRGB(x,y));
-				
-				if (luminosite < -255) luminosite = -255;
-				if (luminosite >  255) luminosite =  255;
-
-				int r = coul.getRed();
-				int g = coul.getGreen();
-				int b = coul.getBlue();
-
-				r = r + luminosite;
-				g = g + luminosite;
-				b = b + luminosite;
-
-				if (r < 0)   r = 0;   
-				if (r > 255) r = 255;
-
-				if (g < 0)   g = 0;   
-				if (g > 255) g = 255;
-
-				if (b < 0)   b = 0;   
-				if (b > 255) b = 255;
+		if (luminosite < -255) luminosite = -255;
+		if (luminosite >  255) luminosite =  255;
+
+		int decalage = luminosite;
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		ExecuteurTuiles.partage().parcourirLignes(tampon.largeur, tampon.hauteur,
+				(yDebut, yFin) -> NoyauxCouleur.luminosite(tampon, yDebut, yFin, decalage));
+		tampon.valider();
+	}
 
-				int luminositeCouleur = new Color(r,g,b).getRGB();
+	/**
+	 * Crée une chaîne d'ajustements vide (luminosité, contraste, teinte).
+	 * Exemple : ajustements().luminosite(20).contraste(30).teinte(255, 0, 0, 102).
+	 *
+	 * @return Une nouvelle chaîne d'ajustements.
+	 */
+	public static ChaineAjustements ajustements() {
+		return new ChaineAjustements();
+	}
 
-		
-				image.setRGB(x,y, luminositeCouleur);
-			}
-		}
+	/**
+	 * Applique une chaîne d'ajustements en un seul parcours de l'image.
+	 * Les étapes sont compilées en tables de 256 entrées par composante.
+	 *
+	 * @param image L'image à modifier (modifiée).
+	 * @param chaine La chaîne d'ajustements à appliquer.
+	 */
+	public static void appliquerAjustements(BufferedImage image, ChaineAjustements chaine) {
+		chaine.appliquer(image);
 	}
 
 	/**
@@ -177,19 +196,34 @@ public class Colorisation {
 			potDePeintureRec (image, xOrig, yOrig, image.getRGB( xOrig, yOrig ) & 0xFFFFFF, coulDest, distance);
 		}
 		else {
-			int coulOrig = image.getRGB( xOrig, yOrig ) & 0xFFFFFF;
-			for(int x = 0; x < image.getWidth(); x++){
-				for (int y = 0; y < image.getHeight(); y++){
-					if (distance(image.getRGB( x, y ),coulOrig) <= distance)
-						image.setRGB(x,y, coulDest);
-				}
-			}
+			remplacerCouleur(image, image.getRGB( xOrig, yOrig ) & 0xFFFFFF, coulDest, distance);
 		}
 	}
 
 	/**
-	 * Implémentation récursive (avec pile) du pot de peinture.
-	 * Propage le remplissage aux pixels adjacents dans la tolérance.
+	 * Remplace dans toute l'image les pixels proches d'une couleur (mode global du pot de peinture).
+	 * La tolérance est convertie une fois en seuil sur la distance au carré,
+	 * puis chaque bande de lignes est traitée en parallèle sans racine carrée.
+	 *
+	 * @param image L'image à modifier (modifiée).
+	 * @param coulOrig La couleur à remplacer (RGB, alpha ignoré).
+	 * @param coulDest La couleur de remplacement.
+	 * @param distance La tolérance de couleur (0-441, distance euclidienne RGB).
+	 */
+	public static void remplacerCouleur(BufferedImage image, int coulOrig, int coulDest, double distance) {
+		int seuil = RemplissageSpans.seuilCarre(distance);
+		if (seuil < 0) return;
+
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		ExecuteurTuiles.partage().parcourirLignes(tampon.largeur, tampon.hauteur,
+				(yDebut, yFin) -> NoyauxCouleur.remplacer(tampon, yDebut, yFin, coulOrig, coulDest, seuil));
+		tampon.valider();
+	}
+
+	/**
+	 * Remplissage contigu du pot de peinture, par segments horizontaux.
+	 * Propage le remplissage aux pixels 4-adjacents dans la tolérance, en
+	 * travaillant sur le tableau de pixels avec un ensemble de bits de visite.
 	 *
 	 * @param image L'image à modifier (modifiée).
 	 * @param x La coordonnée X de départ.
@@ -199,35 +233,10 @@ public class Colorisation {
 	 * @param distance La tolérance de distance de couleur.
 	 */
 	public static void potDePeintureRec  (BufferedImage image, int x, int y, int coulOrig, int coul, double distance) {
-
-        int w = image.getWidth();
-        int h = image.getHeight();
-
-		boolean[][] visited = new boolean[w][h];
-
-		java.util.ArrayDeque<int[]> stack = new java.util.ArrayDeque<>();
-        stack.push(new int[] { x, y });
-
-        while (!stack.isEmpty()) {
-
-            int[] p = stack.pop();
-            int px = p[0];
-            int py = p[1];
-
-            if (px < 0 || px >= w || py < 0 || py >= h) continue;
-            if (visited[px][py]) continue;
-            visited[px][py] = true;
-
-            if (distance(image.getRGB(px, py), coulOrig) > distance) continue;
-
-            image.setRGB(px, py, coul);
-
-            stack.push(new int[] { px + 1, py });
-            stack.push(new int[] { px - 1, py });
-            stack.push(new int[] { px, py + 1 });
-            stack.push(new int[] { px, py - 1 });
-        }
-    }
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		RemplissageSpans.remplir(tampon, x, y, coulOrig, coul, distance);
+		tampon.valider();
+	}
 
 	/**
 	 * Calcule la distance euclidienne entre deux couleurs dans l'espace RGB.
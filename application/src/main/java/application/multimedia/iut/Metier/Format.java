@@ -8,6 +8,15 @@ package application.multimedia.iut.Metier;
 
 import java.awt.image.BufferedImage;
 
+import application.multimedia.iut.Metier.traitement.ExecuteurTuiles;
+import application.multimedia.iut.Metier.traitement.Pyramide;
+import application.multimedia.iut.Metier.traitement.Reechantillonneur;
+import application.multimedia.iut.Metier.traitement.RotationDroite;
+import application.multimedia.iut.Metier.traitement.RotationLibre;
+import application.multimedia.iut.Metier.traitement.Reechantillonneur.Filtre;
+import application.multimedia.iut.Metier.traitement.TamponPixels;
+import application.multimedia.iut.Metier.traitement.TransformationDifferee;
+
 /**
  * Fournit des transformations géométriques pour les images.
  * Gère le redimensionnement, la rotation, et les opérations de flip.
@@ -15,8 +24,7 @@ import java.awt.image.BufferedImage;
 public class Format {
 
 	/**
-	 * Redimensionne une image aux dimensions spécifiées.
-	 * Utilise un algorithme de mise à l'échelle de haute qualité.
+	 * Redimensionne une image aux dimensions spécifiées (filtre bilinéaire).
 	 *
 	 * @param source L'image source à redimensionner.
 	 * @param largeurCible La nouvelle largeur souhaitée.
@@ -24,74 +32,50 @@ public class Format {
 	 * @return Une nouvelle image redimensionnée.
 	 */
 	public static BufferedImage redimensionner(BufferedImage source, int largeurCible, int hauteurCible) {
-		int largeurSource = source.getWidth();
-		int hauteurSource = source.getHeight();
-
-		BufferedImage imageRedimensionnee = new BufferedImage(largeurCible, hauteurCible, BufferedImage.TYPE_INT_ARGB);
-
-		double ratioX = (double) (largeurSource - 1) / largeurCible;
-		double ratioY = (double) (hauteurSource - 1) / hauteurCible;
-
-		for (int y = 0; y < hauteurCible; y++) {
-			for (int x = 0; x < largeurCible; x++) {
-
-				double sourceX = x * ratioX;
-				double sourceY = y * ratioY;
-
-				int xSol = (int) sourceX;
-				int ySol = (int) sourceY;
-
-				int xPlafond = Math.min(xSol + 1, largeurSource - 1);
-				int yPlafond = Math.min(ySol + 1, hauteurSource - 1);
-
-				int rgbA = source.getRGB(xSol, ySol);
-				int rgbB = source.getRGB(xPlafond, ySol);
-				int rgbC = source.getRGB(xSol, yPlafond);
-				int rgbD = source.getRGB(xPlafond, yPlafond);
-
-				double poidsX = sourceX - xSol;
-				double poidsY = sourceY - ySol;
-
-				int alpha = interpoler(getAlpha(rgbA), getAlpha(rgbB), getAlpha(rgbC), getAlpha(rgbD),
-						poidsX, poidsY);
-				int rouge = interpoler(getRouge(rgbA), getRouge(rgbB), getRouge(rgbC), getRouge(rgbD), poidsX,
-						poidsY);
-				int vert = interpoler(getVert(rgbA), getVert(rgbB), getVert(rgbC), getVert(rgbD),
-						poidsX, poidsY);
-				int bleu = interpoler(getBleu(rgbA), getBleu(rgbB), getBleu(rgbC), getBleu(rgbD), poidsX,
-						poidsY);
-
-				int rgbFinal = (alpha << 24) | (rouge << 16) | (vert << 8) | bleu;
-				imageRedimensionnee.setRGB(x, y, rgbFinal);
-			}
-		}
-
-		return imageRedimensionnee;
-	}
-
-	private static int interpoler(int a, int b, int c, int d, double poidsX, double poidsY) {
-
-		double haut = a * (1 - poidsX) + b * poidsX;
-		double bas = c * (1 - poidsX) + d * poidsX;
-
-		double valeurFinale = haut * (1 - poidsY) + bas * poidsY;
-		return (int) Math.round(valeurFinale);
-	}
-
-	private static int getAlpha(int rgb) {
-		return (rgb >> 24) & 0xFF;
+		return redimensionner(source, largeurCible, hauteurCible, Filtre.BILINEAIRE);
 	}
 
-	private static int getRouge(int rgb) {
-		return (rgb >> 16) & 0xFF;
+	/**
+	 * Redimensionne une image aux dimensions spécifiées avec le filtre choisi.
+	 * Le filtre est séparable (une passe par axe) avec des poids précalculés en
+	 * virgule fixe ; en réduction, chaque pixel source est pris en compte.
+	 *
+	 * @param source L'image source à redimensionner.
+	 * @param largeurCible La nouvelle largeur souhaitée.
+	 * @param hauteurCible La nouvelle hauteur souhaitée.
+	 * @param filtre Le filtre : plus proche voisin, bilinéaire, bicubique ou Lanczos 3.
+	 * @return Une nouvelle image redimensionnée.
+	 */
+	public static BufferedImage redimensionner(BufferedImage source, int largeurCible, int hauteurCible, Filtre filtre) {
+		return Reechantillonneur.redimensionner(source, largeurCible, hauteurCible, filtre);
 	}
 
-	private static int getVert(int rgb) {
-		return (rgb >> 8) & 0xFF;
+	/**
+	 * Réduit fortement une image (miniature) en passant par une pyramide de
+	 * moyennes 2x2 : le filtre n'est appliqué qu'au dernier rapport, inférieur
+	 * à 2, ce qui évite de parcourir tout le support du filtre à pleine résolution.
+	 * Pour des réductions répétées d'une même image, garder une {@link Pyramide}.
+	 *
+	 * @param source L'image source à réduire.
+	 * @param largeurCible La nouvelle largeur, au plus celle de la source.
+	 * @param hauteurCible La nouvelle hauteur, au plus celle de la source.
+	 * @param filtre Le filtre du rééchantillonnage final.
+	 * @return Une nouvelle image réduite.
+	 */
+	public static BufferedImage reduireParPyramide(BufferedImage source, int largeurCible, int hauteurCible, Filtre filtre) {
+		return new Pyramide(source).reduire(largeurCible, hauteurCible, filtre);
 	}
 
-	private static int getBleu(int rgb) {
-		return rgb & 0xFF;
+	/**
+	 * Démarre une suite de transformations (rotation, symétries,
+	 * redimensionnement) appliquées ensuite en une seule passe : l'image n'est
+	 * rééchantillonnée qu'une fois, quel que soit le nombre d'opérations.
+	 *
+	 * @param source L'image source (non modifiée).
+	 * @return La transformation à compléter puis à appliquer.
+	 */
+	public static TransformationDifferee transformer(BufferedImage source) {
+		return new TransformationDifferee(source);
 	}
 
 	/**
@@ -126,7 +110,8 @@ public class Format {
 
 	/**
 	 * Applique une rotation à une image selon un angle donné.
-	 * Gère les rotations à 90°, 180°, 270° et les angles arbitraires.
+	 * Gère les rotations à 90°, 180°, 270° (par blocs, sans rééchantillonnage)
+	 * et les angles arbitraires.
 	 *
 	 * @param src L'image source à faire pivoter.
 	 * @param angleDeg L'angle de rotation en degrés.
@@ -136,80 +121,52 @@ public class Format {
 
 		angleDeg = ((angleDeg % 360) + 360) % 360;
 
-		int w = src.getWidth();
-		int h = src.getHeight();
-
 		if (angleDeg == 90) {
-			BufferedImage dest = new BufferedImage(h, w, BufferedImage.TYPE_INT_ARGB);
-			for (int y = 0; y < h; y++)
-				for (int x = 0; x < w; x++)
-					dest.setRGB(h - 1 - y, x, src.getRGB(x, y));
-			return dest;
-
+			return RotationDroite.pivoter(src, 1);
 		} else if (angleDeg == 180) {
-			BufferedImage dest = new BufferedImage(w, h, BufferedImage.TYPE_INT_ARGB);
-			for (int y = 0; y < h; y++)
-				for (int x = 0; x < w; x++)
-					dest.setRGB(w - 1 - x, h - 1 - y, src.getRGB(x, y));
-			return dest;
-
+			return RotationDroite.pivoter(src, 2);
 		} else if (angleDeg == 270) {
-			BufferedImage dest = new BufferedImage(h, w, BufferedImage.TYPE_INT_ARGB);
-			for (int y = 0; y < h; y++)
-				for (int x = 0; x < w; x++)
-					dest.setRGB(y, w - 1 - x, src.getRGB(x, y));
-			return dest;
-
+			return RotationDroite.pivoter(src, 3);
 		} else {
 			return rotationRSamp(src, angleDeg);
 		}
 	}
 
+	/**
+	 * Applique une rotation d'un angle quelconque, au plus proche voisin.
+	 *
+	 * @param src L'image source à faire pivoter.
+	 * @param angleDeg L'angle de rotation en degrés.
+	 * @return Une nouvelle image pivotée, transparente hors de la source.
+	 */
 	public static BufferedImage rotationRSamp(BufferedImage src, double angleDeg) {
-		int srcWidth = src.getWidth();
-		int srcHeight = src.getHeight();
-
-		double angle = Math.toRadians(angleDeg);
-		double cosA = Math.abs(Math.cos(angle));
-		double sinA = Math.abs(Math.sin(angle));
-
-		int newWidth = (int) Math.ceil(srcWidth * cosA + srcHeight * sinA);
-		int newHeight = (int) Math.ceil(srcHeight * cosA + srcWidth * sinA);
-		BufferedImage dest = new BufferedImage(newWidth, newHeight, BufferedImage.TYPE_INT_ARGB);
-
-		int cxSrc = srcWidth / 2;
-		int cySrc = srcHeight / 2;
-
-		int cxDest = newWidth / 2;
-		int cyDest = newHeight / 2;
-
-		double cos = Math.cos(angle);
-		double sin = Math.sin(angle);
-
-		for (int yPrime = 0; yPrime < newHeight; yPrime++) {
-			for (int xPrime = 0; xPrime < newWidth; xPrime++) {
-				double xC = xPrime - cxDest;
-				double yC = yPrime - cyDest;
-
-				double x = xC * cos + yC * sin;
-				double y = -xC * sin + yC * cos;
-
-				int xSrc = (int) Math.round(x + cxSrc);
-				int ySrc = (int) Math.round(y + cySrc);
+		return RotationLibre.pivoter(src, angleDeg, false);
+	}
 
-				if (xSrc >= 0 && xSrc < srcWidth && ySrc >= 0 && ySrc < srcHeight) {
-					dest.setRGB(xPrime, yPrime, src.getRGB(xSrc, ySrc));
-				} else {
-					dest.setRGB(xPrime, yPrime, 0x000000); // fond noir
-				}
-			}
+	/**
+	 * Applique une rotation selon un angle donné, avec ou sans lissage.
+	 * Les angles droits restent exacts ; les autres angles peuvent être
+	 * interpolés en bilinéaire, ce qui évite les marches d'escalier sur les
+	 * documents redressés.
+	 *
+	 * @param src L'image source à faire pivoter.
+	 * @param angleDeg L'angle de rotation en degrés.
+	 * @param bilineaire true pour interpoler les angles quelconques.
+	 * @return Une nouvelle image pivotée.
+	 */
+	public static BufferedImage rotation(BufferedImage src, double angleDeg, boolean bilineaire) {
+		double angle = ((angleDeg % 360) + 360) % 360;
+		if (!bilineaire || angle % 90 == 0) {
+			return rotation(src, angleDeg);
 		}
-		return dest;
+		return RotationLibre.pivoter(src, angle, true);
 	}
 
 	/**
 	 * Applique une symétrie horizontale (flip horizontal) à une image.
 	 * Effectue un retournement de gauche à droite.
+	 * La source n'est pas modifiée, ce qui convient à l'historique ;
+	 * voir {@link #symetrieHorizontaleEnPlace(BufferedImage)} pour éviter la copie.
 	 *
 	 * @param source L'image source à retourner.
 	 * @return Une nouvelle image retournée horizontalement.
@@ -219,21 +176,26 @@ public class Format {
 		int hauteur = source.getHeight();
 
 		BufferedImage imageSymetrique = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_ARGB);
-
-		for (int y = 0; y < hauteur; y++) {
-			for (int x = 0; x < largeur; x++) {
-				int rgb = source.getRGB(x, y);
-				int nouveauX = largeur - 1 - x;
-
-				imageSymetrique.setRGB(nouveauX, y, rgb);
+		TamponPixels src = TamponPixels.ouvrir(source);
+		TamponPixels dest = TamponPixels.ouvrir(imageSymetrique);
+
+		ExecuteurTuiles.partage().parcourirLignes(largeur, hauteur, (yDebut, yFin) -> {
+			for (int y = yDebut; y < yFin; y++) {
+				int s = src.indice(largeur - 1, y);
+				int d = dest.indice(0, y);
+				for (int x = 0; x < largeur; x++) {
+					dest.pixels[d++] = src.pixels[s--] | src.alphaFixe;
+				}
 			}
-		}
+		});
 		return imageSymetrique;
 	}
 
 	/**
 	 * Applique une symétrie verticale (flip vertical) à une image.
-	 * Effectue un retournement de haut en bas.
+	 * Effectue un retournement de haut en bas, ligne par ligne.
+	 * La source n'est pas modifiée, ce qui convient à l'historique ;
+	 * voir {@link #symetrieVerticaleEnPlace(BufferedImage)} pour éviter la copie.
 	 *
 	 * @param source L'image source à retourner.
 	 * @return Une nouvelle image retournée verticalement.
@@ -243,15 +205,64 @@ public class Format {
 		int hauteur = source.getHeight();
 
 		BufferedImage imageSymetrique = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_ARGB);
+		TamponPixels src = TamponPixels.ouvrir(source);
+		TamponPixels dest = TamponPixels.ouvrir(imageSymetrique);
 
-		for (int y = 0; y < hauteur; y++) {
-			for (int x = 0; x < largeur; x++) {
-				int rgb = source.getRGB(x, y);
-				int nouveauY = hauteur - 1 - y;
-
-				imageSymetrique.setRGB(x, nouveauY, rgb);
+		ExecuteurTuiles.partage().parcourirLignes(largeur, hauteur, (yDebut, yFin) -> {
+			for (int y = yDebut; y < yFin; y++) {
+				src.copierArgb(src.indice(0, y), dest.pixels, dest.indice(0, hauteur - 1 - y), largeur);
 			}
-		}
+		});
 		return imageSymetrique;
 	}
-}
\ No newline at end of file
+
+	/**
+	 * Retourne une image de gauche à droite, directement dans son raster.
+	 * Chaque ligne est inversée sur place, les lignes en parallèle.
+	 *
+	 * @param image L'image à retourner (modifiée).
+	 */
+	public static void symetrieHorizontaleEnPlace(BufferedImage image) {
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		int[] pixels = tampon.pixels;
+		int largeur = tampon.largeur;
+
+		ExecuteurTuiles.partage().parcourirLignes(largeur, tampon.hauteur, (yDebut, yFin) -> {
+			for (int y = yDebut; y < yFin; y++) {
+				int gauche = tampon.indice(0, y);
+				int droite = gauche + largeur - 1;
+				while (gauche < droite) {
+					int p = pixels[gauche];
+					pixels[gauche++] = pixels[droite];
+					pixels[droite--] = p;
+				}
+			}
+		});
+		tampon.valider();
+	}
+
+	/**
+	 * Retourne une image de haut en bas, directement dans son raster.
+	 * Les lignes symétriques sont échangées par copies de tableaux, en parallèle.
+	 *
+	 * @param image L'image à retourner (modifiée).
+	 */
+	public static void symetrieVerticaleEnPlace(BufferedImage image) {
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		int[] pixels = tampon.pixels;
+		int largeur = tampon.largeur;
+		int hauteur = tampon.hauteur;
+
+		ExecuteurTuiles.partage().parcourirLignes(largeur * 2, hauteur / 2, (yDebut, yFin) -> {
+			int[] ligne = new int[largeur];
+			for (int y = yDebut; y < yFin; y++) {
+				int haut = tampon.indice(0, y);
+				int bas = tampon.indice(0, hauteur - 1 - y);
+				System.arraycopy(pixels, haut, ligne, 0, largeur);
+				System.arraycopy(pixels, bas, pixels, haut, largeur);
+				System.arraycopy(ligne, 0, pixels, bas, largeur);
+			}
+		});
+		tampon.valider();
+	}
+}
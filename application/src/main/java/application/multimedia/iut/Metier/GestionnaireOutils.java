@@ -11,6 +11,7 @@ import application.multimedia.iut.Metier.outils.*;
 import java.awt.Color;
 import java.awt.Font;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 import java.util.ArrayList;
 import java.util.List;
@@ -63,10 +64,11 @@ public class GestionnaireOutils {
      * @param image L'image sur laquelle dessiner.
      * @param x Coordonnée X.
      * @param y Coordonnée Y.
+     * @return La zone modifiée de l'image, ou null si aucun pixel n'a changé.
      */
-    public void commencerDessin(BufferedImage image, int x, int y) {
+    public Rectangle commencerDessin(BufferedImage image, int x, int y) {
         if (image == null) {
-            return;
+            return null;
         }
         
         // Gérer la pipette séparément car elle n'active pas le mode dessin continu
@@ -77,7 +79,7 @@ public class GestionnaireOutils {
                 definirCouleurActive(couleur);
                 System.out.println("GestionnaireOutils - definirCouleurActive appelé");
             }
-            return;
+            return null;
         }
         
         dernierPoint = new Point(x, y);
@@ -87,14 +89,14 @@ public class GestionnaireOutils {
             case PINCEAU:
                 pinceau.setCouleur(couleurActive);
                 pinceau.dessinerPoint(image, x, y);
-                break;
+                return zoneTrait(image, x, y, x, y, pinceau.getEpaisseur());
             case GOMME:
                 // Forcer le blanc pur pour la gomme
                 gomme.setCouleurEffacement(new Color(255, 255, 255));
                 gomme.effacerPoint(image, x, y);
-                break;
+                return zoneTrait(image, x, y, x, y, gomme.getTaille());
             default:
-                break;
+                return null;
         }
     }
     
@@ -103,25 +105,48 @@ public class GestionnaireOutils {
      * @param image L'image sur laquelle dessiner.
      * @param x Coordonnée X.
      * @param y Coordonnée Y.
+     * @return La zone modifiée de l'image, ou null si aucun pixel n'a changé.
      */
-    public void continuerDessin(BufferedImage image, int x, int y) {
-        if (image == null || !dessinEnCours || dernierPoint == null) return;
+    public Rectangle continuerDessin(BufferedImage image, int x, int y) {
+        if (image == null || !dessinEnCours || dernierPoint == null) return null;
         
+        Rectangle zone = null;
         switch (outilActif) {
             case PINCEAU:
                 pinceau.setCouleur(couleurActive);
                 pinceau.dessinerTrait(image, dernierPoint.x, dernierPoint.y, x, y);
+                zone = zoneTrait(image, dernierPoint.x, dernierPoint.y, x, y, pinceau.getEpaisseur());
                 break;
             case GOMME:
                 // Forcer le blanc pur pour la gomme
                 gomme.setCouleurEffacement(new Color(255, 255, 255));
                 gomme.effacer(image, dernierPoint.x, dernierPoint.y, x, y);
+                zone = zoneTrait(image, dernierPoint.x, dernierPoint.y, x, y, gomme.getTaille());
                 break;
             default:
                 break;
         }
         
         dernierPoint = new Point(x, y);
+        return zone;
+    }
+    
+    /**
+     * Calcule la zone couverte par un trait à bouts ronds, limitée à l'image.
+     * @param image L'image dessinée.
+     * @param x1 Coordonnée X du départ.
+     * @param y1 Coordonnée Y du départ.
+     * @param x2 Coordonnée X de l'arrivée.
+     * @param y2 Coordonnée Y de l'arrivée.
+     * @param epaisseur L'épaisseur du trait.
+     * @return La zone touchée, ou null si elle est hors de l'image.
+     */
+    private static Rectangle zoneTrait(BufferedImage image, int x1, int y1, int x2, int y2, int epaisseur) {
+        int marge = epaisseur / 2 + 1;
+        Rectangle zone = new Rectangle(Math.min(x1, x2) - marge, Math.min(y1, y2) - marge,
+                Math.abs(x2 - x1) + 2 * marge + 1, Math.abs(y2 - y1) + 2 * marge + 1);
+        zone = zone.intersection(new Rectangle(image.getWidth(), image.getHeight()));
+        return zone.isEmpty() ? null : zone;
     }
     
     /**
@@ -22,15 +22,56 @@ import application.multimedia.iut.Controleur;
 public class Journaux {
 	public  final int MAX_HISTORIQUE = 20;
 
-	private final ArrayList<BufferedImage> historique;
-	private int                            indexImage;
+	/**
+	 * Action enregistrée qui sait se défaire et se refaire elle-même, pour les
+	 * modifications que l'image de la couche active ne suffit pas à décrire
+	 * (calques de réglage, pixels de plusieurs couches).
+	 */
+	public interface Action {
+		/**
+		 * Défait l'action.
+		 *
+		 * @return true si l'état précédent est entièrement restauré, false pour
+		 *         restaurer aussi l'image de l'entrée précédente.
+		 */
+		boolean annuler();
+
+		/**
+		 * Refait l'action.
+		 *
+		 * @return true si l'état est entièrement restauré, false pour restaurer
+		 *         aussi l'image de l'entrée.
+		 */
+		boolean refaire();
+	}
+
+	/**
+	 * Entrée de l'historique : l'image de la couche active après la
+	 * modification, et l'action correspondante si elle ne se résume pas à l'image.
+	 */
+	private static final class Entree {
+		final BufferedImage image;
+		final Action action;
+
+		Entree(BufferedImage image, Action action) {
+			this.image = image;
+			this.action = action;
+		}
+	}
+
+	private final ArrayList<Entree> historique;
+	private int                     indexImage;
 
 	public Journaux(Controleur controleur) {
-		this.historique = new ArrayList<BufferedImage>();
+		this.historique = new ArrayList<Entree>();
 		this.indexImage = -1;
 	}
 
-	public ArrayList<BufferedImage> getHistorique() { return historique;	}
+	public ArrayList<BufferedImage> getHistorique() {
+		ArrayList<BufferedImage> images = new ArrayList<BufferedImage>();
+		for (Entree entree : historique) images.add(entree.image);
+		return images;
+	}
 	public int getIndexImage() { return indexImage; }
 
 	public void setIndexAction(int indexImage) { 
@@ -46,7 +87,29 @@ public class Journaux {
 	}
 
 	public void ajouterImage(BufferedImage image) {
-		image = copierImage(image);
+		ajouter(new Entree(copierImage(image), null));
+	}
+
+	/**
+	 * Enregistre une action qui se défait et se refait elle-même.
+	 *
+	 * @param image L'image de la couche active après l'action (copiée), ou null
+	 *        si elle n'a pas changé : l'image de l'entrée courante est alors partagée.
+	 * @param action L'action enregistrée.
+	 */
+	public void ajouterAction(BufferedImage image, Action action) {
+		BufferedImage copie;
+		if (image != null) {
+			copie = copierImage(image);
+		} else if (indexImage >= 0) {
+			copie = historique.get(indexImage).image;
+		} else {
+			return;
+		}
+		ajouter(new Entree(copie, action));
+	}
+
+	private void ajouter(Entree entree) {
 		if (indexImage < historique.size() - 1) {
 			historique.subList(indexImage + 1, historique.size()).clear();
 		}
@@ -57,26 +120,86 @@ public class Journaux {
 				indexImage--;
 			}
 		}
-		historique.add(image);
+		historique.add(entree);
 		indexImage++;
 	}
+	/**
+	 * Remplace l'état courant de l'historique sans créer de nouvelle entrée.
+	 * Sert aux réglages ajustés en direct après coup (tolérance du remplissage).
+	 */
+	public void remplacerImageCourante(BufferedImage image) {
+		if (indexImage < 0) {
+			ajouterImage(image);
+			return;
+		}
+		historique.set(indexImage, new Entree(copierImage(image), historique.get(indexImage).action));
+	}
+
+	public BufferedImage getImageCourante() {
+		return indexImage >= 0 ? historique.get(indexImage).image : null;
+	}
+
+	/**
+	 * Obtient l'image de l'entrée précédant l'entrée courante, sans la copier.
+	 *
+	 * @return L'image précédente (à ne pas modifier), ou null s'il n'y en a pas.
+	 */
+	public BufferedImage getImagePrecedente() {
+		return indexImage > 0 ? historique.get(indexImage - 1).image : null;
+	}
+
+	/**
+	 * Obtient un jeton identifiant l'entrée courante : il change à chaque
+	 * entrée ajoutée ou remplacée, même si l'image est partagée.
+	 *
+	 * @return L'entrée courante, ou null si l'historique est vide.
+	 */
+	public Object getEntreeCourante() {
+		return indexImage >= 0 ? historique.get(indexImage) : null;
+	}
+
+	/**
+	 * Obtient l'action de l'entrée courante.
+	 *
+	 * @return L'action enregistrée, ou null si l'entrée n'est qu'une image.
+	 */
+	public Action getActionCourante() {
+		return indexImage >= 0 ? historique.get(indexImage).action : null;
+	}
+
 	public void clearJournaux() {
 		historique.clear();
 		indexImage = -1;
 	}
 
+	/**
+	 * Revient à l'entrée précédente.
+	 *
+	 * @return L'image à remettre comme couche active, ou null si rien à remettre
+	 *         (début de l'historique, ou action entièrement défaite).
+	 */
 	public BufferedImage retourEnArriere() {
 		if (indexImage > 0) {
+			Entree entree = historique.get(indexImage);
 			indexImage--;
-			return copierImage(historique.get(indexImage));
+			if (entree.action != null && entree.action.annuler()) return null;
+			return copierImage(historique.get(indexImage).image);
 		}
 		return null;
 	}
 
+	/**
+	 * Passe à l'entrée suivante.
+	 *
+	 * @return L'image à remettre comme couche active, ou null si rien à remettre
+	 *         (fin de l'historique, ou action entièrement refaite).
+	 */
 	public BufferedImage retourEnAvant() {
 		if (indexImage < historique.size() - 1) {
 			indexImage++;
-			return copierImage(historique.get(indexImage));
+			Entree entree = historique.get(indexImage);
+			if (entree.action != null && entree.action.refaire()) return null;
+			return copierImage(entree.image);
 		}
 		return null;
 	}
@@ -0,0 +1,144 @@
+/**
+ * Classe gardant les couches déjà mises à l'échelle du zoom affiché.
+ * Évite de redimensionner chaque couche à chaque rafraîchissement de la toile.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.image;
+
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.image.BufferedImage;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Cache des surfaces zoomées : pour chaque couche, son image redimensionnée
+ * aux dimensions affichées, dans le format de pixels de l'écran. Tant que le
+ * zoom ne change pas, afficher une couche (ou la faire défiler) n'est plus
+ * qu'une copie de pixels, sans rééchantillonnage ni conversion de format.
+ * <p>
+ * La surface est gardée par la couche elle-même, qui la met à jour sur la
+ * zone modifiée quand ses pixels changent (voir {@link CoucheImage#marquerModifiee}).
+ * Le cache ne fait que compter la mémoire occupée : au-delà du budget, les
+ * surfaces utilisées le moins récemment sont oubliées.
+ */
+final class CacheSurfaces {
+	/** Mémoire totale des surfaces : 256 Mo au plus, un huitième du tas au plus. */
+	private static final long BUDGET = Math.min(256L << 20, Runtime.getRuntime().maxMemory() / 8);
+
+	/** Les couches ayant une surface, de la moins récemment affichée à la plus récente. */
+	private final LinkedHashMap<CoucheImage, Long> surfaces = new LinkedHashMap<>(16, 0.75f, true);
+	private long octetsUtilises;
+
+	/**
+	 * Obtient la surface d'une couche aux dimensions affichées, en la créant si besoin.
+	 * Une surface plus grande que le quart du budget (fort zoom avant) n'est pas gardée.
+	 *
+	 * @param couche La couche à afficher.
+	 * @param largeur La largeur affichée.
+	 * @param hauteur La hauteur affichée.
+	 * @param configuration La configuration de l'écran, qui fixe le format des pixels.
+	 * @return La surface à copier telle quelle, ou null si elle dépasse le budget.
+	 */
+	BufferedImage surface(CoucheImage couche, int largeur, int hauteur, GraphicsConfiguration configuration) {
+		BufferedImage surface = couche.surfaceZoomee();
+		if (surface != null && surface.getWidth() == largeur && surface.getHeight() == hauteur) {
+			surfaces.get(couche);
+			return surface;
+		}
+		oublier(couche);
+		long octets = 4L * largeur * hauteur;
+		if (octets > BUDGET / 4) return null;
+
+		surface = configuration.createCompatibleImage(largeur, hauteur,
+				couche.estOpaque() ? Transparency.OPAQUE : Transparency.TRANSLUCENT);
+		dessiner(couche, surface, null);
+		couche.definirSurfaceZoomee(surface);
+		surfaces.put(couche, octets);
+		octetsUtilises += octets;
+
+		Iterator<Map.Entry<CoucheImage, Long>> anciennes = surfaces.entrySet().iterator();
+		while (octetsUtilises > BUDGET && anciennes.hasNext()) {
+			Map.Entry<CoucheImage, Long> entree = anciennes.next();
+			if (entree.getKey() == couche) break;
+			entree.getKey().definirSurfaceZoomee(null);
+			octetsUtilises -= entree.getValue();
+			anciennes.remove();
+		}
+		return surface;
+	}
+
+	/**
+	 * Oublie les surfaces des couches qui ne font plus partie de la pile.
+	 *
+	 * @param couches Les couches de la pile.
+	 */
+	void retenir(List<CoucheImage> couches) {
+		Iterator<Map.Entry<CoucheImage, Long>> entrees = surfaces.entrySet().iterator();
+		while (entrees.hasNext()) {
+			Map.Entry<CoucheImage, Long> entree = entrees.next();
+			if (!couches.contains(entree.getKey())) {
+				entree.getKey().definirSurfaceZoomee(null);
+				octetsUtilises -= entree.getValue();
+				entrees.remove();
+			}
+		}
+	}
+
+	/**
+	 * Redessine la partie d'une surface correspondant à une zone modifiée de
+	 * l'image de la couche. La pyramide de la couche doit déjà être à jour.
+	 *
+	 * @param couche La couche modifiée.
+	 * @param surface La surface de la couche.
+	 * @param zone La zone modifiée en pixels de l'image.
+	 */
+	static void actualiser(CoucheImage couche, BufferedImage surface, Rectangle zone) {
+		double echelleX = (double) surface.getWidth() / couche.image.getWidth();
+		double echelleY = (double) surface.getHeight() / couche.image.getHeight();
+		// Deux pixels de marge : le bilinéaire lit les voisins de la zone
+		int x0 = (int) Math.floor(zone.x * echelleX) - 2;
+		int y0 = (int) Math.floor(zone.y * echelleY) - 2;
+		int x1 = (int) Math.ceil((zone.x + zone.width) * echelleX) + 2;
+		int y1 = (int) Math.ceil((zone.y + zone.height) * echelleY) + 2;
+		dessiner(couche, surface, new Rectangle(x0, y0, x1 - x0, y1 - y0));
+	}
+
+	private void oublier(CoucheImage couche) {
+		Long octets = surfaces.remove(couche);
+		if (octets != null) octetsUtilises -= octets;
+		couche.definirSurfaceZoomee(null);
+	}
+
+	/**
+	 * Dessine l'image de la couche redimensionnée dans la surface, comme
+	 * l'affichage direct : depuis le niveau de pyramide adapté en zoom arrière,
+	 * en bilinéaire.
+	 *
+	 * @param couche La couche à dessiner.
+	 * @param surface La surface cible (remplacée, alpha compris).
+	 * @param zone La partie de la surface à redessiner, ou null pour toute la surface.
+	 */
+	private static void dessiner(CoucheImage couche, BufferedImage surface, Rectangle zone) {
+		int largeur = surface.getWidth();
+		int hauteur = surface.getHeight();
+		BufferedImage source = couche.image;
+		if (largeur < source.getWidth() && hauteur < source.getHeight()) {
+			source = couche.pyramide().niveauPour(largeur, hauteur);
+		}
+		Graphics2D g2d = surface.createGraphics();
+		if (zone != null) g2d.clip(zone);
+		g2d.setComposite(AlphaComposite.Src);
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2d.drawImage(source, 0, 0, largeur, hauteur, null);
+		g2d.dispose();
+	}
+}
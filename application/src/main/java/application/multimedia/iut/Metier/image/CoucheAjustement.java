@@ -0,0 +1,84 @@
+/**
+ * Classe représentant un calque de réglage (non destructif).
+ * Enregistre une chaîne d'ajustements au lieu de modifier les pixels.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.image;
+
+import application.multimedia.iut.Metier.traitement.ChaineAjustements;
+
+/**
+ * Calque de réglage de la {@link PileCouches} : ses ajustements (luminosité,
+ * contraste, teinte, niveaux) s'appliquent aux couches d'images au moment de
+ * la composition, sans toucher à leurs pixels. Les modifications passent par
+ * la pile, qui invalide alors les tuiles déjà calculées.
+ */
+public class CoucheAjustement {
+	private ChaineAjustements chaine;
+	private boolean visible = true;
+
+	/**
+	 * Crée un calque de réglage.
+	 *
+	 * @param chaine Les ajustements du calque (copiés).
+	 */
+	CoucheAjustement(ChaineAjustements chaine) {
+		definirChaine(chaine);
+	}
+
+	/**
+	 * Obtient une copie des ajustements du calque.
+	 *
+	 * @return La chaîne d'ajustements du calque.
+	 */
+	public ChaineAjustements chaine() {
+		return new ChaineAjustements().enchainer(chaine);
+	}
+
+	/**
+	 * Indique si le calque est pris en compte à la composition.
+	 *
+	 * @return true si le calque est visible.
+	 */
+	public boolean estVisible() {
+		return visible;
+	}
+
+	/**
+	 * Remplace les ajustements du calque (voir PileCouches.modifierAjustement).
+	 *
+	 * @param chaine Les nouveaux ajustements (copiés).
+	 */
+	void definirChaine(ChaineAjustements chaine) {
+		this.chaine = new ChaineAjustements().enchainer(chaine);
+	}
+
+	/**
+	 * Affiche ou masque le calque (voir PileCouches.definirVisibilite).
+	 *
+	 * @param visible true pour prendre le calque en compte.
+	 */
+	void definirVisible(boolean visible) {
+		this.visible = visible;
+	}
+
+	/**
+	 * Indique si le calque ne contient aucun ajustement.
+	 *
+	 * @return true si le calque est sans effet.
+	 */
+	boolean estVide() {
+		return chaine.estVide();
+	}
+
+	/**
+	 * Ajoute les ajustements du calque à la suite d'une chaîne.
+	 *
+	 * @param cible La chaîne complétée.
+	 */
+	void ajouterA(ChaineAjustements cible) {
+		cible.enchainer(chaine);
+	}
+}
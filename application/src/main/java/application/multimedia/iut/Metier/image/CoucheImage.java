@@ -10,14 +10,26 @@ package application.multimedia.iut.Metier.image;
 import java.awt.Rectangle;
 import java.awt.image.BufferedImage;
 
+import application.multimedia.iut.Metier.traitement.Pyramide;
+
 /**
  * Représente une couche d'image avec sa position dans le canevas.
  * Chaque couche contient une BufferedImage et des coordonnées x, y.
  */
 public class CoucheImage {
 	public final BufferedImage image;
+	/**
+	 * Le type de pixels de l'image : TYPE_INT_ARGB, ou TYPE_INT_RGB pour une
+	 * image importée sans alpha (voir NormalisationImage).
+	 */
+	public final int formatPixels;
 	public int x;
 	public int y;
+	private volatile BufferedImage apercu;
+	private TuilesAjustees tuilesAjustees;
+	private volatile Pyramide pyramide;
+	private BufferedImage surfaceZoomee;
+	private int version;
 
 	/**
 	 * Crée une nouvelle couche d'image.
@@ -29,10 +41,128 @@ public class CoucheImage {
 	 */
 	public CoucheImage(BufferedImage image, int x, int y) {
 		this.image = image;
+		this.formatPixels = image.getType();
 		this.x = x;
 		this.y = y;
 	}
 
+	/**
+	 * Indique si la couche est entièrement opaque par son format de pixels.
+	 *
+	 * @return true si l'image est en TYPE_INT_RGB.
+	 */
+	public boolean estOpaque() {
+		return formatPixels == BufferedImage.TYPE_INT_RGB;
+	}
+
+	/**
+	 * Définit une image d'aperçu affichée à la place de l'image de la couche.
+	 * L'aperçu peut être plus petit que l'image : il est étiré aux dimensions de la couche.
+	 *
+	 * @param apercu L'image d'aperçu, ou null pour revenir à l'image de la couche.
+	 */
+	public void definirApercu(BufferedImage apercu) {
+		this.apercu = apercu;
+	}
+
+	/**
+	 * Obtient l'image à afficher à l'écran : l'aperçu s'il existe, sinon l'image.
+	 * Les exports et compositions utilisent toujours {@link #image}.
+	 *
+	 * @return L'image à dessiner sur la toile.
+	 */
+	public BufferedImage imageAffichee() {
+		BufferedImage courant = apercu;
+		return courant != null ? courant : image;
+	}
+
+	/**
+	 * Obtient le cache des tuiles ajustées par les calques de réglage.
+	 * Le cache est créé au premier calque de réglage rendu sur cette couche.
+	 *
+	 * @return Le cache de tuiles de la couche.
+	 */
+	TuilesAjustees tuilesAjustees() {
+		if (tuilesAjustees == null) {
+			tuilesAjustees = new TuilesAjustees(image);
+		}
+		return tuilesAjustees;
+	}
+
+	/**
+	 * Obtient la pyramide de réductions de l'image, pour les zooms arrière et
+	 * les miniatures. Elle est gardée jusqu'à la prochaine modification des pixels.
+	 *
+	 * @return La pyramide de l'image de la couche.
+	 */
+	public Pyramide pyramide() {
+		Pyramide courante = pyramide;
+		if (courante == null) {
+			courante = new Pyramide(image);
+			pyramide = courante;
+		}
+		return courante;
+	}
+
+	/**
+	 * Obtient le numéro de version des pixels, incrémenté à chaque modification signalée.
+	 *
+	 * @return La version courante des pixels de la couche.
+	 */
+	public int version() {
+		return version;
+	}
+
+	/**
+	 * Obtient l'image de la couche mise à l'échelle du zoom affiché, gardée
+	 * par le cache de rendu.
+	 *
+	 * @return La surface zoomée, ou null si elle n'est pas en cache.
+	 */
+	BufferedImage surfaceZoomee() {
+		return surfaceZoomee;
+	}
+
+	/**
+	 * Remplace la surface zoomée de la couche.
+	 *
+	 * @param surface La nouvelle surface, ou null pour l'oublier.
+	 */
+	void definirSurfaceZoomee(BufferedImage surface) {
+		this.surfaceZoomee = surface;
+	}
+
+	/**
+	 * Signale que les pixels de la couche ont été modifiés.
+	 * Met à jour la pyramide et la surface zoomée sur la zone (ou les oublie si
+	 * toute l'image a changé) et périme les tuiles ajustées correspondantes.
+	 *
+	 * @param zone La zone modifiée en pixels de l'image, ou null pour toute l'image.
+	 */
+	public void marquerModifiee(Rectangle zone) {
+		version++;
+		Pyramide courante = pyramide;
+		if (zone == null) {
+			pyramide = null;
+		} else if (courante != null) {
+			courante.actualiser(zone);
+		}
+		BufferedImage surface = surfaceZoomee;
+		if (surface != null) {
+			if (zone == null) {
+				surfaceZoomee = null;
+			} else {
+				CacheSurfaces.actualiser(this, surface, zone);
+			}
+		}
+		if (tuilesAjustees == null) return;
+		if (zone == null) {
+			tuilesAjustees.invalider();
+		} else {
+			tuilesAjustees.invalider(zone);
+		}
+	}
+
 	/**
 	 * Calcule la largeur de l'image après application du zoom.
 	 *
@@ -63,4 +193,24 @@ public class CoucheImage {
 	public Rectangle enRectangle(double zoom) {
 		return new Rectangle(x, y, largeurRedimensionnee(zoom), hauteurRedimensionnee(zoom));
 	}
+
+	/**
+	 * Convertit une zone de l'image en zone de la toile, avec le zoom appliqué.
+	 * Une marge d'un pixel couvre l'interpolation de l'affichage.
+	 *
+	 * @param zone La zone en pixels de l'image, ou null pour toute la couche.
+	 * @param zoom Le facteur d'échelle actuel.
+	 * @return La zone de la toile où la zone de l'image est affichée.
+	 */
+	public Rectangle zoneAffichee(Rectangle zone, double zoom) {
+		Rectangle couche = enRectangle(zoom);
+		if (zone == null) return couche;
+		double echelleX = (double) couche.width / image.getWidth();
+		double echelleY = (double) couche.height / image.getHeight();
+		int x0 = x + (int) Math.floor(zone.x * echelleX) - 1;
+		int y0 = y + (int) Math.floor(zone.y * echelleY) - 1;
+		int x1 = x + (int) Math.ceil((zone.x + zone.width) * echelleX) + 1;
+		int y1 = y + (int) Math.ceil((zone.y + zone.height) * echelleY) + 1;
+		return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+	}
 }
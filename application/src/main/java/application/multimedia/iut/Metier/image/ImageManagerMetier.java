@@ -11,6 +11,8 @@ import java.util.List;
 import javax.imageio.ImageIO;
 
 import application.multimedia.iut.Metier.AjoutContenu;
+import application.multimedia.iut.Metier.traitement.NormalisationImage;
+import application.multimedia.iut.Metier.traitement.TraitementEnFlux;
 import application.multimedia.iut.Vue.utils.ImageDialogs.LoadChoice;
 
 /**
@@ -23,6 +25,9 @@ public class ImageManagerMetier {
 	private final SessionPlacement sessionPlacement;
 	private final RenduToile renduToile;
 	private boolean imageInitialeBlanchePresente = true;
+	/** Le fichier ouvert sous-échantillonné dont la pile montre un aperçu, ou null. */
+	private File fichierApercuReduit;
+	private Dimension tailleReelleApercu;
 
 	/**
 	 * Constructeur métier : reçoit les composants métier existants.
@@ -47,13 +52,15 @@ public class ImageManagerMetier {
 		pileCouches.vider();
 		pileCouches.ajouterCouche(imageVide, tailleToile, true);
 		imageInitialeBlanchePresente = true;
+		fichierApercuReduit = null;
 	}
 
 	/**
-	 * Définit l'image courante (remplace toutes les couches).
+	 * Définit l'image courante (remplace toutes les couches d'images).
+	 * Les calques de réglage sont conservés (annuler/refaire, rotations...).
 	 */
 	public void definirImageCourante(BufferedImage image, Dimension tailleToile) {
-		pileCouches.vider();
+		pileCouches.viderCouches();
 		sessionPlacement.annuler();
 		imageInitialeBlanchePresente = (image == null);
 		if (image != null) {
@@ -134,9 +141,9 @@ public class ImageManagerMetier {
 			pileCouches.ajouterCouche(placee);
 			double zoomActuel = pileCouches.niveauZoom();
 			pileCouches.reinitialiserZoom();
-			BufferedImage imageComposite = renduToile.construireComposite(pileCouches);
+			BufferedImage imageComposite = renduToile.construireComposite(pileCouches, false);
 			if (imageComposite != null) {
-				pileCouches.vider();
+				pileCouches.viderCouches();
 				// tailleToile inconnue ici : la couche sera ajoutée en tant que base ; caller
 				// peut re-ajuster si besoin
 				pileCouches.ajouterCouche(imageComposite,
@@ -168,6 +175,10 @@ public class ImageManagerMetier {
 	 * Lance IOException en cas d'erreur d'écriture.
 	 */
 	public void enregistrerFichier(File fichier) throws IOException {
+		if (contientApercuReduit()) {
+			throw new IOException("L'image " + fichierApercuReduit.getName()
+					+ " est un aperçu réduit : l'enregistrer écrirait la version réduite.");
+		}
 		try {
 			BufferedImage composite = renduToile.construireComposite(pileCouches);
 			ImageIO.write(composite, "png", fichier);
@@ -175,7 +186,19 @@ public class ImageManagerMetier {
 		}
 	}
 
-	public BufferedImage ouvrirFichier(File fichier, LoadChoice choix, Dimension tailleToile) throws IOException {
+	/**
+	 * Ouvre un fichier d'image dans la pile.
+	 *
+	 * @param fichier Le fichier à ouvrir.
+	 * @param choix Remplacer les images présentes ou superposer la nouvelle.
+	 * @param tailleToile Les dimensions de la toile.
+	 * @param apercuReduit true pour ouvrir un aperçu sous-échantillonné tenant dans la mémoire libre,
+	 *        false pour la pleine résolution (voir {@link #tientEnMemoire(File)}).
+	 * @return L'image ouverte, ou null si le fichier n'a pas pu être lu.
+	 * @throws IOException si la mémoire manque pour l'ouvrir en pleine résolution.
+	 */
+	public BufferedImage ouvrirFichier(File fichier, LoadChoice choix, Dimension tailleToile, boolean apercuReduit)
+			throws IOException {
 
 		// Si c'est la première image chargée (image blanche initiale encore présente)
 		// on remplace directement sans demander
@@ -185,11 +208,25 @@ public class ImageManagerMetier {
 			pileCouches.vider();
 			sessionPlacement.annuler();
 		}
+		if (pileCouches.estVide()) {
+			fichierApercuReduit = null;
+		}
 
 		BufferedImage img = null;
 		boolean placementDemande = possedeDejaImages && choix == LoadChoice.SUPERPOSE;
 		try {
-			img = ImageIO.read(fichier);
+			// Un aperçu est sous-échantillonné pour tenir dans la mémoire libre et marqué
+			// comme tel ; la pleine résolution reste accessible par TraitementEnFlux
+			img = TraitementEnFlux.lireDansLimite(fichier,
+					apercuReduit ? TraitementEnFlux.pixelsMaxEnMemoire() : Long.MAX_VALUE);
+			Dimension tailleReelle = tailleFichier(fichier);
+			if (img != null && tailleReelle != null
+					&& (img.getWidth() < tailleReelle.width || img.getHeight() < tailleReelle.height)) {
+				fichierApercuReduit = fichier;
+				tailleReelleApercu = tailleReelle;
+			}
+			// Conversion unique vers TYPE_INT_ARGB ou TYPE_INT_RGB : tous les traitements lisent ensuite les pixels directement
+			img = NormalisationImage.normaliser(img);
 			if (img != null) {
 				if (placementDemande) {
 					demarrerPlacement(img, tailleToile);
@@ -198,11 +235,70 @@ public class ImageManagerMetier {
 				}
 			}
 		} catch (IOException ex) {
+		} catch (OutOfMemoryError ex) {
+			throw new IOException("Mémoire insuffisante pour ouvrir " + fichier.getName()
+					+ " en pleine résolution : ouvrez-en un aperçu réduit.");
 		}
 
 		return img;
 	}
 
+	/**
+	 * Indique si un fichier peut être ouvert en pleine résolution : ses pixels
+	 * décodés, et les copies que garde l'ouverture, doivent tenir dans la
+	 * mémoire encore libre.
+	 *
+	 * @param fichier Le fichier d'image.
+	 * @return true si l'image tient en mémoire, ou si ses dimensions sont illisibles.
+	 */
+	public boolean tientEnMemoire(File fichier) {
+		Dimension taille = tailleFichier(fichier);
+		return taille == null || TraitementEnFlux.tientEnMemoire(taille.width, taille.height);
+	}
+
+	/**
+	 * Lit les dimensions d'un fichier dans son en-tête, sans le décoder.
+	 *
+	 * @param fichier Le fichier d'image.
+	 * @return Les dimensions, ou null si le lecteur par bandes ne reconnaît pas le format.
+	 */
+	public static Dimension tailleFichier(File fichier) {
+		try {
+			return TraitementEnFlux.dimensions(fichier);
+		} catch (IOException ex) {
+			return null;
+		}
+	}
+
+	/**
+	 * Indique si la pile contient un aperçu réduit d'une image trop grande pour
+	 * la mémoire. Un tel document ne peut pas être enregistré normalement : seul
+	 * le traitement par bandes du fichier d'origine garde sa pleine résolution.
+	 *
+	 * @return true si une image a été ouverte sous-échantillonnée.
+	 */
+	public boolean contientApercuReduit() {
+		return fichierApercuReduit != null && !pileCouches.estVide();
+	}
+
+	/**
+	 * Obtient le fichier d'origine de l'aperçu réduit.
+	 *
+	 * @return Le fichier, ou null si la pile ne contient pas d'aperçu réduit.
+	 */
+	public File fichierApercuReduit() {
+		return contientApercuReduit() ? fichierApercuReduit : null;
+	}
+
+	/**
+	 * Obtient les dimensions en pleine résolution de l'aperçu réduit.
+	 *
+	 * @return Les dimensions du fichier d'origine, ou null s'il n'y a pas d'aperçu réduit.
+	 */
+	public Dimension tailleReelleApercu() {
+		return contientApercuReduit() ? tailleReelleApercu : null;
+	}
+
 	public BufferedImage fusionHorizontale(BufferedImage imgGauche, BufferedImage imgDroite, int nbPixels) {
 		BufferedImage imageFusionnee = AjoutContenu.fusionHorizontale(imgGauche, imgDroite, nbPixels);
 		if (imageFusionnee != null) {
@@ -210,6 +306,7 @@ public class ImageManagerMetier {
 			pileCouches.ajouterCouche(imageFusionnee,
 					new Dimension(imageFusionnee.getWidth(), imageFusionnee.getHeight()), true);
 			imageInitialeBlanchePresente = false;
+			fichierApercuReduit = null;
 		}
 		return imageFusionnee;
 	}
@@ -221,6 +318,7 @@ public class ImageManagerMetier {
 			pileCouches.ajouterCouche(imageFusionnee,
 					new Dimension(imageFusionnee.getWidth(), imageFusionnee.getHeight()), true);
 			imageInitialeBlanchePresente = false;
+			fichierApercuReduit = null;
 		}
 		return imageFusionnee;
 	}
@@ -258,6 +356,7 @@ public class ImageManagerMetier {
 		pileCouches.vider();
 		sessionPlacement.annuler();
 		imageInitialeBlanchePresente = true;
+		fichierApercuReduit = null;
 	}
 
 	/**
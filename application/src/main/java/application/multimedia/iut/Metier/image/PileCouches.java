@@ -14,14 +14,25 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import application.multimedia.iut.Metier.traitement.ChaineAjustements;
+import application.multimedia.iut.Metier.traitement.ExecuteurTuiles;
+import application.multimedia.iut.Metier.traitement.TableCouleurs;
+import application.multimedia.iut.Metier.traitement.TamponPixels;
+
 /**
  * Pile de couches d'images pour la gestion multi-calques.
  * Permet d'empiler, zoomer et manipuler plusieurs images superposées.
+ * Les calques de réglage s'appliquent, dans l'ordre, à chaque couche d'image
+ * au moment de la composition ; leurs résultats sont gardés en cache par tuiles.
  */
 public class PileCouches {
 	private final List<CoucheImage> couches = new ArrayList<>();
+	private final List<CoucheAjustement> ajustements = new ArrayList<>();
 	private int indexActif = -1;
 	private double niveauZoom = 1.0;
+	private int versionAjustements = 0;
+	private int versionTable = -1;
+	private TableCouleurs tableAjustements;
 
 	/**
 	 * Obtient la liste des couches d'images.
@@ -105,15 +116,220 @@ public class PileCouches {
 	}
 
 	/**
-	 * Supprime toutes les couches de la pile.
+	 * Supprime toutes les couches de la pile, calques de réglage compris.
 	 * Réinitialise également l'index actif et le zoom.
 	 */
 	public void vider() {
+		viderCouches();
+		supprimerAjustements();
+	}
+
+	/**
+	 * Supprime les couches d'images en conservant les calques de réglage.
+	 * Réinitialise également l'index actif et le zoom.
+	 */
+	public void viderCouches() {
 		couches.clear();
 		indexActif = -1;
 		niveauZoom = 1.0;
 	}
 
+	/**
+	 * Obtient les calques de réglage, dans l'ordre d'application.
+	 *
+	 * @return La liste des calques de réglage en lecture seule.
+	 */
+	public List<CoucheAjustement> ajustements() {
+		return Collections.unmodifiableList(ajustements);
+	}
+
+	/**
+	 * Ajoute un calque de réglage au sommet de la pile.
+	 *
+	 * @param chaine Les ajustements du calque (copiés).
+	 * @return Le calque créé.
+	 */
+	public CoucheAjustement ajouterAjustement(ChaineAjustements chaine) {
+		CoucheAjustement couche = new CoucheAjustement(chaine);
+		ajustements.add(couche);
+		versionAjustements++;
+		return couche;
+	}
+
+	/**
+	 * Remplace les ajustements d'un calque de réglage.
+	 * Les tuiles déjà calculées sont périmées et recalculées à l'affichage.
+	 *
+	 * @param couche Le calque à modifier.
+	 * @param chaine Les nouveaux ajustements (copiés).
+	 */
+	public void modifierAjustement(CoucheAjustement couche, ChaineAjustements chaine) {
+		couche.definirChaine(chaine);
+		versionAjustements++;
+	}
+
+	/**
+	 * Affiche ou masque un calque de réglage.
+	 *
+	 * @param couche Le calque concerné.
+	 * @param visible true pour prendre le calque en compte.
+	 */
+	public void definirVisibilite(CoucheAjustement couche, boolean visible) {
+		if (couche.estVisible() == visible) return;
+		couche.definirVisible(visible);
+		versionAjustements++;
+	}
+
+	/**
+	 * Retire un calque de réglage de la pile.
+	 *
+	 * @param couche Le calque à retirer.
+	 */
+	public void supprimerAjustement(CoucheAjustement couche) {
+		if (ajustements.remove(couche)) {
+			versionAjustements++;
+		}
+	}
+
+	/**
+	 * Retire tous les calques de réglage.
+	 */
+	public void supprimerAjustements() {
+		if (!ajustements.isEmpty()) {
+			ajustements.clear();
+			versionAjustements++;
+		}
+	}
+
+	/**
+	 * Enregistre l'état des calques de réglage (pour l'historique).
+	 *
+	 * @return Les calques, leurs ajustements et leur visibilité à cet instant.
+	 */
+	public EtatAjustements etatAjustements() {
+		return new EtatAjustements(ajustements);
+	}
+
+	/**
+	 * Remet les calques de réglage dans un état enregistré. Les calques
+	 * retrouvent leurs ajustements et leur visibilité ; ce sont les mêmes
+	 * objets, les références gardées par la vue restent valides.
+	 *
+	 * @param etat L'état enregistré par {@link #etatAjustements()}.
+	 */
+	public void restaurerAjustements(EtatAjustements etat) {
+		ajustements.clear();
+		for (int i = 0; i < etat.calques.size(); i++) {
+			CoucheAjustement calque = etat.calques.get(i);
+			calque.definirChaine(etat.chaines.get(i));
+			calque.definirVisible(etat.visibles[i]);
+			ajustements.add(calque);
+		}
+		versionAjustements++;
+	}
+
+	/**
+	 * Obtient le numéro de version des calques de réglage, incrémenté à chaque modification.
+	 *
+	 * @return La version courante des calques de réglage.
+	 */
+	public int versionAjustements() {
+		return versionAjustements;
+	}
+
+	/**
+	 * Indique si au moins un calque de réglage visible modifie les couches.
+	 *
+	 * @return true si la composition doit passer par les tuiles ajustées.
+	 */
+	public boolean aDesAjustements() {
+		for (CoucheAjustement couche : ajustements) {
+			if (couche.estVisible() && !couche.estVide()) return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Construit la chaîne équivalente à tous les calques de réglage visibles.
+	 *
+	 * @return La concaténation des ajustements, dans l'ordre de la pile.
+	 */
+	public ChaineAjustements chaineAjustements() {
+		ChaineAjustements chaine = new ChaineAjustements();
+		for (CoucheAjustement couche : ajustements) {
+			if (couche.estVisible()) couche.ajouterA(chaine);
+		}
+		return chaine;
+	}
+
+	/**
+	 * Obtient l'image d'une couche vue à travers les calques de réglage.
+	 * Seules les tuiles de la zone demandée qui sont périmées sont recalculées.
+	 *
+	 * @param couche La couche d'image.
+	 * @param zone La zone nécessaire en pixels de l'image, ou null pour toute l'image.
+	 * @return L'image ajustée, ou l'image de la couche s'il n'y a aucun réglage.
+	 */
+	public BufferedImage imageAjustee(CoucheImage couche, Rectangle zone) {
+		if (!aDesAjustements()) return couche.image;
+		return couche.tuilesAjustees().preparer(tableAjustements(), versionTable, zone);
+	}
+
+	/**
+	 * Obtient le niveau de pyramide d'une couche adapté à une réduction, vu à
+	 * travers les calques de réglage. Le niveau est lu dans la pyramide de la
+	 * couche, tenue à jour à chaque modification, puis ajusté : les réglages
+	 * ne portent que sur les pixels du niveau et aucune pyramide n'est
+	 * construite sur l'image ajustée.
+	 *
+	 * @param couche La couche d'image.
+	 * @param largeur La largeur de la réduction voulue.
+	 * @param hauteur La hauteur de la réduction voulue.
+	 * @return Le niveau ajusté (image de la pyramide s'il n'y a aucun réglage,
+	 *         image ajustée de la couche si la réduction est inférieure à 2).
+	 */
+	public BufferedImage niveauAjuste(CoucheImage couche, int largeur, int hauteur) {
+		BufferedImage niveau = couche.pyramide().niveauPour(largeur, hauteur);
+		if (!aDesAjustements()) return niveau;
+		if (niveau == couche.image) return imageAjustee(couche, null);
+
+		TableCouleurs table = tableAjustements();
+		TamponPixels source = TamponPixels.ouvrir(niveau);
+		BufferedImage ajuste = new BufferedImage(source.largeur, source.hauteur, BufferedImage.TYPE_INT_ARGB);
+		TamponPixels cible = TamponPixels.ouvrir(ajuste);
+		ExecuteurTuiles.partage().parcourirLignes(source.largeur, source.hauteur, (yDebut, yFin) -> {
+			for (int y = yDebut; y < yFin; y++) {
+				int ligne = cible.indice(0, y);
+				source.copierArgb(source.indice(0, y), cible.pixels, ligne, source.largeur);
+				table.appliquer(cible.pixels, ligne, cible.pixels, ligne, source.largeur);
+			}
+		});
+		return ajuste;
+	}
+
+	/**
+	 * Obtient les tables des calques de réglage, recompilées s'ils ont changé.
+	 */
+	private TableCouleurs tableAjustements() {
+		if (versionTable != versionAjustements) {
+			tableAjustements = chaineAjustements().compiler();
+			versionTable = versionAjustements;
+		}
+		return tableAjustements;
+	}
+
+	/**
+	 * Signale que les pixels d'une image de la pile ont été modifiés.
+	 *
+	 * @param image L'image modifiée.
+	 * @param zone La zone modifiée en pixels de l'image, ou null pour toute l'image.
+	 */
+	public void marquerModifiee(BufferedImage image, Rectangle zone) {
+		for (CoucheImage couche : couches) {
+			if (couche.image == image) couche.marquerModifiee(zone);
+		}
+	}
+
 	/**
 	 * Obtient la couche actuellement sélectionnée.
 	 *
@@ -145,4 +361,37 @@ public class PileCouches {
 		if (base == null) return null;
 		return new Rectangle(base.x, base.y, base.largeurRedimensionnee(niveauZoom), base.hauteurRedimensionnee(niveauZoom));
 	}
+
+	/**
+	 * Calcule le rectangle englobant toutes les couches avec le zoom appliqué.
+	 *
+	 * @return L'union des zones occupées par les couches, ou null si la pile est vide.
+	 */
+	public Rectangle limitesCouches() {
+		Rectangle limites = null;
+		for (CoucheImage couche : couches) {
+			Rectangle zone = couche.enRectangle(niveauZoom);
+			limites = limites == null ? zone : limites.union(zone);
+		}
+		return limites;
+	}
+
+	/**
+	 * État figé des calques de réglage : les calques dans l'ordre, avec une
+	 * copie de leurs ajustements et leur visibilité.
+	 */
+	public static final class EtatAjustements {
+		private final List<CoucheAjustement> calques;
+		private final List<ChaineAjustements> chaines = new ArrayList<>();
+		private final boolean[] visibles;
+
+		private EtatAjustements(List<CoucheAjustement> ajustements) {
+			calques = new ArrayList<>(ajustements);
+			visibles = new boolean[calques.size()];
+			for (int i = 0; i < calques.size(); i++) {
+				chaines.add(calques.get(i).chaine());
+				visibles[i] = calques.get(i).estVisible();
+			}
+		}
+	}
 }
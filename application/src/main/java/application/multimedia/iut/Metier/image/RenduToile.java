@@ -14,18 +14,36 @@ import java.awt.Graphics;
 import java.awt.Graphics2D;
 import java.awt.RenderingHints;
 import java.awt.Shape;
+import java.awt.Transparency;
 import java.awt.Rectangle;
+import java.awt.geom.AffineTransform;
 import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 
+import application.multimedia.iut.Metier.traitement.CompositionCouches;
+import application.multimedia.iut.Metier.traitement.TamponPixels;
+
 /**
  * Moteur de rendu pour composer les couches d'images.
- * Effectue la fusion pixel par pixel avec gestion du clipping et de l'alpha.
+ * Effectue la fusion ligne par ligne avec gestion du clipping et de l'alpha.
  */
 public class RenduToile {
+	/** Au-delà de 16 millions de pixels (64 Mo), un composite figé n'est pas gardé. */
+	private static final long PIXELS_MAX_COMPOSITE = 16L << 20;
+
+	private final CacheSurfaces cacheSurfaces = new CacheSurfaces();
+	private final CompositeFige compositeDessous = new CompositeFige();
+	private final CompositeFige compositeDessus = new CompositeFige();
+
 	/**
 	 * Peint la pile de couches sur le contexte graphique.
 	 * Gère le rendu des couches, le clipping et la prévisualisation de placement.
+	 * Seules les couches qui touchent la zone de clipping sont dessinées ; hors
+	 * zoom 100 %, les couches sont copiées depuis leur surface zoomée en cache.
+	 * Les couches sous la couche active, et celles au-dessus, sont copiées
+	 * depuis leur composite figé : modifier la couche active ne redessine qu'elle.
 	 *
 	 * @param g Le contexte graphique où dessiner.
 	 * @param pile La pile de couches à rendre.
@@ -39,19 +57,15 @@ public class RenduToile {
 		Rectangle base = pile.limitesBase();
 		List<CoucheImage> couches = pile.couches();
 		double zoom = pile.niveauZoom();
+		cacheSurfaces.retenir(couches);
 
-		for (int i = 0; i < couches.size(); i++) {
-			CoucheImage couche = couches.get(i);
-			int largeur = couche.largeurRedimensionnee(zoom);
-			int hauteur = couche.hauteurRedimensionnee(zoom);
-			if (i > 0 && base != null) {
-				Shape clipAncien = g2d.getClip();
-				g2d.setClip(base);
-				g2d.drawImage(couche.image, couche.x, couche.y, largeur, hauteur, null);
-				g2d.setClip(clipAncien);
-			} else {
-				g2d.drawImage(couche.image, couche.x, couche.y, largeur, hauteur, null);
-			}
+		int actif = couches.indexOf(pile.coucheActive());
+		if (actif < 0) {
+			dessinerCouches(g2d, pile, 0, couches.size());
+		} else {
+			compositeDessous.dessiner(g2d, pile, 0, actif);
+			dessinerCouches(g2d, pile, actif, actif + 1);
+			compositeDessus.dessiner(g2d, pile, actif + 1, couches.size());
 		}
 
 		if (placement != null && placement.estActive()) {
@@ -59,7 +73,7 @@ public class RenduToile {
 			int largeur = enAttente.largeurRedimensionnee(zoom);
 			int hauteur = enAttente.hauteurRedimensionnee(zoom);
 			Shape clipAncien = g2d.getClip();
-			if (base != null) g2d.setClip(base);
+			if (base != null) g2d.clip(base);
 			Composite compAncien = g2d.getComposite();
 			g2d.drawImage(enAttente.image, enAttente.x, enAttente.y, largeur, hauteur, null);
 			g2d.setComposite(compAncien);
@@ -70,14 +84,240 @@ public class RenduToile {
 		}
 	}
 
+	/**
+	 * Dessine une suite de couches de la pile.
+	 * Les couches au-dessus de la base sont limitées à la base.
+	 *
+	 * @param g2d Le contexte graphique (sa zone de clipping limite les couches parcourues).
+	 * @param pile La pile de couches.
+	 * @param debut L'indice de la première couche dessinée.
+	 * @param fin L'indice suivant la dernière couche dessinée.
+	 */
+	private void dessinerCouches(Graphics2D g2d, PileCouches pile, int debut, int fin) {
+		Rectangle base = pile.limitesBase();
+		List<CoucheImage> couches = pile.couches();
+		double zoom = pile.niveauZoom();
+		boolean ajustee = pile.aDesAjustements();
+		Rectangle clip = g2d.getClipBounds();
+
+		for (int i = debut; i < fin; i++) {
+			CoucheImage couche = couches.get(i);
+			int largeur = couche.largeurRedimensionnee(zoom);
+			int hauteur = couche.hauteurRedimensionnee(zoom);
+			// Repeint partiel : une couche hors de la zone à repeindre n'est pas parcourue
+			if (clip != null && !clip.intersects(couche.x, couche.y, largeur, hauteur)) continue;
+			BufferedImage affichee = couche.imageAffichee();
+			if (ajustee && affichee == couche.image) {
+				affichee = pile.imageAjustee(couche, zoneVisible(g2d, couche, largeur, hauteur));
+			} else if (affichee == couche.image && (largeur != affichee.getWidth() || hauteur != affichee.getHeight())) {
+				// Hors 100 % : la couche déjà redimensionnée est gardée, l'affichage n'est qu'une copie
+				BufferedImage surface = cacheSurfaces.surface(couche, largeur, hauteur, g2d.getDeviceConfiguration());
+				if (surface != null) {
+					affichee = surface;
+				} else if (largeur < affichee.getWidth() && hauteur < affichee.getHeight()) {
+					// Zoom arrière : le bilinéaire de Java2D ne lit que 4 pixels, on part du niveau de pyramide le plus proche
+					affichee = couche.pyramide().niveauPour(largeur, hauteur);
+				}
+			}
+			if (i > 0 && base != null) {
+				Shape clipAncien = g2d.getClip();
+				g2d.clip(base);
+				dessinerPartieVisible(g2d, affichee, couche.x, couche.y, largeur, hauteur);
+				g2d.setClip(clipAncien);
+			} else {
+				dessinerPartieVisible(g2d, affichee, couche.x, couche.y, largeur, hauteur);
+			}
+		}
+	}
+
+	/**
+	 * Composite figé d'une suite de couches qui ne changent pas pendant
+	 * l'édition de la couche active. Il est gardé en coordonnées de la toile,
+	 * avec une clé décrivant tout ce dont il dépend : identité, ordre, position,
+	 * version des pixels et image affichée de chaque couche, zoom, base et
+	 * calques de réglage. Si la clé change (couche modifiée, déplacée,
+	 * réordonnée...), il est recomposé au prochain rendu.
+	 */
+	private final class CompositeFige {
+		private Object[] cle;
+		private BufferedImage image;
+		private int x;
+		private int y;
+
+		/**
+		 * Dessine les couches [debut, fin[ depuis le composite, en le recomposant si besoin.
+		 * Une seule couche, ou un composite plus grand que {@link #PIXELS_MAX_COMPOSITE},
+		 * est dessinée directement.
+		 */
+		void dessiner(Graphics2D g2d, PileCouches pile, int debut, int fin) {
+			if (fin - debut < 2) {
+				oublier();
+				dessinerCouches(g2d, pile, debut, fin);
+				return;
+			}
+			Object[] nouvelleCle = cle(pile, debut, fin);
+			if (!Arrays.equals(cle, nouvelleCle)) {
+				oublier();
+				Rectangle limites = limites(pile, debut, fin);
+				if ((long) limites.width * limites.height > PIXELS_MAX_COMPOSITE) {
+					dessinerCouches(g2d, pile, debut, fin);
+					return;
+				}
+				if (!limites.isEmpty()) {
+					image = g2d.getDeviceConfiguration().createCompatibleImage(limites.width, limites.height,
+							Transparency.TRANSLUCENT);
+					x = limites.x;
+					y = limites.y;
+					Graphics2D g = image.createGraphics();
+					g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+					g.translate(-x, -y);
+					dessinerCouches(g, pile, debut, fin);
+					g.dispose();
+				}
+				cle = nouvelleCle;
+			}
+			if (image != null) g2d.drawImage(image, x, y, null);
+		}
+
+		private void oublier() {
+			cle = null;
+			image = null;
+		}
+
+		private Object[] cle(PileCouches pile, int debut, int fin) {
+			double zoom = pile.niveauZoom();
+			Object[] cle = new Object[4 + 5 * (fin - debut)];
+			cle[0] = zoom;
+			cle[1] = pile.limitesBase();
+			cle[2] = pile.aDesAjustements() ? pile.versionAjustements() : -1;
+			cle[3] = debut == 0;
+			int k = 4;
+			for (int i = debut; i < fin; i++) {
+				CoucheImage couche = pile.couches().get(i);
+				cle[k++] = couche;
+				cle[k++] = couche.imageAffichee();
+				cle[k++] = couche.version();
+				cle[k++] = couche.x;
+				cle[k++] = couche.y;
+			}
+			return cle;
+		}
+
+		/**
+		 * Calcule la zone de la toile couverte par les couches, limitée à la base
+		 * pour les couches qui y sont limitées.
+		 */
+		private Rectangle limites(PileCouches pile, int debut, int fin) {
+			Rectangle base = pile.limitesBase();
+			Rectangle limites = new Rectangle();
+			for (int i = debut; i < fin; i++) {
+				Rectangle zone = pile.couches().get(i).enRectangle(pile.niveauZoom());
+				if (i > 0 && base != null) zone = zone.intersection(base);
+				if (!zone.isEmpty()) limites = limites.isEmpty() ? zone : limites.union(zone);
+			}
+			return limites;
+		}
+	}
+
+	/**
+	 * Calcule la partie d'une couche visible dans la zone de dessin, en pixels de l'image.
+	 * Une marge d'un pixel couvre l'interpolation bilinéaire.
+	 *
+	 * @param g2d Le contexte graphique (sa zone de clipping est utilisée).
+	 * @param couche La couche dessinée.
+	 * @param largeur La largeur affichée de la couche.
+	 * @param hauteur La hauteur affichée de la couche.
+	 * @return La zone visible de l'image, ou null si tout peut être visible.
+	 */
+	private Rectangle zoneVisible(Graphics2D g2d, CoucheImage couche, int largeur, int hauteur) {
+		return partieVisible(g2d.getClipBounds(), couche.x, couche.y, largeur, hauteur,
+				couche.image.getWidth(), couche.image.getHeight(), 1);
+	}
+
+	/**
+	 * Calcule la partie d'une image affichée dans un rectangle qui tombe dans
+	 * la zone de dessin, en pixels de l'image.
+	 *
+	 * @param clip La zone de dessin, ou null.
+	 * @param x L'abscisse affichée de l'image.
+	 * @param y L'ordonnée affichée de l'image.
+	 * @param largeur La largeur affichée de l'image.
+	 * @param hauteur La hauteur affichée de l'image.
+	 * @param largeurImage La largeur de l'image en pixels.
+	 * @param hauteurImage La hauteur de l'image en pixels.
+	 * @param marge Les pixels ajoutés autour pour l'interpolation.
+	 * @return La partie visible de l'image (non bornée à l'image), ou null si tout peut être visible.
+	 */
+	private static Rectangle partieVisible(Rectangle clip, int x, int y, int largeur, int hauteur,
+			int largeurImage, int hauteurImage, int marge) {
+		if (clip == null || largeur <= 0 || hauteur <= 0) return null;
+		Rectangle visible = clip.intersection(new Rectangle(x, y, largeur, hauteur));
+		if (visible.isEmpty()) return visible;
+		double echelleX = (double) largeurImage / largeur;
+		double echelleY = (double) hauteurImage / hauteur;
+		int x0 = (int) Math.floor((visible.x - x) * echelleX) - marge;
+		int y0 = (int) Math.floor((visible.y - y) * echelleY) - marge;
+		int x1 = (int) Math.ceil((visible.x + visible.width - x) * echelleX) + marge;
+		int y1 = (int) Math.ceil((visible.y + visible.height - y) * echelleY) + marge;
+		return new Rectangle(x0, y0, x1 - x0, y1 - y0);
+	}
+
+	/**
+	 * Dessine une image redimensionnée en ne lisant que la partie qui tombe
+	 * dans la zone de dessin (la partie du viewport à repeindre) : à fort zoom
+	 * sur une grande image, seules quelques centaines de pixels source sont parcourues.
+	 * La sous-image partage les pixels de l'image et garde exactement le même
+	 * placement ; deux pixels de marge couvrent l'interpolation bilinéaire.
+	 *
+	 * @param g2d Le contexte graphique.
+	 * @param image L'image à dessiner.
+	 * @param x L'abscisse affichée.
+	 * @param y L'ordonnée affichée.
+	 * @param largeur La largeur affichée.
+	 * @param hauteur La hauteur affichée.
+	 */
+	private static void dessinerPartieVisible(Graphics2D g2d, BufferedImage image, int x, int y,
+			int largeur, int hauteur) {
+		int largeurImage = image.getWidth();
+		int hauteurImage = image.getHeight();
+		Rectangle partie = partieVisible(g2d.getClipBounds(), x, y, largeur, hauteur, largeurImage, hauteurImage, 2);
+		if (partie != null) partie = partie.intersection(new Rectangle(0, 0, largeurImage, hauteurImage));
+		if (partie == null || (partie.width == largeurImage && partie.height == hauteurImage)) {
+			g2d.drawImage(image, x, y, largeur, hauteur, null);
+			return;
+		}
+		if (partie.isEmpty()) return;
+		double echelleX = (double) largeur / largeurImage;
+		double echelleY = (double) hauteur / hauteurImage;
+		AffineTransform placement = new AffineTransform(echelleX, 0, 0, echelleY,
+				x + partie.x * echelleX, y + partie.y * echelleY);
+		g2d.drawImage(image.getSubimage(partie.x, partie.y, partie.width, partie.height), placement, null);
+	}
+
 	/**
 	 * Construit une image composite à partir de la pile de couches.
 	 * Fusionne toutes les couches en une seule image avec gestion du clipping.
+	 * Les calques de réglage sont appliqués à chaque couche.
 	 *
 	 * @param pile La pile de couches à composer.
 	 * @return L'image résultante de la composition, ou null si pile vide.
 	 */
 	public BufferedImage construireComposite(PileCouches pile) {
+		return construireComposite(pile, true);
+	}
+
+	/**
+	 * Construit une image composite à partir de la pile de couches.
+	 * Fusionne toutes les couches en une seule image avec gestion du clipping.
+	 * Chaque couche est redimensionnée et superposée (SRC_OVER en alpha
+	 * prémultiplié sur 16 bits) en une seule passe par {@link CompositionCouches}.
+	 *
+	 * @param pile La pile de couches à composer.
+	 * @param avecAjustements true pour appliquer les calques de réglage, false
+	 *        pour fusionner les pixels d'origine (les réglages restent dans la pile).
+	 * @return L'image résultante de la composition, ou null si pile vide.
+	 */
+	public BufferedImage construireComposite(PileCouches pile, boolean avecAjustements) {
 		if (pile.estVide()) return null;
 		Rectangle base = pile.limitesBase();
 		int minX;
@@ -106,157 +346,32 @@ public class RenduToile {
 			hauteurImg = Math.max(1, maxY - minY);
 		}
 		BufferedImage composite = new BufferedImage(largeurImg, hauteurImg, BufferedImage.TYPE_INT_ARGB);
-		
+		TamponPixels tampon = TamponPixels.ouvrir(composite);
+		Rectangle clipBase = base != null ? new Rectangle(0, 0, base.width, base.height) : null;
+
 		List<CoucheImage> couches = pile.couches();
 		double zoom = pile.niveauZoom();
-		
+
+		List<CompositionCouches.Couche> aComposer = new ArrayList<>();
 		for (int i = 0; i < couches.size(); i++) {
 			CoucheImage couche = couches.get(i);
 			int largeur = couche.largeurRedimensionnee(zoom);
 			int hauteur = couche.hauteurRedimensionnee(zoom);
-			int posX = couche.x - minX;
-			int posY = couche.y - minY;
-			
-			BufferedImage imageRedim = redimensionnerImage(couche.image, largeur, hauteur);
-			
-			if (i > 0 && base != null) {
-				superposerAvecClip(composite, imageRedim, posX, posY, base.width, base.height);
+			// Une réduction lit le niveau de pyramide adapté de la couche puis interpole ;
+			// un agrandissement reste au plus proche voisin
+			boolean reduction = largeur < couche.image.getWidth() && hauteur < couche.image.getHeight();
+			BufferedImage imageCouche;
+			if (reduction) {
+				imageCouche = avecAjustements ? pile.niveauAjuste(couche, largeur, hauteur)
+						: couche.pyramide().niveauPour(largeur, hauteur);
 			} else {
-				superposerImage(composite, imageRedim, posX, posY);
+				imageCouche = avecAjustements ? pile.imageAjustee(couche, null) : couche.image;
 			}
+			aComposer.add(new CompositionCouches.Couche(TamponPixels.ouvrir(imageCouche), couche.x - minX,
+					couche.y - minY, largeur, hauteur, i > 0 ? clipBase : null, reduction));
 		}
-		
+		CompositionCouches.composer(tampon, aComposer);
+		tampon.valider();
 		return composite;
 	}
-	
-	/**
-	 * Redimensionne une image en utilisant un échantillonnage pixel par pixel.
-	 * Retourne l'image source si les dimensions sont identiques.
-	 *
-	 * @param source L'image à redimensionner.
-	 * @param largeur La largeur cible en pixels.
-	 * @param hauteur La hauteur cible en pixels.
-	 * @return L'image redimensionnée.
-	 */
-	private BufferedImage redimensionnerImage(BufferedImage source, int largeur, int hauteur) {
-		if (source.getWidth() == largeur && source.getHeight() == hauteur) {
-			return source;
-		}
-		
-		BufferedImage resultat = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_ARGB);
-		double ratioX = (double) source.getWidth() / largeur;
-		double ratioY = (double) source.getHeight() / hauteur;
-		
-		for (int y = 0; y < hauteur; y++) {
-			for (int x = 0; x < largeur; x++) {
-				int srcX = Math.min((int) (x * ratioX), source.getWidth() - 1);
-				int srcY = Math.min((int) (y * ratioY), source.getHeight() - 1);
-				resultat.setRGB(x, y, source.getRGB(srcX, srcY));
-			}
-		}
-		
-		return resultat;
-	}
-	
-	/**
-	 * Superpose une image source sur une image destination.
-	 * Gère la transparence alpha et le mélange de couleurs pixel par pixel.
-	 *
-	 * @param dest L'image de destination (modifiée).
-	 * @param source L'image source à superposer.
-	 * @param posX La position horizontale de départ.
-	 * @param posY La position verticale de départ.
-	 */
-	private void superposerImage(BufferedImage dest, BufferedImage source, int posX, int posY) {
-		int largeurDest = dest.getWidth();
-		int hauteurDest = dest.getHeight();
-		int largeurSource = source.getWidth();
-		int hauteurSource = source.getHeight();
-		
-		for (int y = 0; y < hauteurSource; y++) {
-			for (int x = 0; x < largeurSource; x++) {
-				int destX = posX + x;
-				int destY = posY + y;
-				
-				if (destX >= 0 && destX < largeurDest && destY >= 0 && destY < hauteurDest) {
-					int coulSource = source.getRGB(x, y);
-					int alphaSource = (coulSource >> 24) & 0xFF;
-					
-					if (alphaSource == 255) {
-						dest.setRGB(destX, destY, coulSource);
-					} else if (alphaSource > 0) {
-						int coulDest = dest.getRGB(destX, destY);
-						int nouvelleCoul = melangerCouleurs(coulDest, coulSource, alphaSource);
-						dest.setRGB(destX, destY, nouvelleCoul);
-					}
-				}
-			}
-		}
-	}
-	
-	/**
-	 * Superpose une image avec clipping dans une zone rectangulaire.
-	 * Limite le rendu à la zone de clipping spécifiée.
-	 *
-	 * @param dest L'image de destination (modifiée).
-	 * @param source L'image source à superposer.
-	 * @param posX La position horizontale de départ.
-	 * @param posY La position verticale de départ.
-	 * @param clipW La largeur de la zone de clipping.
-	 * @param clipH La hauteur de la zone de clipping.
-	 */
-	private void superposerAvecClip(BufferedImage dest, BufferedImage source, int posX, int posY, int clipW, int clipH) {
-		int largeurSource = source.getWidth();
-		int hauteurSource = source.getHeight();
-		
-		for (int y = 0; y < hauteurSource; y++) {
-			for (int x = 0; x < largeurSource; x++) {
-				int destX = posX + x;
-				int destY = posY + y;
-				
-				if (destX >= 0 && destX < clipW && destY >= 0 && destY < clipH) {
-					int coulSource = source.getRGB(x, y);
-					int alphaSource = (coulSource >> 24) & 0xFF;
-					
-					if (alphaSource == 255) {
-						dest.setRGB(destX, destY, coulSource);
-					} else if (alphaSource > 0) {
-						int coulDest = dest.getRGB(destX, destY);
-						int nouvelleCoul = melangerCouleurs(coulDest, coulSource, alphaSource);
-						dest.setRGB(destX, destY, nouvelleCoul);
-					}
-				}
-			}
-		}
-	}
-	
-	/**
-	 * Mélange deux couleurs en utilisant l'alpha blending.
-	 * Applique la formule de composition alpha standard.
-	 *
-	 * @param coulDest La couleur de destination (ARGB).
-	 * @param coulSource La couleur source (ARGB).
-	 * @param alphaSource Le niveau d'opacité de la source (0-255).
-	 * @return La couleur résultante après mélange (ARGB).
-	 */
-	private int melangerCouleurs(int coulDest, int coulSource, int alphaSource) {
-		int alphaDest = (coulDest >> 24) & 0xFF;
-		int rougeDest = (coulDest >> 16) & 0xFF;
-		int vertDest = (coulDest >> 8) & 0xFF;
-		int bleuDest = coulDest & 0xFF;
-		
-		int rougeSource = (coulSource >> 16) & 0xFF;
-		int vertSource = (coulSource >> 8) & 0xFF;
-		int bleuSource = coulSource & 0xFF;
-		
-		float ratioSource = alphaSource / 255f;
-		float ratioDest = 1f - ratioSource;
-		
-		int rouge = (int) (rougeSource * ratioSource + rougeDest * ratioDest);
-		int vert = (int) (vertSource * ratioSource + vertDest * ratioDest);
-		int bleu = (int) (bleuSource * ratioSource + bleuDest * ratioDest);
-		int alpha = Math.max(alphaDest, alphaSource);
-		
-		return (alpha << 24) | (rouge << 16) | (vert << 8) | bleu;
-	}
 }
@@ -0,0 +1,136 @@
+/**
+ * Classe gardant en cache le résultat des calques de réglage sur une couche.
+ * Le résultat est découpé en tuiles calculées à la demande.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.image;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.WritableRaster;
+import java.util.Arrays;
+
+import application.multimedia.iut.Metier.traitement.ExecuteurTuiles;
+import application.multimedia.iut.Metier.traitement.TableCouleurs;
+import application.multimedia.iut.Metier.traitement.TamponPixels;
+
+/**
+ * Image ajustée d'une couche, évaluée paresseusement par tuiles de
+ * {@value #COTE} pixels. Chaque tuile retient la version des réglages avec
+ * laquelle elle a été calculée : seules les tuiles demandées (zone visible)
+ * et périmées sont recalculées. Une modification des pixels de la couche
+ * périme les tuiles concernées.
+ */
+final class TuilesAjustees {
+	/** Côté d'une tuile en pixels. */
+	static final int COTE = 256;
+
+	private static final int PERIMEE = -1;
+
+	private final BufferedImage source;
+	private final BufferedImage resultat;
+	private final int largeur;
+	private final int hauteur;
+	private final int colonnes;
+	private final int[] versions;
+
+	/**
+	 * Crée le cache de tuiles d'une image, toutes périmées.
+	 *
+	 * @param source L'image de la couche (non modifiée).
+	 */
+	TuilesAjustees(BufferedImage source) {
+		this.source = source;
+		this.largeur = source.getWidth();
+		this.hauteur = source.getHeight();
+		this.resultat = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_ARGB);
+		this.colonnes = (largeur + COTE - 1) / COTE;
+		int lignes = (hauteur + COTE - 1) / COTE;
+		this.versions = new int[colonnes * lignes];
+		Arrays.fill(versions, PERIMEE);
+	}
+
+	/**
+	 * Périme toutes les tuiles.
+	 */
+	void invalider() {
+		Arrays.fill(versions, PERIMEE);
+	}
+
+	/**
+	 * Périme les tuiles touchant une zone de l'image.
+	 *
+	 * @param zone La zone modifiée, en pixels de l'image.
+	 */
+	void invalider(Rectangle zone) {
+		Rectangle z = zone.intersection(new Rectangle(0, 0, largeur, hauteur));
+		if (z.isEmpty()) return;
+		for (int ty = z.y / COTE; ty <= (z.y + z.height - 1) / COTE; ty++) {
+			for (int tx = z.x / COTE; tx <= (z.x + z.width - 1) / COTE; tx++) {
+				versions[ty * colonnes + tx] = PERIMEE;
+			}
+		}
+	}
+
+	/**
+	 * Calcule les tuiles périmées d'une zone puis renvoie l'image ajustée.
+	 * Hors de la zone, l'image peut contenir des tuiles périmées.
+	 *
+	 * @param table Les tables compilées des calques de réglage.
+	 * @param version La version des réglages correspondant à la table.
+	 * @param zone La zone à rendre à jour, en pixels de l'image (null pour tout).
+	 * @return L'image ajustée, à jour au moins sur la zone.
+	 */
+	BufferedImage preparer(TableCouleurs table, int version, Rectangle zone) {
+		Rectangle z = new Rectangle(0, 0, largeur, hauteur);
+		if (zone != null) z = z.intersection(zone);
+		if (z.isEmpty()) return resultat;
+
+		int[] aCalculer = new int[versions.length];
+		int nombre = 0;
+		for (int ty = z.y / COTE; ty <= (z.y + z.height - 1) / COTE; ty++) {
+			for (int tx = z.x / COTE; tx <= (z.x + z.width - 1) / COTE; tx++) {
+				int t = ty * colonnes + tx;
+				if (versions[t] != version) aCalculer[nombre++] = t;
+			}
+		}
+		if (nombre == 0) return resultat;
+
+		TamponPixels pixelsSource = source.getType() == BufferedImage.TYPE_INT_ARGB ? TamponPixels.ouvrir(source) : null;
+		WritableRaster raster = resultat.getRaster();
+		// Une « ligne » par tuile : chaque tuile dépasse le grain, elles sont donc réparties une par tâche
+		ExecuteurTuiles.partage().parcourirLignes(COTE * COTE, nombre, (debut, fin) -> {
+			for (int k = debut; k < fin; k++) {
+				calculerTuile(aCalculer[k], table, pixelsSource, raster);
+			}
+		});
+		for (int k = 0; k < nombre; k++) {
+			versions[aCalculer[k]] = version;
+		}
+		return resultat;
+	}
+
+	/**
+	 * Calcule une tuile : lit les pixels source, applique les tables, écrit le résultat.
+	 * L'écriture passe par le raster pour que l'image reste accélérable à l'affichage.
+	 */
+	private void calculerTuile(int t, TableCouleurs table, TamponPixels pixelsSource, WritableRaster raster) {
+		int x0 = (t % colonnes) * COTE;
+		int y0 = (t / colonnes) * COTE;
+		int l = Math.min(COTE, largeur - x0);
+		int h = Math.min(COTE, hauteur - y0);
+		int[] tampon = new int[l * h];
+
+		if (pixelsSource != null) {
+			for (int y = 0; y < h; y++) {
+				System.arraycopy(pixelsSource.pixels, pixelsSource.indice(x0, y0 + y), tampon, y * l, l);
+			}
+		} else {
+			source.getRGB(x0, y0, l, h, tampon, 0, l);
+		}
+		table.appliquer(tampon, 0, tampon, 0, tampon.length);
+		raster.setDataElements(x0, y0, l, h, tampon);
+	}
+}
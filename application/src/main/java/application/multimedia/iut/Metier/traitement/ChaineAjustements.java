@@ -0,0 +1,231 @@
+/**
+ * Classe décrivant une suite d'ajustements de couleur à appliquer en une passe.
+ * Les ajustements sont compilés en tables de correspondance par composante.
+ * 
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Chaîne d'ajustements ponctuels (luminosité, contraste, teinte, niveaux).
+ * Chaque étape est enregistrée avec ses paramètres, puis la chaîne entière est
+ * compilée en une {@link TableCouleurs} : une chaîne de N étapes ne coûte qu'un
+ * seul parcours de l'image. Le résultat est identique, au bit près, à
+ * l'application successive des méthodes de Colorisation.
+ */
+public final class ChaineAjustements {
+	/** Valeur pivot du contraste par défaut (identique à Colorisation.VALEUR_MOYENNE). */
+	public static final int PIVOT_DEFAUT = 127;
+
+	/**
+	 * Types d'ajustements pouvant être enchaînés.
+	 */
+	public enum TypeAjustement {
+		LUMINOSITE,
+		CONTRASTE,
+		TEINTE,
+		NIVEAUX
+	}
+
+	/**
+	 * Une étape de la chaîne : un type d'ajustement et ses paramètres.
+	 */
+	public static final class Etape {
+		public final TypeAjustement type;
+		private final int[] parametres;
+
+		Etape(TypeAjustement type, int... parametres) {
+			this.type = type;
+			this.parametres = parametres;
+		}
+
+		/**
+		 * Obtient un paramètre de l'étape.
+		 * LUMINOSITE : (décalage) ; CONTRASTE : (niveau, pivot) ; TEINTE : (rouge, vert, bleu, intensité) ;
+		 * NIVEAUX : (rouge bas, rouge haut, vert bas, vert haut, bleu bas, bleu haut).
+		 *
+		 * @param indice La position du paramètre.
+		 * @return La valeur du paramètre.
+		 */
+		public int parametre(int indice) {
+			return parametres[indice];
+		}
+	}
+
+	private final List<Etape> etapes = new ArrayList<>();
+
+	/**
+	 * Ajoute une étape de luminosité.
+	 *
+	 * @param luminosite Le décalage de luminosité (-255 à +255).
+	 * @return Cette chaîne, pour enchaîner les appels.
+	 */
+	public ChaineAjustements luminosite(int luminosite) {
+		etapes.add(new Etape(TypeAjustement.LUMINOSITE, Math.max(-255, Math.min(255, luminosite))));
+		return this;
+	}
+
+	/**
+	 * Ajoute une étape de contraste autour de la valeur moyenne (127).
+	 *
+	 * @param contraste Le niveau de contraste (-100 à +100).
+	 * @return Cette chaîne, pour enchaîner les appels.
+	 */
+	public ChaineAjustements contraste(int contraste) {
+		return contraste(contraste, PIVOT_DEFAUT);
+	}
+
+	/**
+	 * Ajoute une étape de contraste autour d'une valeur pivot.
+	 *
+	 * @param contraste Le niveau de contraste (-100 à +100).
+	 * @param pivot La valeur autour de laquelle le contraste est appliqué (0-255).
+	 * @return Cette chaîne, pour enchaîner les appels.
+	 */
+	public ChaineAjustements contraste(int contraste, int pivot) {
+		etapes.add(new Etape(TypeAjustement.CONTRASTE, Math.max(-100, Math.min(100, contraste)),
+				NoyauxCouleur.borner(pivot)));
+		return this;
+	}
+
+	/**
+	 * Ajoute une étape de teinte.
+	 *
+	 * @param red La composante rouge de la teinte (0-255).
+	 * @param green La composante verte de la teinte (0-255).
+	 * @param blue La composante bleue de la teinte (0-255).
+	 * @param alpha L'intensité de la teinte (0-255).
+	 * @return Cette chaîne, pour enchaîner les appels.
+	 */
+	public ChaineAjustements teinte(int red, int green, int blue, int alpha) {
+		etapes.add(new Etape(TypeAjustement.TEINTE, NoyauxCouleur.borner(red), NoyauxCouleur.borner(green),
+				NoyauxCouleur.borner(blue), NoyauxCouleur.borner(alpha)));
+		return this;
+	}
+
+	/**
+	 * Ajoute une étape de niveaux identique sur les trois composantes.
+	 * L'intervalle [bas, haut] est étiré sur [0, 255] ; l'alpha est conservé.
+	 *
+	 * @param bas La valeur ramenée à 0 (0-255).
+	 * @param haut La valeur ramenée à 255 (0-255).
+	 * @return Cette chaîne, pour enchaîner les appels.
+	 */
+	public ChaineAjustements niveaux(int bas, int haut) {
+		return niveaux(bas, haut, bas, haut, bas, haut);
+	}
+
+	/**
+	 * Ajoute une étape de niveaux avec un intervalle par composante.
+	 *
+	 * @param rougeBas La valeur de rouge ramenée à 0.
+	 * @param rougeHaut La valeur de rouge ramenée à 255.
+	 * @param vertBas La valeur de vert ramenée à 0.
+	 * @param vertHaut La valeur de vert ramenée à 255.
+	 * @param bleuBas La valeur de bleu ramenée à 0.
+	 * @param bleuHaut La valeur de bleu ramenée à 255.
+	 * @return Cette chaîne, pour enchaîner les appels.
+	 */
+	public ChaineAjustements niveaux(int rougeBas, int rougeHaut, int vertBas, int vertHaut, int bleuBas, int bleuHaut) {
+		etapes.add(new Etape(TypeAjustement.NIVEAUX, NoyauxCouleur.borner(rougeBas), NoyauxCouleur.borner(rougeHaut),
+				NoyauxCouleur.borner(vertBas), NoyauxCouleur.borner(vertHaut),
+				NoyauxCouleur.borner(bleuBas), NoyauxCouleur.borner(bleuHaut)));
+		return this;
+	}
+
+	/**
+	 * Ajoute à la suite toutes les étapes d'une autre chaîne.
+	 *
+	 * @param autre La chaîne dont les étapes sont recopiées (non modifiée).
+	 * @return Cette chaîne, pour enchaîner les appels.
+	 */
+	public ChaineAjustements enchainer(ChaineAjustements autre) {
+		etapes.addAll(autre.etapes);
+		return this;
+	}
+
+	/**
+	 * Obtient les étapes de la chaîne, dans l'ordre d'application.
+	 *
+	 * @return La liste des étapes en lecture seule.
+	 */
+	public List<Etape> etapes() {
+		return Collections.unmodifiableList(etapes);
+	}
+
+	/**
+	 * Vérifie si la chaîne ne contient aucune étape.
+	 *
+	 * @return true si la chaîne est vide, false sinon.
+	 */
+	public boolean estVide() {
+		return etapes.isEmpty();
+	}
+
+	/**
+	 * Compile la chaîne en tables de correspondance.
+	 * Chaque valeur 0-255 de chaque composante traverse toutes les étapes.
+	 *
+	 * @return Les tables équivalentes à la chaîne complète.
+	 */
+	public TableCouleurs compiler() {
+		int[][] canaux = new int[3][256];
+		for (int c = 0; c < 3; c++) {
+			for (int v = 0; v < 256; v++) {
+				canaux[c][v] = v;
+			}
+		}
+		boolean opaque = false;
+
+		for (Etape etape : etapes) {
+			switch (etape.type) {
+				case LUMINOSITE:
+					opaque = true;
+					for (int c = 0; c < 3; c++)
+						for (int v = 0; v < 256; v++)
+							canaux[c][v] = NoyauxCouleur.luminositeCanal(canaux[c][v], etape.parametre(0));
+					break;
+				case CONTRASTE:
+					opaque = true;
+					float facteur = etape.parametre(0) / 100f;
+					for (int c = 0; c < 3; c++)
+						for (int v = 0; v < 256; v++)
+							canaux[c][v] = NoyauxCouleur.contrasteCanal(canaux[c][v], facteur, etape.parametre(1));
+					break;
+				case TEINTE:
+					int intensite = etape.parametre(3);
+					for (int c = 0; c < 3; c++) {
+						int teinte = etape.parametre(c) * intensite;
+						for (int v = 0; v < 256; v++)
+							canaux[c][v] = NoyauxCouleur.teinterCanal(canaux[c][v], teinte, 255 - intensite);
+					}
+					break;
+				case NIVEAUX:
+					for (int c = 0; c < 3; c++) {
+						int bas = etape.parametre(2 * c);
+						int haut = etape.parametre(2 * c + 1);
+						for (int v = 0; v < 256; v++)
+							canaux[c][v] = NoyauxCouleur.niveauxCanal(canaux[c][v], bas, haut);
+					}
+					break;
+			}
+		}
+		return new TableCouleurs(canaux[0], canaux[1], canaux[2], opaque);
+	}
+
+	/**
+	 * Compile puis applique la chaîne sur une image en une seule passe.
+	 *
+	 * @param image L'image à ajuster (modifiée).
+	 */
+	public void appliquer(BufferedImage image) {
+		if (estVide()) return;
+		compiler().appliquer(image);
+	}
+}
@@ -0,0 +1,258 @@
+/**
+ * Classe superposant des couches redimensionnées sur une image composite.
+ * Redimensionne et mélange chaque couche en une seule passe, sans image intermédiaire.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Composition de couches selon l'opérateur SRC_OVER de Porter-Duff, en alpha
+ * prémultiplié : {@code cible = source + cible * (1 - alpha source)} sur les
+ * quatre composantes.
+ * <p>
+ * Chaque ligne de la cible est accumulée dans un tampon d'une ligne de long,
+ * avec 16 bits par composante : l'alpha y vaut {@code a * 255} et chaque couleur
+ * {@code c * a}, produits exacts sans arrondi. Une couche posée sur une zone
+ * transparente est donc rendue à l'identique, et les superpositions ne perdent
+ * qu'un arrondi au 1/65025 ; la ligne est ensuite convertie en ARGB ordinaire.
+ * <p>
+ * Pour chaque couche, la ligne lit directement les pixels à leur position
+ * redimensionnée (plus proche voisin, ou bilinéaire en alpha prémultiplié).
+ * Les correspondances de colonnes sont calculées une fois par couche ; les
+ * lignes de la cible sont traitées en parallèle, toutes couches confondues.
+ */
+public final class CompositionCouches {
+	/** L'alpha d'un pixel opaque dans l'accumulateur (255 * 255). */
+	private static final int OPAQUE = 255 * 255;
+	/** Sélectionne les composantes rouge et bleue (ou alpha et vert après décalage de 16 bits). */
+	private static final long PAIRES = 0x0000FFFF0000FFFFL;
+
+	private CompositionCouches() {
+	}
+
+	/**
+	 * Une couche à superposer : ses pixels et sa place dans la cible.
+	 */
+	public static final class Couche {
+		final TamponPixels source;
+		final int posX;
+		final int posY;
+		final int largeur;
+		final int hauteur;
+		final Rectangle zone;
+		final boolean bilineaire;
+
+		/**
+		 * Décrit une couche redimensionnée à la taille affichée.
+		 *
+		 * @param source Les pixels de la couche (ARGB, non prémultipliés).
+		 * @param posX L'abscisse de la couche dans la cible.
+		 * @param posY L'ordonnée de la couche dans la cible.
+		 * @param largeur La largeur de la couche dans la cible.
+		 * @param hauteur La hauteur de la couche dans la cible.
+		 * @param zone La partie de la cible où la couche peut être dessinée, ou null pour toute la cible.
+		 * @param bilineaire true pour interpoler entre les 4 pixels voisins, false pour le plus proche.
+		 */
+		public Couche(TamponPixels source, int posX, int posY, int largeur, int hauteur, Rectangle zone,
+				boolean bilineaire) {
+			this.source = source;
+			this.posX = posX;
+			this.posY = posY;
+			this.largeur = largeur;
+			this.hauteur = hauteur;
+			this.zone = zone;
+			this.bilineaire = bilineaire;
+		}
+	}
+
+	/**
+	 * Place d'une couche dans la cible, avec ses correspondances de colonnes.
+	 */
+	private static final class Placement {
+		final Couche couche;
+		final Rectangle limites;
+		final boolean direct;
+		/** Colonne source de chaque colonne des limites. */
+		final int[] colonnes;
+		/** Poids sur 8 bits de la colonne suivante en bilinéaire, sinon null. */
+		final int[] poidsColonnes;
+
+		Placement(Couche couche, Rectangle limites) {
+			this.couche = couche;
+			this.limites = limites;
+			TamponPixels source = couche.source;
+			this.direct = source.largeur == couche.largeur && source.hauteur == couche.hauteur;
+			int longueur = limites.width;
+			this.colonnes = new int[longueur];
+			this.poidsColonnes = couche.bilineaire && !direct ? new int[longueur] : null;
+			for (int k = 0; k < longueur; k++) {
+				int x = limites.x + k - couche.posX;
+				if (poidsColonnes != null) {
+					int u = coordonnee(x, source.largeur, couche.largeur);
+					colonnes[k] = u >> 8;
+					poidsColonnes[k] = u & 0xFF;
+				} else {
+					colonnes[k] = direct ? x : (int) ((2L * x + 1) * source.largeur / (2L * couche.largeur));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Compose les couches, de la première (dessous) à la dernière, dans la cible.
+	 * Tous les pixels de la cible sont écrits ; hors des couches ils sont transparents.
+	 *
+	 * @param cible Les pixels de l'image composite (remplacés).
+	 * @param couches Les couches à superposer, de bas en haut.
+	 */
+	public static void composer(TamponPixels cible, List<Couche> couches) {
+		Rectangle cadreCible = new Rectangle(0, 0, cible.largeur, cible.hauteur);
+		List<Placement> placements = new ArrayList<>();
+		for (Couche couche : couches) {
+			Rectangle cadre = couche.zone != null ? cadreCible.intersection(couche.zone) : cadreCible;
+			Rectangle limites = cadre.intersection(new Rectangle(couche.posX, couche.posY, couche.largeur, couche.hauteur));
+			if (!limites.isEmpty()) placements.add(new Placement(couche, limites));
+		}
+
+		int largeur = cible.largeur;
+		ExecuteurTuiles.partage().parcourirLignes(largeur * Math.max(1, placements.size()), cible.hauteur,
+				(yDebut, yFin) -> {
+			long[] accumulateur = new long[largeur];
+			long[] ligne = new long[largeur];
+			for (int y = yDebut; y < yFin; y++) {
+				Arrays.fill(accumulateur, 0L);
+				for (Placement placement : placements) {
+					Rectangle limites = placement.limites;
+					if (y < limites.y || y >= limites.y + limites.height) continue;
+					lireLigne(placement, y - placement.couche.posY, ligne);
+					superposer(accumulateur, limites.x, ligne, limites.width);
+				}
+				int debut = cible.indice(0, y);
+				for (int x = 0; x < largeur; x++) {
+					cible.pixels[debut + x] = depremultiplier(accumulateur[x]);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Remplit une ligne de pixels prémultipliés sur 16 bits à partir de la
+	 * ligne de la couche affichée à l'ordonnée donnée.
+	 */
+	private static void lireLigne(Placement placement, int yCouche, long[] ligne) {
+		Couche couche = placement.couche;
+		TamponPixels source = couche.source;
+		int[] src = source.pixels;
+		int alphaFixe = source.alphaFixe;
+		int[] colonnes = placement.colonnes;
+		int longueur = placement.limites.width;
+		if (placement.poidsColonnes != null) {
+			int[] poidsColonnes = placement.poidsColonnes;
+			int v = coordonnee(yCouche, source.hauteur, couche.hauteur);
+			int y0 = v >> 8;
+			int ligne0 = source.indice(0, y0);
+			int ligne1 = source.indice(0, Math.min(y0 + 1, source.hauteur - 1));
+			int fy = v & 0xFF;
+			int derniere = source.largeur - 1;
+			for (int k = 0; k < longueur; k++) {
+				int x0 = colonnes[k];
+				int x1 = Math.min(x0 + 1, derniere);
+				int fx = poidsColonnes[k];
+				long haut = melanger(etendre(src[ligne0 + x0] | alphaFixe), etendre(src[ligne0 + x1] | alphaFixe), fx);
+				long bas = melanger(etendre(src[ligne1 + x0] | alphaFixe), etendre(src[ligne1 + x1] | alphaFixe), fx);
+				ligne[k] = melanger(haut, bas, fy);
+			}
+		} else {
+			int ySource = placement.direct ? yCouche
+					: (int) ((2L * yCouche + 1) * source.hauteur / (2L * couche.hauteur));
+			int origine = source.indice(0, ySource);
+			for (int k = 0; k < longueur; k++) {
+				ligne[k] = etendre(src[origine + colonnes[k]] | alphaFixe);
+			}
+		}
+	}
+
+	/**
+	 * Superpose une ligne source sur l'accumulateur, tous deux prémultipliés
+	 * sur 16 bits. Les pixels opaques remplacent la destination, les pixels
+	 * transparents la laissent intacte, les autres sont mélangés.
+	 */
+	private static void superposer(long[] dest, int indiceDest, long[] source, int longueur) {
+		for (int k = 0; k < longueur; k++) {
+			long coulSource = source[k];
+			int alphaSource = (int) (coulSource >>> 48);
+			if (alphaSource >= OPAQUE) {
+				dest[indiceDest + k] = coulSource;
+			} else if (alphaSource > 0) {
+				dest[indiceDest + k] = coulSource + attenuer(dest[indiceDest + k], OPAQUE - alphaSource);
+			}
+		}
+	}
+
+	/**
+	 * Passe une couleur ARGB en alpha prémultiplié sur 16 bits par composante :
+	 * {@code a * 255} pour l'alpha, {@code c * a} pour chaque couleur.
+	 */
+	private static long etendre(int couleur) {
+		int a = couleur >>> 24;
+		long rouge = ((couleur >> 16) & 0xFF) * a;
+		long vert = ((couleur >> 8) & 0xFF) * a;
+		long bleu = (couleur & 0xFF) * a;
+		return ((long) (a * 255) << 48) | (rouge << 32) | (vert << 16) | bleu;
+	}
+
+	/**
+	 * Multiplie les quatre composantes par un facteur sur 65025, avec arrondi.
+	 */
+	private static long attenuer(long couleur, int facteur) {
+		long resultat = 0;
+		for (int decalage = 0; decalage < 64; decalage += 16) {
+			long c = (couleur >>> decalage) & 0xFFFF;
+			resultat |= ((c * facteur + OPAQUE / 2) / OPAQUE) << decalage;
+		}
+		return resultat;
+	}
+
+	/**
+	 * Convertit une couleur prémultipliée sur 16 bits en ARGB. Une couleur
+	 * issue de {@link #etendre} retrouve exactement sa valeur d'origine.
+	 */
+	private static int depremultiplier(long couleur) {
+		int alpha = (int) (couleur >>> 48);
+		if (alpha == 0) return 0;
+		int moitie = alpha >> 1;
+		int rouge = (int) Math.min(255, (((couleur >>> 32) & 0xFFFF) * 255 + moitie) / alpha);
+		int vert = (int) Math.min(255, (((couleur >>> 16) & 0xFFFF) * 255 + moitie) / alpha);
+		int bleu = (int) Math.min(255, ((couleur & 0xFFFF) * 255 + moitie) / alpha);
+		int a = Math.min(255, (alpha + 127) / 255);
+		return (a << 24) | (rouge << 16) | (vert << 8) | bleu;
+	}
+
+	/**
+	 * Calcule la coordonnée source d'un pixel de destination en virgule fixe
+	 * (8 bits de fraction), centres des pixels alignés et bornée à la source.
+	 */
+	private static int coordonnee(int x, int tailleSource, int tailleCible) {
+		long u = Math.round(((x + 0.5) * tailleSource / tailleCible - 0.5) * 256);
+		return (int) Math.max(0, Math.min(u, (tailleSource - 1) * 256L));
+	}
+
+	/**
+	 * Interpolation linéaire de deux couleurs prémultipliées sur 16 bits, deux
+	 * composantes à la fois (chaque produit tient dans son champ de 32 bits).
+	 */
+	private static long melanger(long a, long b, int f) {
+		if (f == 0) return a;
+		int g = 256 - f;
+		long rb = (((a & PAIRES) * g + (b & PAIRES) * f + 0x0000008000000080L) >>> 8) & PAIRES;
+		long ag = ((((a >>> 16) & PAIRES) * g + ((b >>> 16) & PAIRES) * f + 0x0000008000000080L) >>> 8) & PAIRES;
+		return (ag << 16) | rb;
+	}
+}
@@ -0,0 +1,221 @@
+/**
+ * Classe échantillonnant une image à travers une transformation affine.
+ * Avance les coordonnées source en virgule fixe le long de chaque ligne.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+/**
+ * Noyau commun aux transformations géométriques (rotation libre,
+ * transformations différées) : chaque pixel (x, y) de la destination lit la
+ * source au point affine u = m00 (x - ox) + m01 (y - oy) + m02,
+ * v = m10 (x - ox) + m11 (y - oy) + m12, où le pixel source (i, j) couvre
+ * [i, i + 1[ x [j, j + 1[ : le plus proche voisin est (floor(u), floor(v)).
+ * <p>
+ * Le long d'une ligne de destination, (u, v) avance d'un pas constant
+ * (m00, m10) : les coordonnées sont gardées en virgule fixe 32.32 et
+ * incrémentées au lieu d'être recalculées, sans arrondi flottant par pixel.
+ * L'intervalle de la ligne qui tombe dans la source est calculé
+ * analytiquement puis ajusté aux bornes exactes ; hors de cet intervalle, la
+ * destination n'est pas parcourue. Les lignes sont traitées en parallèle.
+ */
+final class EchantillonnageAffine {
+	private static final int FRACTION = 32;
+	private static final double UN = 1L << FRACTION;
+	private static final long DEMI = 1L << (FRACTION - 1);
+
+	private EchantillonnageAffine() {
+	}
+
+	/**
+	 * Remplit la destination à partir de la source.
+	 * Les pixels dont l'antécédent sort de la source ne sont pas écrits.
+	 *
+	 * @param source Les pixels de l'image lue.
+	 * @param cible Les pixels de l'image écrite.
+	 * @param origineX L'abscisse ox de la destination retranchée avant la transformation.
+	 * @param origineY L'ordonnée oy de la destination retranchée avant la transformation.
+	 * @param matrice Les coefficients {m00, m01, m02, m10, m11, m12}.
+	 * @param bilineaire true pour interpoler entre les 4 pixels voisins, false pour le plus proche.
+	 */
+	static void echantillonner(TamponPixels source, TamponPixels cible, double origineX, double origineY,
+			double[] matrice, boolean bilineaire) {
+		int largeur = cible.largeur;
+		long pasU = Math.round(matrice[0] * UN);
+		long pasV = Math.round(matrice[3] * UN);
+
+		ExecuteurTuiles.partage().parcourirLignes(largeur, cible.hauteur, (yDebut, yFin) -> {
+			for (int y = yDebut; y < yFin; y++) {
+				double yC = y - origineY;
+				double xC = -origineX;
+				long u = Math.round((xC * matrice[0] + yC * matrice[1] + matrice[2]) * UN);
+				long v = Math.round((xC * matrice[3] + yC * matrice[4] + matrice[5]) * UN);
+				Ligne ligne = new Ligne(u, v, pasU, pasV, source.largeur, source.hauteur);
+				if (!ligne.borner(largeur)) continue;
+				if (bilineaire) {
+					ligneBilineaire(source, cible, ligne, y);
+				} else {
+					lignePlusProche(source, cible, ligne, y);
+				}
+			}
+		});
+	}
+
+	/**
+	 * Une ligne de destination : coordonnées source de son premier pixel,
+	 * pas par pixel, et intervalle [debut, fin[ des pixels qui tombent dans la source.
+	 */
+	private static final class Ligne {
+		final long u0;
+		final long v0;
+		final long pasU;
+		final long pasV;
+		final int largeurSource;
+		final int hauteurSource;
+		int debut;
+		int fin;
+
+		Ligne(long u0, long v0, long pasU, long pasV, int largeurSource, int hauteurSource) {
+			this.u0 = u0;
+			this.v0 = v0;
+			this.pasU = pasU;
+			this.pasV = pasV;
+			this.largeurSource = largeurSource;
+			this.hauteurSource = hauteurSource;
+		}
+
+		/**
+		 * Calcule l'intervalle des pixels valides. Les deux axes donnent chacun
+		 * un intervalle (fonctions affines), estimé en flottant puis ajusté
+		 * avec les valeurs exactes en virgule fixe utilisées par le parcours.
+		 *
+		 * @return false si la ligne ne rencontre pas la source.
+		 */
+		boolean borner(int largeur) {
+			double[] intervalle = { 0, largeur };
+			restreindre(intervalle, u0, pasU, largeurSource);
+			restreindre(intervalle, v0, pasV, hauteurSource);
+			if (intervalle[0] > intervalle[1]) return false;
+
+			debut = (int) Math.max(0, Math.min(largeur - 1, Math.floor(intervalle[0])));
+			int derniere = (int) Math.max(0, Math.min(largeur - 1, Math.ceil(intervalle[1])));
+			// Le domaine valide est un intervalle : on recale chaque borne sur le premier pixel valide
+			while (debut <= derniere && !valide(debut)) debut++;
+			while (derniere >= debut && !valide(derniere)) derniere--;
+			if (debut > derniere) return false;
+			while (debut > 0 && valide(debut - 1)) debut--;
+			while (derniere < largeur - 1 && valide(derniere + 1)) derniere++;
+			fin = derniere + 1;
+			return true;
+		}
+
+		/**
+		 * Restreint l'intervalle aux t tels que 0 <= depart + t * pas < taille (en pixels).
+		 */
+		private static void restreindre(double[] intervalle, long depart, long pas, int taille) {
+			double d = depart / UN;
+			double p = pas / UN;
+			if (p == 0) {
+				if (d < 0 || d >= taille) intervalle[0] = Double.POSITIVE_INFINITY;
+				return;
+			}
+			double t0 = -d / p;
+			double t1 = (taille - d) / p;
+			intervalle[0] = Math.max(intervalle[0], Math.min(t0, t1));
+			intervalle[1] = Math.min(intervalle[1], Math.max(t0, t1));
+		}
+
+		boolean valide(int t) {
+			long u = (u0 + t * pasU) >> FRACTION;
+			long v = (v0 + t * pasV) >> FRACTION;
+			return u >= 0 && u < largeurSource && v >= 0 && v < hauteurSource;
+		}
+	}
+
+	private static void lignePlusProche(TamponPixels source, TamponPixels cible, Ligne ligne, int y) {
+		int[] src = source.pixels;
+		int[] dst = cible.pixels;
+		int alphaFixe = source.alphaFixe;
+		long u = ligne.u0 + ligne.debut * ligne.pasU;
+		long v = ligne.v0 + ligne.debut * ligne.pasV;
+		int d = cible.indice(ligne.debut, y);
+		for (int x = ligne.debut; x < ligne.fin; x++) {
+			dst[d++] = src[source.indice((int) (u >> FRACTION), (int) (v >> FRACTION))] | alphaFixe;
+			u += ligne.pasU;
+			v += ligne.pasV;
+		}
+	}
+
+	/**
+	 * Interpolation bilinéaire sur le même domaine que le plus proche voisin :
+	 * les voisins hors de la source sont ramenés au bord.
+	 */
+	private static void ligneBilineaire(TamponPixels source, TamponPixels cible, Ligne ligne, int y) {
+		int[] src = source.pixels;
+		int[] dst = cible.pixels;
+		int alphaFixe = source.alphaFixe;
+		int maxX = source.largeur - 1;
+		int maxY = source.hauteur - 1;
+		// Retire le demi-pixel ajouté pour le plus proche voisin : centres des pixels aux entiers
+		long u = ligne.u0 + ligne.debut * ligne.pasU - DEMI;
+		long v = ligne.v0 + ligne.debut * ligne.pasV - DEMI;
+		int d = cible.indice(ligne.debut, y);
+		for (int x = ligne.debut; x < ligne.fin; x++) {
+			int x0 = (int) (u >> FRACTION);
+			int y0 = (int) (v >> FRACTION);
+			int fx = (int) (u >>> (FRACTION - 8)) & 0xFF;
+			int fy = (int) (v >>> (FRACTION - 8)) & 0xFF;
+			int x1 = Math.min(x0 + 1, maxX);
+			int y1 = Math.min(y0 + 1, maxY);
+			if (x0 < 0) x0 = 0;
+			if (y0 < 0) y0 = 0;
+			int ligne0 = source.indice(0, y0);
+			int ligne1 = source.indice(0, y1);
+			dst[d++] = interpoler(src[ligne0 + x0] | alphaFixe, src[ligne0 + x1] | alphaFixe,
+					src[ligne1 + x0] | alphaFixe, src[ligne1 + x1] | alphaFixe, fx, fy);
+			u += ligne.pasU;
+			v += ligne.pasV;
+		}
+	}
+
+	/**
+	 * Mélange quatre pixels avec des poids sur 8 bits par axe.
+	 * Les couleurs sont pondérées par l'alpha, sauf si les quatre pixels sont opaques.
+	 */
+	private static int interpoler(int p00, int p10, int p01, int p11, int fx, int fy) {
+		if ((p00 & p10 & p01 & p11) >>> 24 == 0xFF) {
+			return 0xFF000000 | melanger(melanger(p00, p10, fx), melanger(p01, p11, fx), fy);
+		}
+		int w00 = (256 - fx) * (256 - fy);
+		int w10 = fx * (256 - fy);
+		int w01 = (256 - fx) * fy;
+		int w11 = fx * fy;
+		long a00 = (long) (p00 >>> 24) * w00;
+		long a10 = (long) (p10 >>> 24) * w10;
+		long a01 = (long) (p01 >>> 24) * w01;
+		long a11 = (long) (p11 >>> 24) * w11;
+		long somme = a00 + a10 + a01 + a11;
+		if (somme == 0) return 0;
+		long moitie = somme >> 1;
+		long r = (((p00 >> 16) & 0xFF) * a00 + ((p10 >> 16) & 0xFF) * a10 + ((p01 >> 16) & 0xFF) * a01
+				+ ((p11 >> 16) & 0xFF) * a11 + moitie) / somme;
+		long g = (((p00 >> 8) & 0xFF) * a00 + ((p10 >> 8) & 0xFF) * a10 + ((p01 >> 8) & 0xFF) * a01
+				+ ((p11 >> 8) & 0xFF) * a11 + moitie) / somme;
+		long b = ((p00 & 0xFF) * a00 + (p10 & 0xFF) * a10 + (p01 & 0xFF) * a01 + (p11 & 0xFF) * a11 + moitie) / somme;
+		int a = (int) ((somme + 0x8000) >>> 16);
+		return (a << 24) | ((int) r << 16) | ((int) g << 8) | (int) b;
+	}
+
+	/**
+	 * Interpolation linéaire de deux couleurs RGB : rouge et bleu sont
+	 * calculés ensemble (chaque produit tient dans son champ de 16 bits).
+	 */
+	private static int melanger(int a, int b, int f) {
+		int g = 256 - f;
+		int rb = ((a & 0xFF00FF) * g + (b & 0xFF00FF) * f + 0x800080) >>> 8;
+		int v = ((a & 0xFF00) * g + (b & 0xFF00) * f + 0x8000) >>> 8;
+		return (rb & 0xFF00FF) | (v & 0xFF00);
+	}
+}
@@ -0,0 +1,292 @@
+/**
+ * Classe répartissant les traitements pixel par pixel sur plusieurs cœurs.
+ * Découpe une image en bandes de lignes ou en tuiles exécutées en fork/join.
+ * 
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.BinaryOperator;
+import java.util.function.Supplier;
+
+/**
+ * Exécuteur partagé des noyaux ponctuels et de voisinage.
+ * Le grain fixe le nombre minimal de pixels traités par tâche ; en dessous,
+ * le découpage s'arrête. Un exécuteur séquentiel traite tout dans le thread
+ * appelant, ce qui rend l'ordre d'exécution déterministe (utile en test).
+ * <p>
+ * Un exécuteur créé avec son propre pool doit être fermé ({@link #close()},
+ * ou try-with-resources) pour arrêter ses threads ; un pool fourni par
+ * l'appelant reste sous sa responsabilité.
+ */
+public final class ExecuteurTuiles implements AutoCloseable {
+	/** Nombre de pixels par tâche par défaut (environ 64 Ko de pixels ARGB). */
+	public static final int GRAIN_DEFAUT = 16 * 1024;
+
+	private static volatile ExecuteurTuiles partage = new ExecuteurTuiles(ForkJoinPool.commonPool(), GRAIN_DEFAUT);
+
+	private final ForkJoinPool pool;
+	private final int grain;
+	/** Indique si le pool a été créé par cet exécuteur (et doit être arrêté par lui). */
+	private final boolean proprietaire;
+
+	/**
+	 * Tâche appliquée à une bande de lignes [yDebut, yFin).
+	 */
+	public interface TacheLignes {
+		void traiter(int yDebut, int yFin);
+	}
+
+	/**
+	 * Tâche appliquée à une tuile [xDebut, xFin) x [yDebut, yFin).
+	 */
+	public interface TacheTuile {
+		void traiter(int xDebut, int yDebut, int xFin, int yFin);
+	}
+
+	/**
+	 * Tâche accumulant une bande de lignes [yDebut, yFin) dans un résultat partiel.
+	 *
+	 * @param <T> Le type du résultat partiel (histogramme, somme...).
+	 */
+	public interface TacheReduction<T> {
+		void traiter(T partiel, int yDebut, int yFin);
+	}
+
+	/**
+	 * Crée un exécuteur disposant de son propre pool de threads.
+	 * Le pool est arrêté par {@link #close()}.
+	 *
+	 * @param parallelisme Le nombre de threads (1 ou moins pour un exécuteur séquentiel).
+	 * @param grain Le nombre minimal de pixels par tâche.
+	 */
+	public ExecuteurTuiles(int parallelisme, int grain) {
+		this(parallelisme > 1 ? new ForkJoinPool(parallelisme) : null, grain, true);
+	}
+
+	/**
+	 * Crée un exécuteur utilisant un pool fourni par l'appelant.
+	 * Le pool n'est pas arrêté par {@link #close()}.
+	 *
+	 * @param pool Le pool de threads, ou null pour un exécuteur séquentiel.
+	 * @param grain Le nombre minimal de pixels par tâche.
+	 */
+	public ExecuteurTuiles(ForkJoinPool pool, int grain) {
+		this(pool, grain, false);
+	}
+
+	private ExecuteurTuiles(ForkJoinPool pool, int grain, boolean proprietaire) {
+		this.pool = pool;
+		this.grain = Math.max(1, grain);
+		this.proprietaire = proprietaire;
+	}
+
+	/**
+	 * Crée un exécuteur qui traite toutes les bandes dans le thread appelant.
+	 *
+	 * @return Un exécuteur séquentiel et déterministe.
+	 */
+	public static ExecuteurTuiles sequentiel() {
+		return new ExecuteurTuiles(null, GRAIN_DEFAUT);
+	}
+
+	/**
+	 * Obtient l'exécuteur utilisé par Colorisation, Format et AjoutContenu.
+	 *
+	 * @return L'exécuteur partagé.
+	 */
+	public static ExecuteurTuiles partage() {
+		return partage;
+	}
+
+	/**
+	 * Remplace l'exécuteur partagé (par exemple par un exécuteur séquentiel en test).
+	 *
+	 * @param executeur Le nouvel exécuteur partagé.
+	 */
+	public static void definirPartage(ExecuteurTuiles executeur) {
+		if (executeur == null) throw new IllegalArgumentException("L'exécuteur partagé ne peut pas être null.");
+		partage = executeur;
+	}
+
+	/**
+	 * Arrête les threads du pool créé par cet exécuteur ; les tâches en cours
+	 * se terminent. Sans effet pour un pool fourni par l'appelant ou pour
+	 * l'exécuteur partagé.
+	 */
+	@Override
+	public void close() {
+		if (proprietaire && pool != null) pool.shutdown();
+	}
+
+	/**
+	 * Indique si l'exécuteur traite tout dans le thread appelant.
+	 *
+	 * @return true si aucune tâche n'est parallélisée.
+	 */
+	public boolean estSequentiel() {
+		return pool == null || pool.getParallelism() <= 1;
+	}
+
+	/**
+	 * Obtient le nombre de threads utilisés.
+	 *
+	 * @return Le parallélisme effectif (1 pour un exécuteur séquentiel).
+	 */
+	public int parallelisme() {
+		return pool == null ? 1 : pool.getParallelism();
+	}
+
+	/**
+	 * Obtient le grain de découpage.
+	 *
+	 * @return Le nombre minimal de pixels par tâche.
+	 */
+	public int grain() {
+		return grain;
+	}
+
+	/**
+	 * Applique une tâche sur toutes les lignes d'une image, découpées en bandes.
+	 * Chaque bande contient au moins {@link #grain()} pixels (sauf la dernière).
+	 *
+	 * @param largeur La largeur de l'image (sert à calculer la hauteur des bandes).
+	 * @param hauteur Le nombre de lignes à traiter.
+	 * @param tache La tâche appliquée à chaque bande.
+	 */
+	public void parcourirLignes(int largeur, int hauteur, TacheLignes tache) {
+		if (hauteur <= 0) return;
+		int lignesParBande = Math.max(1, grain / Math.max(1, largeur));
+		if (estSequentiel() || hauteur <= lignesParBande) {
+			tache.traiter(0, hauteur);
+			return;
+		}
+		pool.invoke(new Bandes(tache, 0, hauteur, lignesParBande));
+	}
+
+	/**
+	 * Accumule toutes les lignes d'une image dans des résultats partiels, un par
+	 * thread, puis les fusionne à la fin. Aucune synchronisation n'est faite
+	 * pendant le parcours : chaque thread n'écrit que dans son propre partiel.
+	 *
+	 * @param <T> Le type du résultat.
+	 * @param largeur La largeur de l'image (sert à calculer la hauteur des bandes).
+	 * @param hauteur Le nombre de lignes à traiter.
+	 * @param creer Crée un résultat partiel vide.
+	 * @param tache La tâche accumulant une bande dans un partiel.
+	 * @param fusion Fusionne deux partiels (peut modifier et renvoyer le premier).
+	 * @return Le résultat fusionné (un partiel vide si aucune ligne).
+	 */
+	public <T> T reduireLignes(int largeur, int hauteur, Supplier<T> creer, TacheReduction<T> tache, BinaryOperator<T> fusion) {
+		int lignesParBande = Math.max(1, grain / Math.max(1, largeur));
+		if (estSequentiel() || hauteur <= lignesParBande) {
+			T resultat = creer.get();
+			if (hauteur > 0) tache.traiter(resultat, 0, hauteur);
+			return resultat;
+		}
+		ConcurrentHashMap<Thread, T> partiels = new ConcurrentHashMap<>();
+		pool.invoke(new Bandes((yDebut, yFin) -> tache.traiter(
+				partiels.computeIfAbsent(Thread.currentThread(), t -> creer.get()), yDebut, yFin),
+				0, hauteur, lignesParBande));
+		T resultat = null;
+		for (T partiel : partiels.values()) {
+			resultat = resultat == null ? partiel : fusion.apply(resultat, partiel);
+		}
+		return resultat == null ? creer.get() : resultat;
+	}
+
+	/**
+	 * Applique une tâche sur une image découpée en tuiles carrées.
+	 * Adapté aux noyaux de voisinage ou aux accès non linéaires (rotation, transposition).
+	 *
+	 * @param largeur La largeur de l'image.
+	 * @param hauteur La hauteur de l'image.
+	 * @param cote Le côté d'une tuile en pixels.
+	 * @param tache La tâche appliquée à chaque tuile.
+	 */
+	public void parcourirTuiles(int largeur, int hauteur, int cote, TacheTuile tache) {
+		if (largeur <= 0 || hauteur <= 0) return;
+		cote = Math.max(1, cote);
+		int colonnes = (largeur + cote - 1) / cote;
+		int lignes = (hauteur + cote - 1) / cote;
+		int tuilesParTache = Math.max(1, grain / (cote * cote));
+		Tuiles racine = new Tuiles(tache, largeur, hauteur, cote, colonnes, 0, colonnes * lignes, tuilesParTache);
+		if (estSequentiel() || colonnes * lignes <= tuilesParTache) {
+			racine.compute();
+			return;
+		}
+		pool.invoke(racine);
+	}
+
+	/**
+	 * Découpage récursif d'un intervalle de lignes.
+	 */
+	private static final class Bandes extends RecursiveAction {
+		private final TacheLignes tache;
+		private final int yDebut;
+		private final int yFin;
+		private final int lignesParBande;
+
+		Bandes(TacheLignes tache, int yDebut, int yFin, int lignesParBande) {
+			this.tache = tache;
+			this.yDebut = yDebut;
+			this.yFin = yFin;
+			this.lignesParBande = lignesParBande;
+		}
+
+		@Override
+		protected void compute() {
+			if (yFin - yDebut <= lignesParBande) {
+				tache.traiter(yDebut, yFin);
+				return;
+			}
+			int milieu = (yDebut + yFin) >>> 1;
+			invokeAll(new Bandes(tache, yDebut, milieu, lignesParBande),
+					new Bandes(tache, milieu, yFin, lignesParBande));
+		}
+	}
+
+	/**
+	 * Découpage récursif d'un intervalle d'indices de tuiles.
+	 */
+	private static final class Tuiles extends RecursiveAction {
+		private final TacheTuile tache;
+		private final int largeur;
+		private final int hauteur;
+		private final int cote;
+		private final int colonnes;
+		private final int debut;
+		private final int fin;
+		private final int tuilesParTache;
+
+		Tuiles(TacheTuile tache, int largeur, int hauteur, int cote, int colonnes, int debut, int fin, int tuilesParTache) {
+			this.tache = tache;
+			this.largeur = largeur;
+			this.hauteur = hauteur;
+			this.cote = cote;
+			this.colonnes = colonnes;
+			this.debut = debut;
+			this.fin = fin;
+			this.tuilesParTache = tuilesParTache;
+		}
+
+		@Override
+		protected void compute() {
+			if (fin - debut <= tuilesParTache) {
+				for (int t = debut; t < fin; t++) {
+					int xDebut = (t % colonnes) * cote;
+					int yDebut = (t / colonnes) * cote;
+					tache.traiter(xDebut, yDebut, Math.min(largeur, xDebut + cote), Math.min(hauteur, yDebut + cote));
+				}
+				return;
+			}
+			int milieu = (debut + fin) >>> 1;
+			invokeAll(new Tuiles(tache, largeur, hauteur, cote, colonnes, debut, milieu, tuilesParTache),
+					new Tuiles(tache, largeur, hauteur, cote, colonnes, milieu, fin, tuilesParTache));
+		}
+	}
+}
@@ -0,0 +1,166 @@
+/**
+ * Classe convertissant les images importées dans un format de pixels rapide.
+ * Une seule conversion à l'ouverture évite les conversions à chaque traitement.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.IndexColorModel;
+import java.awt.image.Raster;
+
+/**
+ * Normalisation des images décodées : ImageIO renvoie le type produit par le
+ * décodeur (TYPE_3BYTE_BGR pour un JPEG, TYPE_BYTE_INDEXED pour un GIF, types
+ * personnalisés...), pour lequel chaque getRGB ou drawImage passe par les
+ * boucles de conversion génériques. L'image est convertie une fois en
+ * TYPE_INT_ARGB, ou TYPE_INT_RGB si elle n'a pas d'alpha, formats que
+ * {@link TamponPixels} et Java2D traitent directement.
+ * <p>
+ * Les types courants (BGR, ABGR, palette 8 bits) sont convertis par copie des
+ * lignes du raster, les autres ligne par ligne avec getRGB, en parallèle.
+ * Les pixels obtenus sont exactement ceux que rend getRGB sur la source :
+ * une copie Java2D arrondirait autrement les niveaux de gris, le 565 ou
+ * l'alpha prémultiplié.
+ */
+public final class NormalisationImage {
+	private NormalisationImage() {
+	}
+
+	/**
+	 * Donne le format rapide adapté à une image.
+	 *
+	 * @param image L'image à examiner.
+	 * @return TYPE_INT_ARGB si l'image a de l'alpha, TYPE_INT_RGB sinon.
+	 */
+	public static int typeRapide(BufferedImage image) {
+		return image.getColorModel().hasAlpha() || indicesHorsPalette(image)
+				? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+	}
+
+	/**
+	 * Cherche dans une image à palette sans alpha un indice au-delà de la
+	 * palette : getRGB rend 0 (transparent) pour un tel pixel, que seul
+	 * TYPE_INT_ARGB peut garder.
+	 */
+	private static boolean indicesHorsPalette(BufferedImage image) {
+		ColorModel modele = image.getColorModel();
+		if (!(modele instanceof IndexColorModel)) return false;
+		int taille = ((IndexColorModel) modele).getMapSize();
+		if (taille >= 1L << modele.getPixelSize()) return false;
+
+		Raster raster = image.getRaster();
+		int largeur = image.getWidth();
+		int[] ligne = new int[largeur];
+		for (int y = 0; y < image.getHeight(); y++) {
+			raster.getSamples(0, y, largeur, 1, 0, ligne);
+			for (int indice : ligne) {
+				if (indice >= taille) return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Convertit une image dans son format rapide.
+	 *
+	 * @param image L'image décodée (peut être null).
+	 * @return L'image elle-même si elle est déjà dans ce format, sinon une copie convertie.
+	 */
+	public static BufferedImage normaliser(BufferedImage image) {
+		return image == null ? null : convertir(image, typeRapide(image));
+	}
+
+	/**
+	 * Convertit une image en TYPE_INT_ARGB ou TYPE_INT_RGB.
+	 *
+	 * @param image L'image à convertir.
+	 * @param type Le type voulu, TYPE_INT_ARGB ou TYPE_INT_RGB.
+	 * @return L'image elle-même si elle a déjà ce type, sinon une copie convertie.
+	 */
+	public static BufferedImage convertir(BufferedImage image, int type) {
+		if (image.getType() == type) return image;
+		BufferedImage resultat = new BufferedImage(image.getWidth(), image.getHeight(), type);
+		if (!convertirLignes(image, resultat)) {
+			convertirParGetRGB(image, resultat);
+		}
+		return resultat;
+	}
+
+	/**
+	 * Convertit n'importe quel type ligne par ligne avec getRGB, en parallèle.
+	 */
+	private static void convertirParGetRGB(BufferedImage source, BufferedImage resultat) {
+		TamponPixels cible = TamponPixels.ouvrir(resultat);
+		int largeur = cible.largeur;
+		int alphaFixe = resultat.getType() == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+		ExecuteurTuiles.partage().parcourirLignes(largeur, cible.hauteur, (yDebut, yFin) -> {
+			for (int y = yDebut; y < yFin; y++) {
+				int d = cible.indice(0, y);
+				source.getRGB(0, y, largeur, 1, cible.pixels, d, largeur);
+				if (alphaFixe != 0) {
+					for (int x = d; x < d + largeur; x++) {
+						cible.pixels[x] |= alphaFixe;
+					}
+				}
+			}
+		});
+	}
+
+	/**
+	 * Convertit les types à octets courants en lisant les lignes du raster.
+	 *
+	 * @return false si le type de la source n'a pas de conversion directe.
+	 */
+	private static boolean convertirLignes(BufferedImage source, BufferedImage resultat) {
+		int typeSource = source.getType();
+		int alphaFixe = resultat.getType() == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0;
+		int[] palette;
+		if (typeSource == BufferedImage.TYPE_BYTE_INDEXED) {
+			IndexColorModel modele = (IndexColorModel) source.getColorModel();
+			// Les indices au-delà de la palette restent à 0, comme pour getRGB
+			palette = new int[256];
+			modele.getRGBs(palette);
+			for (int i = 0; i < modele.getMapSize(); i++) {
+				palette[i] |= alphaFixe;
+			}
+		} else if (typeSource == BufferedImage.TYPE_3BYTE_BGR || typeSource == BufferedImage.TYPE_4BYTE_ABGR) {
+			palette = null;
+		} else {
+			return false;
+		}
+
+		Raster raster = source.getRaster();
+		TamponPixels cible = TamponPixels.ouvrir(resultat);
+		int largeur = cible.largeur;
+		// Les éléments d'une ligne sont rendus dans l'ordre des bandes : R, G, B (, A) ou l'indice
+		int composantes = typeSource == BufferedImage.TYPE_3BYTE_BGR ? 3
+				: typeSource == BufferedImage.TYPE_4BYTE_ABGR ? 4 : 1;
+		ExecuteurTuiles.partage().parcourirLignes(largeur, cible.hauteur, (yDebut, yFin) -> {
+			byte[] ligne = new byte[largeur * composantes];
+			for (int y = yDebut; y < yFin; y++) {
+				raster.getDataElements(0, y, largeur, 1, ligne);
+				int d = cible.indice(0, y);
+				if (palette != null) {
+					for (int x = 0; x < largeur; x++) {
+						cible.pixels[d + x] = palette[ligne[x] & 0xFF];
+					}
+				} else if (composantes == 3) {
+					for (int x = 0, i = 0; x < largeur; x++, i += 3) {
+						cible.pixels[d + x] = 0xFF000000 | (ligne[i] & 0xFF) << 16 | (ligne[i + 1] & 0xFF) << 8
+								| (ligne[i + 2] & 0xFF);
+					}
+				} else {
+					for (int x = 0, i = 0; x < largeur; x++, i += 4) {
+						cible.pixels[d + x] = (ligne[i + 3] & 0xFF) << 24 | (ligne[i] & 0xFF) << 16
+								| (ligne[i + 1] & 0xFF) << 8 | (ligne[i + 2] & 0xFF) | alphaFixe;
+					}
+				}
+			}
+		});
+		return true;
+	}
+}
@@ -0,0 +1,302 @@
+/**
+ * Classe regroupant les noyaux de calcul des ajustements de couleur.
+ * Travaille directement sur les tableaux de pixels, ligne par ligne.
+ * 
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+/**
+ * Noyaux ponctuels (teinte, contraste, luminosité) appliqués sur une bande de
+ * lignes d'un {@link TamponPixels}. Aucun objet n'est alloué par pixel.
+ * Lorsque le module jdk.incubator.vector est présent, les lignes sont traitées
+ * par {@link NoyauxSimd}, avec un résultat identique au calcul scalaire.
+ */
+public final class NoyauxCouleur {
+
+	/** Implémentation vectorielle, ou null si le module n'est pas chargé. */
+	private static final NoyauxSimd SIMD = NoyauxSimd.charger();
+
+	/** Indique si les noyaux vectoriels sont utilisés. */
+	private static volatile boolean simdActif = SIMD != null;
+
+	private NoyauxCouleur() {
+	}
+
+	/**
+	 * Indique si l'implémentation vectorielle a pu être chargée.
+	 *
+	 * @return true si le module jdk.incubator.vector est disponible.
+	 */
+	public static boolean simdDisponible() {
+		return SIMD != null;
+	}
+
+	/**
+	 * Indique si les noyaux vectoriels sont actuellement utilisés.
+	 *
+	 * @return true si le chemin SIMD est actif.
+	 */
+	public static boolean simdActif() {
+		return simdActif;
+	}
+
+	/**
+	 * Active ou désactive le chemin SIMD (sans effet s'il n'est pas disponible).
+	 *
+	 * @param actif true pour utiliser les noyaux vectoriels.
+	 */
+	public static void activerSimd(boolean actif) {
+		simdActif = actif && SIMD != null;
+	}
+
+	/**
+	 * Mélange une couleur de teinte avec chaque pixel de la bande.
+	 * Conserve le canal alpha d'origine.
+	 *
+	 * @param tampon Le tampon de pixels (modifié).
+	 * @param yDebut La première ligne traitée (incluse).
+	 * @param yFin La dernière ligne traitée (exclue).
+	 * @param red La composante rouge de la teinte (0-255).
+	 * @param green La composante verte de la teinte (0-255).
+	 * @param blue La composante bleue de la teinte (0-255).
+	 * @param alpha L'intensité de la teinte (0-255).
+	 */
+	public static void teinter(TamponPixels tampon, int yDebut, int yFin, int red, int green, int blue, int alpha) {
+		int[] pixels = tampon.pixels;
+		int inverse = 255 - alpha;
+		int rougeTeinte = red * alpha;
+		int vertTeinte = green * alpha;
+		int bleuTeinte = blue * alpha;
+
+		NoyauxSimd simd = simdActif ? SIMD : null;
+
+		for (int y = yDebut; y < yFin; y++) {
+			int debut = tampon.indice(0, y);
+			int fin = debut + tampon.largeur;
+			if (simd != null) {
+				simd.teinter(pixels, debut, fin, rougeTeinte, vertTeinte, bleuTeinte, inverse);
+			} else {
+				teinterLigne(pixels, debut, fin, rougeTeinte, vertTeinte, bleuTeinte, inverse);
+			}
+		}
+	}
+
+	/**
+	 * Version scalaire de la teinte sur une portion de ligne.
+	 *
+	 * @param pixels Le tableau de pixels (modifié).
+	 * @param debut L'indice du premier pixel (inclus).
+	 * @param fin L'indice du dernier pixel (exclu).
+	 * @param rougeTeinte La composante rouge multipliée par l'intensité.
+	 * @param vertTeinte La composante verte multipliée par l'intensité.
+	 * @param bleuTeinte La composante bleue multipliée par l'intensité.
+	 * @param inverse 255 moins l'intensité de la teinte.
+	 */
+	static void teinterLigne(int[] pixels, int debut, int fin, int rougeTeinte, int vertTeinte, int bleuTeinte, int inverse) {
+		for (int i = debut; i < fin; i++) {
+			int rgb = pixels[i];
+
+			int r = (rgb >> 16) & 0xFF;
+			int g = (rgb >> 8) & 0xFF;
+			int b = rgb & 0xFF;
+
+			int nr = teinterCanal(r, rougeTeinte, inverse);
+			int ng = teinterCanal(g, vertTeinte, inverse);
+			int nb = teinterCanal(b, bleuTeinte, inverse);
+
+			pixels[i] = (rgb & 0xFF000000) | (nr << 16) | (ng << 8) | nb;
+		}
+	}
+
+	/**
+	 * Écarte ou rapproche chaque composante de la valeur pivot.
+	 * Le résultat est opaque, comme avec new Color(r, g, b).
+	 *
+	 * @param tampon Le tampon de pixels (modifié).
+	 * @param yDebut La première ligne traitée (incluse).
+	 * @param yFin La dernière ligne traitée (exclue).
+	 * @param contraste Le niveau de contraste (-100 à +100).
+	 * @param pivot La valeur autour de laquelle le contraste est appliqué.
+	 */
+	public static void contraste(TamponPixels tampon, int yDebut, int yFin, int contraste, int pivot) {
+		int[] pixels = tampon.pixels;
+		float facteur = contraste / 100f;
+		NoyauxSimd simd = simdActif ? SIMD : null;
+
+		for (int y = yDebut; y < yFin; y++) {
+			int debut = tampon.indice(0, y);
+			int fin = debut + tampon.largeur;
+			if (simd != null) {
+				simd.contraste(pixels, debut, fin, facteur, pivot);
+			} else {
+				contrasteLigne(pixels, debut, fin, facteur, pivot);
+			}
+		}
+	}
+
+	/**
+	 * Version scalaire du contraste sur une portion de ligne.
+	 *
+	 * @param pixels Le tableau de pixels (modifié).
+	 * @param debut L'indice du premier pixel (inclus).
+	 * @param fin L'indice du dernier pixel (exclu).
+	 * @param facteur Le niveau de contraste divisé par 100.
+	 * @param pivot La valeur autour de laquelle le contraste est appliqué.
+	 */
+	static void contrasteLigne(int[] pixels, int debut, int fin, float facteur, int pivot) {
+		for (int i = debut; i < fin; i++) {
+			int rgb = pixels[i];
+
+			int r = (rgb >> 16) & 0xFF;
+			int g = (rgb >> 8) & 0xFF;
+			int b = rgb & 0xFF;
+
+			r = contrasteCanal(r, facteur, pivot);
+			g = contrasteCanal(g, facteur, pivot);
+			b = contrasteCanal(b, facteur, pivot);
+
+			pixels[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+		}
+	}
+
+	/**
+	 * Ajoute une valeur constante à chaque composante.
+	 * Le résultat est opaque, comme avec new Color(r, g, b).
+	 *
+	 * @param tampon Le tampon de pixels (modifié).
+	 * @param yDebut La première ligne traitée (incluse).
+	 * @param yFin La dernière ligne traitée (exclue).
+	 * @param luminosite Le décalage de luminosité (-255 à +255).
+	 */
+	public static void luminosite(TamponPixels tampon, int yDebut, int yFin, int luminosite) {
+		int[] pixels = tampon.pixels;
+		NoyauxSimd simd = simdActif ? SIMD : null;
+
+		for (int y = yDebut; y < yFin; y++) {
+			int debut = tampon.indice(0, y);
+			int fin = debut + tampon.largeur;
+			if (simd != null) {
+				simd.luminosite(pixels, debut, fin, luminosite);
+			} else {
+				luminositeLigne(pixels, debut, fin, luminosite);
+			}
+		}
+	}
+
+	/**
+	 * Version scalaire de la luminosité sur une portion de ligne.
+	 *
+	 * @param pixels Le tableau de pixels (modifié).
+	 * @param debut L'indice du premier pixel (inclus).
+	 * @param fin L'indice du dernier pixel (exclu).
+	 * @param luminosite Le décalage de luminosité.
+	 */
+	static void luminositeLigne(int[] pixels, int debut, int fin, int luminosite) {
+		for (int i = debut; i < fin; i++) {
+			int rgb = pixels[i];
+
+			int r = luminositeCanal((rgb >> 16) & 0xFF, luminosite);
+			int g = luminositeCanal((rgb >> 8) & 0xFF, luminosite);
+			int b = luminositeCanal(rgb & 0xFF, luminosite);
+
+			pixels[i] = 0xFF000000 | (r << 16) | (g << 8) | b;
+		}
+	}
+
+	/**
+	 * Remplace par une couleur tous les pixels proches d'une couleur d'origine.
+	 * Compare la distance RGB au carré, en entiers, à un seuil précalculé.
+	 *
+	 * @param tampon Le tampon de pixels (modifié).
+	 * @param yDebut La première ligne traitée (incluse).
+	 * @param yFin La dernière ligne traitée (exclue).
+	 * @param coulOrig La couleur d'origine (RGB, alpha ignoré).
+	 * @param coulDest La couleur de remplacement (ARGB).
+	 * @param seuilCarre La distance au carré maximale (voir RemplissageSpans.seuilCarre).
+	 */
+	public static void remplacer(TamponPixels tampon, int yDebut, int yFin, int coulOrig, int coulDest, int seuilCarre) {
+		int[] pixels = tampon.pixels;
+		int rOrig = (coulOrig >> 16) & 0xFF;
+		int gOrig = (coulOrig >> 8) & 0xFF;
+		int bOrig = coulOrig & 0xFF;
+
+		for (int y = yDebut; y < yFin; y++) {
+			int debut = tampon.indice(0, y);
+			int fin = debut + tampon.largeur;
+			for (int i = debut; i < fin; i++) {
+				int rgb = pixels[i];
+				int dr = ((rgb >> 16) & 0xFF) - rOrig;
+				int dg = ((rgb >> 8) & 0xFF) - gOrig;
+				int db = (rgb & 0xFF) - bOrig;
+				if (dr * dr + dg * dg + db * db <= seuilCarre) {
+					pixels[i] = coulDest;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Mélange une composante avec la composante de teinte prémultipliée.
+	 *
+	 * @param v La composante d'origine (0-255).
+	 * @param teinte La composante de teinte multipliée par l'intensité.
+	 * @param inverse 255 moins l'intensité de la teinte.
+	 * @return La composante teintée (0-255).
+	 */
+	static int teinterCanal(int v, int teinte, int inverse) {
+		return (teinte + v * inverse) / 255;
+	}
+
+	/**
+	 * Applique le contraste sur une composante.
+	 *
+	 * @param v La composante d'origine (0-255).
+	 * @param facteur Le niveau de contraste divisé par 100.
+	 * @param pivot La valeur autour de laquelle le contraste est appliqué.
+	 * @return La composante contrastée (0-255).
+	 */
+	static int contrasteCanal(int v, float facteur, int pivot) {
+		return borner((int) (v + facteur * (v - pivot)));
+	}
+
+	/**
+	 * Étire une composante pour que l'intervalle [bas, haut] couvre [0, 255].
+	 * Les valeurs hors de l'intervalle sont saturées ; un intervalle vide ne
+	 * modifie pas la composante.
+	 *
+	 * @param v La composante d'origine (0-255).
+	 * @param bas La valeur ramenée à 0.
+	 * @param haut La valeur ramenée à 255.
+	 * @return La composante étirée (0-255).
+	 */
+	static int niveauxCanal(int v, int bas, int haut) {
+		if (haut <= bas) return v;
+		if (v <= bas) return 0;
+		if (v >= haut) return 255;
+		int etendue = haut - bas;
+		return ((v - bas) * 255 + etendue / 2) / etendue;
+	}
+
+	/**
+	 * Applique la luminosité sur une composante.
+	 *
+	 * @param v La composante d'origine (0-255).
+	 * @param luminosite Le décalage de luminosité.
+	 * @return La composante éclaircie ou assombrie (0-255).
+	 */
+	static int luminositeCanal(int v, int luminosite) {
+		return borner(v + luminosite);
+	}
+
+	/**
+	 * Limite une valeur entre 0 et 255.
+	 *
+	 * @param v La valeur à limiter.
+	 * @return La valeur bornée dans l'intervalle [0, 255].
+	 */
+	static int borner(int v) {
+		return v < 0 ? 0 : (v > 255 ? 255 : v);
+	}
+}
@@ -0,0 +1,71 @@
+/**
+ * Interface des noyaux de couleur vectoriels.
+ * Permet de charger l'implémentation SIMD seulement si le module est présent.
+ * 
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+/**
+ * Noyaux ligne à ligne accélérés par l'API Vector.
+ * Chaque méthode doit produire exactement le même résultat que sa version
+ * scalaire dans {@link NoyauxCouleur}.
+ */
+interface NoyauxSimd {
+
+	/** Nom du module incubateur requis par l'implémentation vectorielle. */
+	String MODULE_VECTOR = "jdk.incubator.vector";
+
+	/**
+	 * Teinte une portion de ligne (voir NoyauxCouleur.teinterLigne).
+	 *
+	 * @param pixels Le tableau de pixels (modifié).
+	 * @param debut L'indice du premier pixel (inclus).
+	 * @param fin L'indice du dernier pixel (exclu).
+	 * @param rougeTeinte La composante rouge multipliée par l'intensité.
+	 * @param vertTeinte La composante verte multipliée par l'intensité.
+	 * @param bleuTeinte La composante bleue multipliée par l'intensité.
+	 * @param inverse 255 moins l'intensité de la teinte.
+	 */
+	void teinter(int[] pixels, int debut, int fin, int rougeTeinte, int vertTeinte, int bleuTeinte, int inverse);
+
+	/**
+	 * Contraste une portion de ligne (voir NoyauxCouleur.contrasteLigne).
+	 *
+	 * @param pixels Le tableau de pixels (modifié).
+	 * @param debut L'indice du premier pixel (inclus).
+	 * @param fin L'indice du dernier pixel (exclu).
+	 * @param facteur Le niveau de contraste divisé par 100.
+	 * @param pivot La valeur autour de laquelle le contraste est appliqué.
+	 */
+	void contraste(int[] pixels, int debut, int fin, float facteur, int pivot);
+
+	/**
+	 * Éclaircit ou assombrit une portion de ligne (voir NoyauxCouleur.luminositeLigne).
+	 *
+	 * @param pixels Le tableau de pixels (modifié).
+	 * @param debut L'indice du premier pixel (inclus).
+	 * @param fin L'indice du dernier pixel (exclu).
+	 * @param luminosite Le décalage de luminosité.
+	 */
+	void luminosite(int[] pixels, int debut, int fin, int luminosite);
+
+	/**
+	 * Charge l'implémentation vectorielle si le module est disponible.
+	 * La classe est chargée par réflexion pour ne jamais être liée sans le module.
+	 *
+	 * @return L'implémentation vectorielle, ou null pour rester en scalaire.
+	 */
+	static NoyauxSimd charger() {
+		if (ModuleLayer.boot().findModule(MODULE_VECTOR).isEmpty()) {
+			return null;
+		}
+		try {
+			Class<?> classe = Class.forName(NoyauxSimd.class.getPackageName() + ".NoyauxVectoriels");
+			return (NoyauxSimd) classe.getDeclaredConstructor().newInstance();
+		} catch (ReflectiveOperationException | LinkageError e) {
+			return null;
+		}
+	}
+}
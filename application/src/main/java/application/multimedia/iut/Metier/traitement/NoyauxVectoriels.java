@@ -0,0 +1,102 @@
+/**
+ * Classe implémentant les noyaux de couleur avec l'API Vector.
+ * N'est chargée que si le module jdk.incubator.vector est présent.
+ * 
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.IntVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Noyaux vectoriels : un pixel par voie, les composantes sont extraites par
+ * décalage et masque puis recombinées. Les opérations flottantes sont faites
+ * dans le même ordre que le code scalaire, sans FMA, pour un résultat identique.
+ * La fin de ligne qui ne remplit pas un vecteur est traitée en scalaire.
+ * <p>
+ * Les calculs par composante restent dans le corps des boucles : C2 refuse
+ * d'inliner des méthodes auxiliaires déjà compilées, ce qui ferait allouer
+ * chaque vecteur. La conversion F2I n'étant pas compilée en instruction native
+ * sur le JDK 17, la troncature vers zéro décale la mantisse selon l'exposant.
+ */
+final class NoyauxVectoriels implements NoyauxSimd {
+
+	/** Forme de vecteur préférée par la plateforme. */
+	private static final VectorSpecies<Integer> ESPECE = IntVector.SPECIES_PREFERRED;
+
+	/** Représentation binaire de 256f, borne haute avant troncature. */
+	private static final int BITS_256 = Float.floatToRawIntBits(256f);
+
+	NoyauxVectoriels() {
+	}
+
+	@Override
+	public void teinter(int[] pixels, int debut, int fin, int rougeTeinte, int vertTeinte, int bleuTeinte, int inverse) {
+		int i = debut;
+		int limite = debut + ESPECE.loopBound(fin - debut);
+		for (; i < limite; i += ESPECE.length()) {
+			IntVector rgb = IntVector.fromArray(ESPECE, pixels, i);
+			IntVector resultat = rgb.and(0xFF000000);
+			for (int decalage = 16; decalage >= 0; decalage -= 8) {
+				int teinte = decalage == 16 ? rougeTeinte : (decalage == 8 ? vertTeinte : bleuTeinte);
+				// (teinte + v * inverse) / 255, la division étant remplacée par
+				// (x + 1 + (x >> 8)) >> 8, exacte pour x dans [0, 65535]
+				IntVector x = rgb.lanewise(VectorOperators.LSHR, decalage).and(0xFF).mul(inverse).add(teinte);
+				IntVector v = x.add(x.lanewise(VectorOperators.ASHR, 8)).add(1).lanewise(VectorOperators.ASHR, 8);
+				resultat = resultat.or(v.lanewise(VectorOperators.LSHL, decalage));
+			}
+			resultat.intoArray(pixels, i);
+		}
+		NoyauxCouleur.teinterLigne(pixels, i, fin, rougeTeinte, vertTeinte, bleuTeinte, inverse);
+	}
+
+	@Override
+	public void contraste(int[] pixels, int debut, int fin, float facteur, int pivot) {
+		int i = debut;
+		int limite = debut + ESPECE.loopBound(fin - debut);
+		for (; i < limite; i += ESPECE.length()) {
+			IntVector rgb = IntVector.fromArray(ESPECE, pixels, i);
+			IntVector resultat = IntVector.broadcast(ESPECE, 0xFF000000);
+			for (int decalage = 16; decalage >= 0; decalage -= 8) {
+				IntVector v = rgb.lanewise(VectorOperators.LSHR, decalage).and(0xFF);
+				// v + facteur * (v - pivot), dans le même ordre que le code scalaire
+				FloatVector x = versFlottant(v).add(versFlottant(v.sub(pivot)).mul(facteur));
+
+				IntVector bits = x.viewAsIntegralLanes();
+				IntVector absolu = bits.and(0x7FFFFFFF).min(BITS_256);
+				IntVector decalageMantisse = absolu.lanewise(VectorOperators.LSHR, 23).neg().add(150).min(31);
+				IntVector entier = absolu.and(0x7FFFFF).or(0x800000).lanewise(VectorOperators.LSHR, decalageMantisse);
+				entier = entier.blend(0, bits.lt(0)).min(255);
+
+				resultat = resultat.or(entier.lanewise(VectorOperators.LSHL, decalage));
+			}
+			resultat.intoArray(pixels, i);
+		}
+		NoyauxCouleur.contrasteLigne(pixels, i, fin, facteur, pivot);
+	}
+
+	@Override
+	public void luminosite(int[] pixels, int debut, int fin, int luminosite) {
+		int i = debut;
+		int limite = debut + ESPECE.loopBound(fin - debut);
+		for (; i < limite; i += ESPECE.length()) {
+			IntVector rgb = IntVector.fromArray(ESPECE, pixels, i);
+			IntVector resultat = IntVector.broadcast(ESPECE, 0xFF000000);
+			for (int decalage = 16; decalage >= 0; decalage -= 8) {
+				IntVector v = rgb.lanewise(VectorOperators.LSHR, decalage).and(0xFF).add(luminosite).max(0).min(255);
+				resultat = resultat.or(v.lanewise(VectorOperators.LSHL, decalage));
+			}
+			resultat.intoArray(pixels, i);
+		}
+		NoyauxCouleur.luminositeLigne(pixels, i, fin, luminosite);
+	}
+
+	/** Convertit chaque voie entière en flottant (conversion exacte sous 2^24). */
+	private static FloatVector versFlottant(IntVector v) {
+		return (FloatVector) v.convert(VectorOperators.I2F, 0);
+	}
+}
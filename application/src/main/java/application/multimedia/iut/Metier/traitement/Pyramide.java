@@ -0,0 +1,228 @@
+/**
+ * Classe représentant une pyramide de réductions successives d'une image.
+ * Chaque niveau est la moyenne 2x2 du précédent, calculée en entiers.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pyramide (mipmap) d'une image : le niveau 0 est l'image elle-même, chaque
+ * niveau suivant divise ses dimensions par deux (arrondi au supérieur) en
+ * moyennant des blocs de 2x2 pixels. Les niveaux sont construits à la demande
+ * puis gardés : une forte réduction part du plus petit niveau encore plus grand
+ * que la cible et ne termine que par un rééchantillonnage de rapport inférieur à 2.
+ * <p>
+ * La moyenne est pondérée par l'alpha (équivalente à une moyenne en alpha
+ * prémultiplié) pour que les pixels transparents ne teintent pas leurs voisins.
+ * Les niveaux sont écrits par le raster et restent donc accélérables à l'affichage.
+ */
+public final class Pyramide {
+	private final List<BufferedImage> niveaux = new ArrayList<>();
+	/** Les pixels du dernier niveau construit (null tant qu'il s'agit du niveau 0). */
+	private int[] pixelsDernier;
+
+	/**
+	 * Crée la pyramide d'une image ; seul le niveau 0 existe au départ.
+	 *
+	 * @param source L'image du niveau 0 (non copiée, non modifiée).
+	 */
+	public Pyramide(BufferedImage source) {
+		niveaux.add(source);
+	}
+
+	/**
+	 * Obtient l'image d'origine (niveau 0).
+	 *
+	 * @return L'image source de la pyramide.
+	 */
+	public BufferedImage source() {
+		return niveaux.get(0);
+	}
+
+	/**
+	 * Obtient un niveau de la pyramide, en construisant les niveaux manquants.
+	 * Au-delà du niveau de 1x1 pixel, le dernier niveau est renvoyé.
+	 *
+	 * @param indice Le niveau voulu (0 pour l'image d'origine).
+	 * @return L'image du niveau, à ne pas modifier.
+	 */
+	public synchronized BufferedImage niveau(int indice) {
+		while (niveaux.size() <= indice && construireSuivant()) {
+			// Chaque tour ajoute un niveau
+		}
+		return niveaux.get(Math.min(indice, niveaux.size() - 1));
+	}
+
+	/**
+	 * Obtient le plus petit niveau dont les deux dimensions restent supérieures
+	 * ou égales à la taille demandée.
+	 *
+	 * @param largeur La largeur visée.
+	 * @param hauteur La hauteur visée.
+	 * @return L'image du niveau choisi, à ne pas modifier.
+	 */
+	public BufferedImage niveauPour(int largeur, int hauteur) {
+		int l = source().getWidth();
+		int h = source().getHeight();
+		int indice = 0;
+		while ((l > 1 || h > 1) && (l + 1) / 2 >= largeur && (h + 1) / 2 >= hauteur) {
+			l = (l + 1) / 2;
+			h = (h + 1) / 2;
+			indice++;
+		}
+		return niveau(indice);
+	}
+
+	/**
+	 * Réduit l'image à partir du niveau le plus adapté de la pyramide.
+	 *
+	 * @param largeur La largeur de l'image produite.
+	 * @param hauteur La hauteur de l'image produite.
+	 * @param filtre Le filtre du rééchantillonnage final.
+	 * @return Une nouvelle image aux dimensions demandées.
+	 */
+	public BufferedImage reduire(int largeur, int hauteur, Reechantillonneur.Filtre filtre) {
+		return Reechantillonneur.redimensionner(niveauPour(largeur, hauteur), largeur, hauteur, filtre);
+	}
+
+	/**
+	 * Recalcule les niveaux déjà construits sur une zone modifiée de l'image
+	 * d'origine. Chaque niveau ne recalcule que les pixels couvrant la zone,
+	 * pour un coût proportionnel à la zone et non à l'image.
+	 *
+	 * @param zone La zone modifiée en pixels de l'image d'origine.
+	 */
+	public synchronized void actualiser(Rectangle zone) {
+		BufferedImage source = niveaux.get(0);
+		Rectangle region = zone.intersection(new Rectangle(source.getWidth(), source.getHeight()));
+		for (int i = 1; i < niveaux.size() && !region.isEmpty(); i++) {
+			BufferedImage precedent = niveaux.get(i - 1);
+			BufferedImage niveau = niveaux.get(i);
+			int largeurPrecedent = precedent.getWidth();
+			int hauteurPrecedent = precedent.getHeight();
+			int x0 = region.x >> 1;
+			int y0 = region.y >> 1;
+			int x1 = Math.min(niveau.getWidth(), (region.x + region.width + 1) >> 1);
+			int y1 = Math.min(niveau.getHeight(), (region.y + region.height + 1) >> 1);
+			int largeur = x1 - x0;
+			int hauteur = y1 - y0;
+
+			// Bloc source couvrant la région, bord impair compris
+			int xSource = 2 * x0;
+			int ySource = 2 * y0;
+			int largeurSource = Math.min(2 * x1, largeurPrecedent) - xSource;
+			int hauteurSource = Math.min(2 * y1, hauteurPrecedent) - ySource;
+			int[] pixels = precedent.getRGB(xSource, ySource, largeurSource, hauteurSource, null, 0, largeurSource);
+			int[] resultat = new int[largeur * hauteur];
+			for (int y = 0; y < hauteur; y++) {
+				int ligne0 = 2 * y * largeurSource;
+				int ligne1 = 2 * y + 1 < hauteurSource ? ligne0 + largeurSource : ligne0;
+				for (int x = 0; x < largeur; x++) {
+					int p0 = 2 * x;
+					int p1 = p0 + 1 < largeurSource ? p0 + 1 : p0;
+					resultat[y * largeur + x] = moyenne(pixels[ligne0 + p0], pixels[ligne0 + p1],
+							pixels[ligne1 + p0], pixels[ligne1 + p1]);
+				}
+			}
+			niveau.getRaster().setDataElements(x0, y0, largeur, hauteur, resultat);
+			if (i == niveaux.size() - 1) {
+				for (int y = 0; y < hauteur; y++) {
+					System.arraycopy(resultat, y * largeur, pixelsDernier, (y0 + y) * niveau.getWidth() + x0, largeur);
+				}
+			}
+			region = new Rectangle(x0, y0, largeur, hauteur);
+		}
+	}
+
+	/**
+	 * Construit le niveau suivant à partir du dernier niveau.
+	 *
+	 * @return false si le dernier niveau fait déjà 1x1 pixel.
+	 */
+	private boolean construireSuivant() {
+		BufferedImage dernier = niveaux.get(niveaux.size() - 1);
+		int largeur = dernier.getWidth();
+		int hauteur = dernier.getHeight();
+		if (largeur == 1 && hauteur == 1) return false;
+
+		int[] pixels;
+		int decalage;
+		int pas;
+		int alphaFixe;
+		if (pixelsDernier == null) {
+			TamponPixels tampon = TamponPixels.ouvrir(dernier);
+			pixels = tampon.pixels;
+			decalage = tampon.decalage;
+			pas = tampon.pas;
+			alphaFixe = tampon.alphaFixe;
+		} else {
+			pixels = pixelsDernier;
+			decalage = 0;
+			pas = largeur;
+			alphaFixe = 0;
+		}
+
+		int largeurNiveau = (largeur + 1) / 2;
+		int hauteurNiveau = (hauteur + 1) / 2;
+		int[] resultat = new int[largeurNiveau * hauteurNiveau];
+		ExecuteurTuiles.partage().parcourirLignes(largeur * 2, hauteurNiveau, (yDebut, yFin) ->
+				moyenner(pixels, decalage, pas, alphaFixe, largeur, hauteur, resultat, largeurNiveau, yDebut, yFin));
+
+		BufferedImage niveau = new BufferedImage(largeurNiveau, hauteurNiveau, BufferedImage.TYPE_INT_ARGB);
+		niveau.getRaster().setDataElements(0, 0, largeurNiveau, hauteurNiveau, resultat);
+		niveaux.add(niveau);
+		pixelsDernier = resultat;
+		return true;
+	}
+
+	/**
+	 * Calcule des lignes d'un niveau : chaque pixel est la moyenne d'un bloc
+	 * 2x2 du niveau précédent. Sur un bord impair, la dernière ligne ou
+	 * colonne est reprise deux fois. L'alpha fixe est ajouté aux pixels lus
+	 * (voir {@link TamponPixels#alphaFixe}).
+	 */
+	private static void moyenner(int[] pixels, int decalage, int pas, int alphaFixe, int largeur, int hauteur,
+			int[] resultat, int largeurNiveau, int yDebut, int yFin) {
+		for (int y = yDebut; y < yFin; y++) {
+			int ligne0 = decalage + 2 * y * pas;
+			int ligne1 = 2 * y + 1 < hauteur ? ligne0 + pas : ligne0;
+			int iResultat = y * largeurNiveau;
+			for (int x = 0; x < largeurNiveau; x++) {
+				int x0 = 2 * x;
+				int x1 = x0 + 1 < largeur ? x0 + 1 : x0;
+				resultat[iResultat + x] = moyenne(pixels[ligne0 + x0] | alphaFixe, pixels[ligne0 + x1] | alphaFixe,
+						pixels[ligne1 + x0] | alphaFixe, pixels[ligne1 + x1] | alphaFixe);
+			}
+		}
+	}
+
+	/**
+	 * Moyenne de quatre pixels, arrondie. Les composantes sont pondérées par
+	 * l'alpha sauf si les quatre pixels sont opaques (cas courant, sans division).
+	 */
+	private static int moyenne(int p0, int p1, int p2, int p3) {
+		if ((p0 & p1 & p2 & p3) >>> 24 == 0xFF) {
+			// Rouge et bleu sont moyennés ensemble : leurs sommes tiennent sur 10 bits
+			int rb = (p0 & 0xFF00FF) + (p1 & 0xFF00FF) + (p2 & 0xFF00FF) + (p3 & 0xFF00FF) + 0x020002;
+			int g = (p0 & 0xFF00) + (p1 & 0xFF00) + (p2 & 0xFF00) + (p3 & 0xFF00) + 0x0200;
+			return 0xFF000000 | ((rb >> 2) & 0xFF00FF) | ((g >> 2) & 0xFF00);
+		}
+		int a0 = p0 >>> 24, a1 = p1 >>> 24, a2 = p2 >>> 24, a3 = p3 >>> 24;
+		int somme = a0 + a1 + a2 + a3;
+		if (somme == 0) return 0;
+		int moitie = somme >> 1;
+		int r = (((p0 >> 16) & 0xFF) * a0 + ((p1 >> 16) & 0xFF) * a1 + ((p2 >> 16) & 0xFF) * a2
+				+ ((p3 >> 16) & 0xFF) * a3 + moitie) / somme;
+		int g = (((p0 >> 8) & 0xFF) * a0 + ((p1 >> 8) & 0xFF) * a1 + ((p2 >> 8) & 0xFF) * a2
+				+ ((p3 >> 8) & 0xFF) * a3 + moitie) / somme;
+		int b = ((p0 & 0xFF) * a0 + (p1 & 0xFF) * a1 + (p2 & 0xFF) * a2 + (p3 & 0xFF) * a3 + moitie) / somme;
+		return (((somme + 2) >> 2) << 24) | (r << 16) | (g << 8) | b;
+	}
+}
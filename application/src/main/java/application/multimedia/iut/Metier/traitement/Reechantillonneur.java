@@ -0,0 +1,427 @@
+/**
+ * Classe implémentant le rééchantillonnage (redimensionnement) des images.
+ * Filtre séparable en deux passes avec des poids précalculés en virgule fixe.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Redimensionnement par filtre séparable : une passe horizontale sur les
+ * lignes de la source, puis une passe verticale sur l'image intermédiaire.
+ * Les poids de chaque colonne et de chaque ligne de destination sont calculés
+ * une seule fois, normalisés puis convertis en entiers sur {@value #PRECISION}
+ * bits ; les boucles de pixels ne font plus que des multiplications entières.
+ * <p>
+ * Les centres des pixels sont alignés ((x + 0.5) * échelle) et, en réduction,
+ * le support du filtre est élargi de l'échelle pour que chaque pixel source
+ * contribue (pas de crénelage). Les composantes sont filtrées en alpha
+ * prémultiplié afin que les pixels transparents ne débordent pas sur leurs voisins.
+ */
+public final class Reechantillonneur {
+
+	/**
+	 * Filtres de rééchantillonnage disponibles.
+	 */
+	public enum Filtre {
+		PLUS_PROCHE("Plus proche voisin", 0),
+		BILINEAIRE("Bilinéaire", 1),
+		BICUBIQUE("Bicubique", 2),
+		LANCZOS3("Lanczos 3", 3);
+
+		private final String libelle;
+		private final double rayon;
+
+		Filtre(String libelle, double rayon) {
+			this.libelle = libelle;
+			this.rayon = rayon;
+		}
+
+		/**
+		 * Évalue le noyau du filtre à une distance donnée (en pixels source).
+		 */
+		double noyau(double x) {
+			x = Math.abs(x);
+			switch (this) {
+				case BILINEAIRE:
+					return x < 1 ? 1 - x : 0;
+				case BICUBIQUE:
+					// Noyau de Keys avec a = -0.5
+					if (x < 1) return (1.5 * x - 2.5) * x * x + 1;
+					if (x < 2) return ((-0.5 * x + 2.5) * x - 4) * x + 2;
+					return 0;
+				case LANCZOS3:
+					if (x == 0) return 1;
+					if (x >= 3) return 0;
+					double px = Math.PI * x;
+					return 3 * Math.sin(px) * Math.sin(px / 3) / (px * px);
+				default:
+					return x < 0.5 ? 1 : 0;
+			}
+		}
+
+		@Override
+		public String toString() {
+			return libelle;
+		}
+	}
+
+	/**
+	 * Nombre de bits de la partie fractionnaire des poids. La somme des valeurs
+	 * absolues des poids d'un pixel ne dépasse pas 1.6 pour ces filtres, donc
+	 * 255 * 1.6 * 2^11 tient dans un champ de {@value #CHAMP} bits signés.
+	 */
+	static final int PRECISION = 11;
+	private static final int CHAMP = 21;
+	private static final int UN = 1 << PRECISION;
+	private static final int ARRONDI = 1 << (PRECISION - 1);
+	private static final long ARRONDI_RVB = ((long) ARRONDI << (2 * CHAMP)) + ((long) ARRONDI << CHAMP) + ARRONDI;
+
+	/**
+	 * Poids d'un axe : pour chaque pixel de destination, le premier pixel
+	 * source utilisé et les poids (en virgule fixe) des pixels suivants.
+	 */
+	static final class Poids {
+		final int[] debut;
+		final int[] nombre;
+		final int[] valeurs;
+		final int pas;
+
+		Poids(int taille, int pas) {
+			this.debut = new int[taille];
+			this.nombre = new int[taille];
+			this.valeurs = new int[taille * pas];
+			this.pas = pas;
+		}
+
+		/** Le premier pixel source lu par l'axe. */
+		int premierSource() {
+			int premier = Integer.MAX_VALUE;
+			for (int d : debut) premier = Math.min(premier, d);
+			return premier;
+		}
+
+		/** Le pixel source suivant le dernier lu par l'axe. */
+		int finSource() {
+			int fin = 0;
+			for (int i = 0; i < debut.length; i++) fin = Math.max(fin, debut[i] + nombre[i]);
+			return fin;
+		}
+	}
+
+	private Reechantillonneur() {
+	}
+
+	/**
+	 * Redimensionne une image avec l'exécuteur partagé.
+	 *
+	 * @param source L'image source (non modifiée).
+	 * @param largeurCible La largeur de l'image produite.
+	 * @param hauteurCible La hauteur de l'image produite.
+	 * @param filtre Le filtre de rééchantillonnage.
+	 * @return Une nouvelle image TYPE_INT_ARGB aux dimensions demandées.
+	 */
+	public static BufferedImage redimensionner(BufferedImage source, int largeurCible, int hauteurCible, Filtre filtre) {
+		return redimensionner(source, largeurCible, hauteurCible, filtre, ExecuteurTuiles.partage());
+	}
+
+	/**
+	 * Redimensionne une image. Aux mêmes dimensions, les pixels sont recopiés
+	 * tels quels, quel que soit le filtre.
+	 *
+	 * @param source L'image source (non modifiée).
+	 * @param largeurCible La largeur de l'image produite.
+	 * @param hauteurCible La hauteur de l'image produite.
+	 * @param filtre Le filtre de rééchantillonnage.
+	 * @param executeur L'exécuteur répartissant les lignes.
+	 * @return Une nouvelle image TYPE_INT_ARGB aux dimensions demandées.
+	 * @throws IllegalArgumentException si une dimension cible n'est pas positive.
+	 */
+	public static BufferedImage redimensionner(BufferedImage source, int largeurCible, int hauteurCible, Filtre filtre,
+			ExecuteurTuiles executeur) {
+		if (largeurCible <= 0 || hauteurCible <= 0) {
+			throw new IllegalArgumentException("Dimensions invalides : " + largeurCible + "x" + hauteurCible);
+		}
+		BufferedImage resultat = new BufferedImage(largeurCible, hauteurCible, BufferedImage.TYPE_INT_ARGB);
+		TamponPixels src = TamponPixels.ouvrir(source);
+		TamponPixels dest = TamponPixels.ouvrir(resultat);
+
+		if (filtre == Filtre.PLUS_PROCHE || (src.largeur == largeurCible && src.hauteur == hauteurCible)) {
+			// Sans changement de taille, tous les filtres donnent le pixel source :
+			// la copie évite l'aller-retour en alpha prémultiplié
+			plusProche(src, dest, executeur);
+		} else {
+			Poids poidsX = calculerPoids(src.largeur, largeurCible, filtre);
+			Poids poidsY = calculerPoids(src.hauteur, hauteurCible, filtre);
+
+			// Seules les lignes source lues par la passe verticale sont filtrées
+			int premiere = poidsY.premierSource();
+			int derniere = poidsY.finSource();
+			int[] intermediaire = new int[largeurCible * (derniere - premiere)];
+			boolean[] opaques = new boolean[derniere - premiere];
+
+			executeur.parcourirLignes(largeurCible * poidsX.pas, derniere - premiere, (yDebut, yFin) ->
+					passeHorizontale(src, poidsX, intermediaire, opaques, largeurCible, premiere,
+							yDebut + premiere, yFin + premiere));
+			executeur.parcourirLignes(largeurCible * poidsY.pas, hauteurCible, (yDebut, yFin) ->
+					passeVerticale(intermediaire, opaques, largeurCible, premiere, poidsY, dest, yDebut, yFin));
+		}
+		dest.valider();
+		return resultat;
+	}
+
+	/**
+	 * Calcule les poids d'un axe.
+	 * Les poids de chaque pixel sont normalisés puis arrondis par leurs sommes
+	 * cumulées : leur somme fait exactement 1, ce qui garde inchangée une couleur
+	 * opaque uniforme, et l'erreur d'arrondi est répartie entre tous les poids au
+	 * lieu de se reporter sur un seul, même quand chacun vaut moins d'une unité
+	 * de la virgule fixe. Une couleur semi-transparente passe par l'alpha
+	 * prémultiplié sur 8 bits et peut revenir décalée de quelques niveaux,
+	 * d'autant plus que son alpha est faible (0x80336699 devient 0x80346699).
+	 * Les poids nuls aux extrémités sont retirés.
+	 *
+	 * @param tailleSource La taille de l'axe dans la source.
+	 * @param tailleCible La taille de l'axe dans la destination.
+	 * @param filtre Le filtre (autre que PLUS_PROCHE).
+	 * @return Les poids de l'axe.
+	 */
+	static Poids calculerPoids(int tailleSource, int tailleCible, Filtre filtre) {
+		double echelle = (double) tailleSource / tailleCible;
+		double echelleFiltre = Math.max(echelle, 1.0);
+		double support = filtre.rayon * echelleFiltre;
+		int pas = (int) Math.ceil(support) * 2 + 1;
+
+		Poids poids = new Poids(tailleCible, pas);
+		double[] reels = new double[pas];
+		for (int i = 0; i < tailleCible; i++) {
+			double centre = (i + 0.5) * echelle;
+			int min = Math.max(0, (int) Math.floor(centre - support + 0.5));
+			int max = Math.min(tailleSource, (int) Math.floor(centre + support + 0.5));
+			int n = Math.min(max - min, pas);
+
+			double total = 0;
+			for (int k = 0; k < n; k++) {
+				reels[k] = filtre.noyau((min + k - centre + 0.5) / echelleFiltre);
+				total += reels[k];
+			}
+			int base = i * pas;
+			if (n <= 0 || total == 0) {
+				// Aucun poids exploitable : on prend le pixel le plus proche
+				poids.debut[i] = Math.min(tailleSource - 1, (int) centre);
+				poids.nombre[i] = 1;
+				poids.valeurs[base] = UN;
+				continue;
+			}
+
+			// Chaque poids est la différence de deux sommes cumulées arrondies
+			double cumul = 0;
+			int precedent = 0;
+			for (int k = 0; k < n; k++) {
+				cumul += reels[k];
+				int arrondi = k == n - 1 ? UN : (int) Math.round(cumul / total * UN);
+				poids.valeurs[base + k] = arrondi - precedent;
+				precedent = arrondi;
+			}
+
+			int premier = 0;
+			while (premier < n - 1 && poids.valeurs[base + premier] == 0) premier++;
+			int dernier = n - 1;
+			while (dernier > premier && poids.valeurs[base + dernier] == 0) dernier--;
+			if (premier > 0) {
+				System.arraycopy(poids.valeurs, base + premier, poids.valeurs, base, dernier - premier + 1);
+			}
+			poids.debut[i] = min + premier;
+			poids.nombre[i] = dernier - premier + 1;
+		}
+		return poids;
+	}
+
+	/**
+	 * Passe horizontale : filtre des lignes source vers l'image intermédiaire
+	 * (largeur cible, composantes prémultipliées sur 8 bits). Les lignes
+	 * entièrement opaques sont signalées pour que la passe verticale ignore l'alpha.
+	 */
+	private static void passeHorizontale(TamponPixels src, Poids poids, int[] intermediaire, boolean[] opaques,
+			int largeurCible, int premiere, int yDebut, int yFin) {
+		int[] ligne = new int[src.largeur];
+		long[] rvb = new long[src.largeur];
+		int[] alpha = new int[src.largeur];
+		int[] debut = poids.debut;
+		int[] nombre = poids.nombre;
+		int[] valeurs = poids.valeurs;
+		int pas = poids.pas;
+
+		for (int y = yDebut; y < yFin; y++) {
+			int[] pixels = src.pixels;
+			int origine = src.indice(0, y);
+			int et = 0xFF;
+			for (int x = 0; x < src.largeur; x++) {
+				int p = pixels[origine + x];
+				rvb[x] = eclater(p);
+				et &= p >>> 24;
+			}
+			boolean opaque = src.alphaFixe != 0 || et == 0xFF;
+			if (!opaque) {
+				// Ligne avec transparence : on recommence en alpha prémultiplié
+				premultiplier(pixels, origine, ligne, src.largeur);
+				for (int x = 0; x < src.largeur; x++) {
+					rvb[x] = eclater(ligne[x]);
+					alpha[x] = ligne[x] >>> 24;
+				}
+			}
+			opaques[y - premiere] = opaque;
+
+			int iInter = (y - premiere) * largeurCible;
+			for (int x = 0; x < largeurCible; x++) {
+				int i = debut[x];
+				int w = x * pas;
+				int n = nombre[x];
+				long somme = ARRONDI_RVB;
+				int a = 0xFF;
+				if (opaque) {
+					for (int k = 0; k < n; k++) {
+						somme += rvb[i + k] * valeurs[w + k];
+					}
+				} else {
+					a = ARRONDI;
+					for (int k = 0; k < n; k++) {
+						int c = valeurs[w + k];
+						somme += rvb[i + k] * c;
+						a += alpha[i + k] * c;
+					}
+					a = NoyauxCouleur.borner(a >> PRECISION);
+				}
+				intermediaire[iInter + x] = (a << 24) | assembler(somme);
+			}
+		}
+	}
+
+	/**
+	 * Passe verticale : combine les lignes intermédiaires de chaque ligne de
+	 * destination (les lignes sont lues en parallèle, chacune en séquence),
+	 * puis repasse en alpha non prémultiplié.
+	 */
+	private static void passeVerticale(int[] intermediaire, boolean[] opaques, int largeur, int premiere, Poids poids,
+			TamponPixels dest, int yDebut, int yFin) {
+		int[] valeurs = poids.valeurs;
+		for (int y = yDebut; y < yFin; y++) {
+			int base = y * poids.pas;
+			int n = poids.nombre[y];
+			int iPremiere = (poids.debut[y] - premiere) * largeur;
+			int iDest = dest.indice(0, y);
+			boolean opaque = true;
+			for (int k = 0; k < n; k++) {
+				opaque &= opaques[poids.debut[y] - premiere + k];
+			}
+
+			if (opaque) {
+				for (int x = 0; x < largeur; x++) {
+					long somme = ARRONDI_RVB;
+					int i = iPremiere + x;
+					for (int k = 0; k < n; k++, i += largeur) {
+						somme += eclater(intermediaire[i]) * valeurs[base + k];
+					}
+					dest.pixels[iDest + x] = 0xFF000000 | assembler(somme);
+				}
+				continue;
+			}
+
+			for (int x = 0; x < largeur; x++) {
+				long somme = ARRONDI_RVB;
+				int a = ARRONDI;
+				int i = iPremiere + x;
+				for (int k = 0; k < n; k++, i += largeur) {
+					int p = intermediaire[i];
+					int c = valeurs[base + k];
+					somme += eclater(p) * c;
+					a += (p >>> 24) * c;
+				}
+				a = NoyauxCouleur.borner(a >> PRECISION);
+				if (a == 0) {
+					dest.pixels[iDest + x] = 0;
+					continue;
+				}
+				int rvb = assembler(somme);
+				int r = Math.min(a, (rvb >> 16) & 0xFF);
+				int g = Math.min(a, (rvb >> 8) & 0xFF);
+				int b = Math.min(a, rvb & 0xFF);
+				if (a < 255) {
+					int moitie = a >> 1;
+					r = (r * 255 + moitie) / a;
+					g = (g * 255 + moitie) / a;
+					b = (b * 255 + moitie) / a;
+				}
+				dest.pixels[iDest + x] = (a << 24) | (r << 16) | (g << 8) | b;
+			}
+		}
+	}
+
+	/**
+	 * Range les trois composantes d'un pixel dans trois champs de 21 bits d'un
+	 * long : une seule multiplication par le poids traite alors les trois.
+	 * Les sommes restent exactes dans chaque champ tant qu'elles tiennent sur
+	 * 21 bits signés, ce que garantit la précision des poids.
+	 */
+	private static long eclater(int p) {
+		return ((long) ((p >> 16) & 0xFF) << (2 * CHAMP)) | ((long) ((p >> 8) & 0xFF) << CHAMP) | (p & 0xFF);
+	}
+
+	/**
+	 * Reconstitue les composantes RVB à partir d'une somme de pixels éclatés.
+	 * Chaque champ est lu comme un entier signé puis retiré de la somme,
+	 * ce qui annule la retenue qu'il a pu propager au champ suivant.
+	 */
+	private static int assembler(long somme) {
+		int b = (int) (somme << (64 - CHAMP) >> (64 - CHAMP));
+		somme = (somme - b) >> CHAMP;
+		int g = (int) (somme << (64 - CHAMP) >> (64 - CHAMP));
+		int r = (int) ((somme - g) >> CHAMP);
+		return (NoyauxCouleur.borner(r >> PRECISION) << 16) | (NoyauxCouleur.borner(g >> PRECISION) << 8)
+				| NoyauxCouleur.borner(b >> PRECISION);
+	}
+
+	/**
+	 * Copie une ligne en alpha prémultiplié.
+	 */
+	private static void premultiplier(int[] pixels, int origine, int[] ligne, int largeur) {
+		for (int x = 0; x < largeur; x++) {
+			int p = pixels[origine + x];
+			int a = p >>> 24;
+			if (a == 0xFF) {
+				ligne[x] = p;
+			} else {
+				int r = ((p >> 16) & 0xFF) * a + 127;
+				int g = ((p >> 8) & 0xFF) * a + 127;
+				int b = (p & 0xFF) * a + 127;
+				ligne[x] = (a << 24) | (((r + (r >> 8)) >> 8) << 16) | (((g + (g >> 8)) >> 8) << 8) | ((b + (b >> 8)) >> 8);
+			}
+		}
+	}
+
+	/**
+	 * Plus proche voisin : chaque pixel de destination recopie le pixel source
+	 * contenant son centre. Les colonnes source sont calculées une seule fois.
+	 */
+	private static void plusProche(TamponPixels src, TamponPixels dest, ExecuteurTuiles executeur) {
+		double echelleX = (double) src.largeur / dest.largeur;
+		double echelleY = (double) src.hauteur / dest.hauteur;
+		int[] colonnes = new int[dest.largeur];
+		for (int x = 0; x < dest.largeur; x++) {
+			colonnes[x] = Math.min(src.largeur - 1, (int) ((x + 0.5) * echelleX));
+		}
+		executeur.parcourirLignes(dest.largeur, dest.hauteur, (yDebut, yFin) -> {
+			for (int y = yDebut; y < yFin; y++) {
+				int ySource = Math.min(src.hauteur - 1, (int) ((y + 0.5) * echelleY));
+				int iSource = src.indice(0, ySource);
+				int iDest = dest.indice(0, y);
+				for (int x = 0; x < dest.largeur; x++) {
+					dest.pixels[iDest + x] = src.pixels[iSource + colonnes[x]] | src.alphaFixe;
+				}
+			}
+		});
+	}
+}
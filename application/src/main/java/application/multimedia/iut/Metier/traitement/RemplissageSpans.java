@@ -0,0 +1,200 @@
+/**
+ * Classe implémentant le remplissage par segments (scanline) du pot de peinture.
+ * Travaille directement sur le tableau de pixels sans allocation par pixel.
+ * 
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.Rectangle;
+import java.util.Arrays;
+
+/**
+ * Remplissage 4-connexe par segments horizontaux.
+ * La pile contient des germes (un par segment voisin à explorer) et non des
+ * pixels, et les pixels visités sont suivis dans un ensemble de bits (1 bit
+ * par pixel au lieu d'un boolean[][]). La région obtenue est exactement celle
+ * de l'ancien parcours pixel par pixel : la composante 4-connexe du point de
+ * départ parmi les pixels dont la distance RGB à la couleur d'origine est
+ * inférieure ou égale à la tolérance.
+ */
+public final class RemplissageSpans {
+
+	private RemplissageSpans() {
+	}
+
+	/**
+	 * Remplit la région contiguë contenant le point de départ.
+	 *
+	 * @param tampon Le tampon de pixels (modifié).
+	 * @param x La coordonnée X de départ.
+	 * @param y La coordonnée Y de départ.
+	 * @param coulOrig La couleur d'origine à remplacer (RGB sans alpha).
+	 * @param coul La couleur de remplissage (ARGB).
+	 * @param tolerance La tolérance de distance euclidienne RGB.
+	 * @return Le nombre de pixels remplis.
+	 */
+	public static int remplir(TamponPixels tampon, int x, int y, int coulOrig, int coul, double tolerance) {
+		return remplir(tampon, x, y, coulOrig, coul, tolerance, null);
+	}
+
+	/**
+	 * Remplit la région contiguë contenant le point de départ et donne la zone
+	 * qui l'englobe.
+	 *
+	 * @param tampon Le tampon de pixels (modifié).
+	 * @param x La coordonnée X de départ.
+	 * @param y La coordonnée Y de départ.
+	 * @param coulOrig La couleur d'origine à remplacer (RGB sans alpha).
+	 * @param coul La couleur de remplissage (ARGB).
+	 * @param tolerance La tolérance de distance euclidienne RGB.
+	 * @param zone Reçoit le rectangle englobant les pixels remplis (vide si aucun), ou null.
+	 * @return Le nombre de pixels remplis.
+	 */
+	public static int remplir(TamponPixels tampon, int x, int y, int coulOrig, int coul, double tolerance,
+			Rectangle zone) {
+		if (zone != null) zone.setBounds(0, 0, 0, 0);
+		int w = tampon.largeur;
+		int h = tampon.hauteur;
+		if (x < 0 || x >= w || y < 0 || y >= h) return 0;
+
+		int seuil = seuilCarre(tolerance);
+		if (seuil < 0) return 0;
+
+		int[] pixels = tampon.pixels;
+		long[] visites = new long[(int) (((long) w * h + 63) >>> 6)];
+		PileEntiers germes = new PileEntiers();
+		germes.empiler(y * w + x);
+		int remplis = 0;
+		int minX = w, minY = h, maxX = -1, maxY = -1;
+
+		while (!germes.estVide()) {
+			int germe = germes.depiler();
+			int gy = germe / w;
+			int gx = germe - gy * w;
+			int ligne = tampon.indice(0, gy);
+			int base = gy * w;
+
+			if (estVisite(visites, base + gx) || distanceCarre(pixels[ligne + gx], coulOrig) > seuil) {
+				marquer(visites, base + gx);
+				continue;
+			}
+
+			// Extension du segment vers la gauche et vers la droite
+			int gauche = gx;
+			while (gauche > 0 && !estVisite(visites, base + gauche - 1)
+					&& distanceCarre(pixels[ligne + gauche - 1], coulOrig) <= seuil) {
+				gauche--;
+			}
+			int droite = gx;
+			while (droite < w - 1 && !estVisite(visites, base + droite + 1)
+					&& distanceCarre(pixels[ligne + droite + 1], coulOrig) <= seuil) {
+				droite++;
+			}
+
+			for (int i = gauche; i <= droite; i++) {
+				marquer(visites, base + i);
+				pixels[ligne + i] = coul;
+			}
+			remplis += droite - gauche + 1;
+			if (gauche < minX) minX = gauche;
+			if (droite > maxX) maxX = droite;
+			if (gy < minY) minY = gy;
+			if (gy > maxY) maxY = gy;
+
+			if (gy > 0) empilerSegments(tampon, visites, germes, coulOrig, seuil, gauche, droite, gy - 1);
+			if (gy < h - 1) empilerSegments(tampon, visites, germes, coulOrig, seuil, gauche, droite, gy + 1);
+		}
+		if (zone != null && remplis > 0) zone.setBounds(minX, minY, maxX - minX + 1, maxY - minY + 1);
+		return remplis;
+	}
+
+	/**
+	 * Empile un germe pour chaque suite de pixels voisins à remplir sur une ligne.
+	 * Les pixels rejetés sont marqués pour ne plus être testés.
+	 */
+	private static void empilerSegments(TamponPixels tampon, long[] visites, PileEntiers germes, int coulOrig,
+			int seuil, int gauche, int droite, int y) {
+		int[] pixels = tampon.pixels;
+		int ligne = tampon.indice(0, y);
+		int base = y * tampon.largeur;
+		boolean dansSegment = false;
+		for (int i = gauche; i <= droite; i++) {
+			if (estVisite(visites, base + i)) {
+				dansSegment = false;
+				continue;
+			}
+			if (distanceCarre(pixels[ligne + i], coulOrig) <= seuil) {
+				if (!dansSegment) {
+					germes.empiler(base + i);
+					dansSegment = true;
+				}
+			} else {
+				marquer(visites, base + i);
+				dansSegment = false;
+			}
+		}
+	}
+
+	/**
+	 * Convertit une tolérance euclidienne en seuil sur la distance au carré.
+	 * Le seuil est le plus grand entier d tel que Math.sqrt(d) &lt;= tolérance,
+	 * ce qui reproduit exactement la comparaison avec la distance en double.
+	 *
+	 * @param tolerance La tolérance euclidienne.
+	 * @return Le seuil sur la distance au carré, ou -1 si aucune couleur ne passe.
+	 */
+	public static int seuilCarre(double tolerance) {
+		if (!(tolerance >= 0)) return -1;
+		if (tolerance >= 442) return 3 * 255 * 255;
+		int seuil = (int) Math.floor(tolerance * tolerance);
+		while (seuil < 3 * 255 * 255 && Math.sqrt(seuil + 1) <= tolerance) seuil++;
+		while (seuil >= 0 && Math.sqrt(seuil) > tolerance) seuil--;
+		return seuil;
+	}
+
+	/**
+	 * Calcule le carré de la distance euclidienne entre deux couleurs RGB.
+	 * Ignore le canal alpha.
+	 *
+	 * @param c1 La première couleur (ARGB).
+	 * @param c2 La deuxième couleur (ARGB).
+	 * @return La distance au carré (0-195075).
+	 */
+	public static int distanceCarre(int c1, int c2) {
+		int dr = ((c1 >> 16) & 0xFF) - ((c2 >> 16) & 0xFF);
+		int dg = ((c1 >> 8) & 0xFF) - ((c2 >> 8) & 0xFF);
+		int db = (c1 & 0xFF) - (c2 & 0xFF);
+		return dr * dr + dg * dg + db * db;
+	}
+
+	private static boolean estVisite(long[] visites, int i) {
+		return (visites[i >>> 6] & (1L << i)) != 0;
+	}
+
+	private static void marquer(long[] visites, int i) {
+		visites[i >>> 6] |= 1L << i;
+	}
+
+	/**
+	 * Pile d'entiers sans boxing, agrandie à la demande.
+	 */
+	private static final class PileEntiers {
+		private int[] valeurs = new int[256];
+		private int taille;
+
+		void empiler(int v) {
+			if (taille == valeurs.length) valeurs = Arrays.copyOf(valeurs, taille * 2);
+			valeurs[taille++] = v;
+		}
+
+		int depiler() {
+			return valeurs[--taille];
+		}
+
+		boolean estVide() {
+			return taille == 0;
+		}
+	}
+}
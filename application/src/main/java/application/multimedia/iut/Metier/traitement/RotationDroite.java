@@ -0,0 +1,140 @@
+/**
+ * Classe réalisant les rotations d'un quart de tour sur les pixels bruts.
+ * Parcourt l'image par blocs tenant dans le cache, en parallèle.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Rotations de 90°, 180° et 270° sans rééchantillonnage.
+ * <p>
+ * À 90° et 270°, une ligne de la destination est une colonne de la source :
+ * un parcours ligne par ligne saute d'une ligne source à chaque pixel et
+ * ne réutilise jamais les lignes de cache chargées. L'image est donc traitée
+ * par blocs carrés dont les lignes source et destination tiennent ensemble
+ * dans le cache L1 ; chaque bloc écrit ses lignes de destination en continu.
+ * À 180°, l'ordre des lignes est simplement inversé et le parcours reste linéaire.
+ */
+public final class RotationDroite {
+	/** Côté d'un bloc : 64x64 pixels source et destination font 32 Ko. */
+	private static final int COTE_BLOC = 64;
+
+	private RotationDroite() {
+	}
+
+	/**
+	 * Fait pivoter une image d'un nombre de quarts de tour dans le sens horaire.
+	 *
+	 * @param image L'image source (non modifiée).
+	 * @param quarts Le nombre de quarts de tour (négatif pour le sens anti-horaire).
+	 * @return Une nouvelle image ARGB pivotée.
+	 */
+	public static BufferedImage pivoter(BufferedImage image, int quarts) {
+		return pivoter(image, quarts, ExecuteurTuiles.partage());
+	}
+
+	/**
+	 * Fait pivoter une image d'un nombre de quarts de tour avec l'exécuteur fourni.
+	 *
+	 * @param image L'image source (non modifiée).
+	 * @param quarts Le nombre de quarts de tour (négatif pour le sens anti-horaire).
+	 * @param executeur L'exécuteur qui répartit les blocs.
+	 * @return Une nouvelle image ARGB pivotée.
+	 */
+	public static BufferedImage pivoter(BufferedImage image, int quarts, ExecuteurTuiles executeur) {
+		quarts = Math.floorMod(quarts, 4);
+		int largeur = image.getWidth();
+		int hauteur = image.getHeight();
+		boolean transpose = (quarts & 1) != 0;
+		BufferedImage resultat = new BufferedImage(transpose ? hauteur : largeur, transpose ? largeur : hauteur,
+				BufferedImage.TYPE_INT_ARGB);
+		TamponPixels source = TamponPixels.ouvrir(image);
+		TamponPixels cible = TamponPixels.ouvrir(resultat);
+
+		switch (quarts) {
+		case 1:
+			executeur.parcourirTuiles(largeur, hauteur, COTE_BLOC, (xDebut, yDebut, xFin, yFin) ->
+					quartHoraire(source, cible, xDebut, yDebut, xFin, yFin));
+			break;
+		case 2:
+			executeur.parcourirLignes(largeur, hauteur, (yDebut, yFin) ->
+					demiTour(source, cible, yDebut, yFin));
+			break;
+		case 3:
+			executeur.parcourirTuiles(largeur, hauteur, COTE_BLOC, (xDebut, yDebut, xFin, yFin) ->
+					quartAntihoraire(source, cible, xDebut, yDebut, xFin, yFin));
+			break;
+		default:
+			executeur.parcourirLignes(largeur, hauteur, (yDebut, yFin) -> {
+				for (int y = yDebut; y < yFin; y++) {
+					source.copierArgb(source.indice(0, y), cible.pixels, cible.indice(0, y), largeur);
+				}
+			});
+			break;
+		}
+		return resultat;
+	}
+
+	/**
+	 * 90° horaire d'un bloc : le pixel (x, y) va en (hauteur - 1 - y, x).
+	 * La colonne x du bloc, lue de bas en haut, remplit la ligne x de la destination.
+	 */
+	private static void quartHoraire(TamponPixels source, TamponPixels cible,
+			int xDebut, int yDebut, int xFin, int yFin) {
+		int[] src = source.pixels;
+		int[] dst = cible.pixels;
+		int alphaFixe = source.alphaFixe;
+		int pas = source.pas;
+		int colonne = source.hauteur - yFin;
+		for (int x = xDebut; x < xFin; x++) {
+			int d = cible.indice(colonne, x);
+			int s = source.indice(x, yFin - 1);
+			for (int y = yFin; y > yDebut; y--) {
+				dst[d++] = src[s] | alphaFixe;
+				s -= pas;
+			}
+		}
+	}
+
+	/**
+	 * 270° horaire d'un bloc : le pixel (x, y) va en (y, largeur - 1 - x).
+	 * La colonne x du bloc, lue de haut en bas, remplit la ligne largeur - 1 - x.
+	 */
+	private static void quartAntihoraire(TamponPixels source, TamponPixels cible,
+			int xDebut, int yDebut, int xFin, int yFin) {
+		int[] src = source.pixels;
+		int[] dst = cible.pixels;
+		int alphaFixe = source.alphaFixe;
+		int pas = source.pas;
+		int derniere = source.largeur - 1;
+		for (int x = xDebut; x < xFin; x++) {
+			int d = cible.indice(yDebut, derniere - x);
+			int s = source.indice(x, yDebut);
+			for (int y = yDebut; y < yFin; y++) {
+				dst[d++] = src[s] | alphaFixe;
+				s += pas;
+			}
+		}
+	}
+
+	/**
+	 * 180° d'une bande : la ligne y, lue de droite à gauche, devient la ligne hauteur - 1 - y.
+	 */
+	private static void demiTour(TamponPixels source, TamponPixels cible, int yDebut, int yFin) {
+		int[] src = source.pixels;
+		int[] dst = cible.pixels;
+		int alphaFixe = source.alphaFixe;
+		int largeur = source.largeur;
+		for (int y = yDebut; y < yFin; y++) {
+			int s = source.indice(largeur - 1, y);
+			int d = cible.indice(0, source.hauteur - 1 - y);
+			for (int x = 0; x < largeur; x++) {
+				dst[d++] = src[s--] | alphaFixe;
+			}
+		}
+	}
+}
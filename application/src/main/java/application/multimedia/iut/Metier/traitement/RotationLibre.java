@@ -0,0 +1,54 @@
+/**
+ * Classe réalisant la rotation d'une image d'un angle quelconque.
+ * Avance les coordonnées source en virgule fixe le long de chaque ligne.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Rotation d'un angle quelconque autour du centre de l'image.
+ * <p>
+ * Le long d'une ligne de destination, les coordonnées source avancent d'un
+ * pas constant (cos, -sin), en virgule fixe (voir EchantillonnageAffine) ;
+ * hors de l'intervalle de chaque ligne qui tombe dans la source, la
+ * destination reste transparente (noire) sans être parcourue. Les lignes sont
+ * traitées en parallèle, au plus proche voisin ou en bilinéaire.
+ */
+public final class RotationLibre {
+	private RotationLibre() {
+	}
+
+	/**
+	 * Fait pivoter une image d'un angle quelconque dans le sens horaire.
+	 * L'image produite englobe toute l'image pivotée.
+	 *
+	 * @param image L'image source (non modifiée).
+	 * @param angleDeg L'angle en degrés.
+	 * @param bilineaire true pour interpoler entre les 4 pixels voisins, false pour le plus proche.
+	 * @return Une nouvelle image ARGB pivotée, transparente hors de la source.
+	 */
+	public static BufferedImage pivoter(BufferedImage image, double angleDeg, boolean bilineaire) {
+		int largeurSource = image.getWidth();
+		int hauteurSource = image.getHeight();
+
+		double angle = Math.toRadians(angleDeg);
+		double cos = Math.cos(angle);
+		double sin = Math.sin(angle);
+		int largeur = (int) Math.ceil(largeurSource * Math.abs(cos) + hauteurSource * Math.abs(sin));
+		int hauteur = (int) Math.ceil(hauteurSource * Math.abs(cos) + largeurSource * Math.abs(sin));
+		BufferedImage resultat = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_ARGB);
+
+		// Centres entiers comme l'ancienne rotation ; le demi-pixel ajouté rend
+		// le plus proche voisin égal à round(x) = floor(x + 0.5)
+		double[] matrice = {
+				cos, sin, largeurSource / 2 + 0.5,
+				-sin, cos, hauteurSource / 2 + 0.5 };
+		EchantillonnageAffine.echantillonner(TamponPixels.ouvrir(image), TamponPixels.ouvrir(resultat),
+				largeur / 2, hauteur / 2, matrice, bilineaire);
+		return resultat;
+	}
+}
@@ -0,0 +1,334 @@
+/**
+ * Classe représentant une session du pot de peinture.
+ * Garde la carte des distances d'un clic pour changer la tolérance sans tout recalculer.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+/**
+ * Session de remplissage d'un clic du pot de peinture, utilisée pour changer
+ * la tolérance après coup. Elle garde une copie des pixels d'origine et les
+ * coûts de chaque pixel (12 à 16 octets par pixel) : elle n'est ouverte que
+ * lorsque la tolérance change et doit être abandonnée dès que le remplissage
+ * est validé.
+ * <p>
+ * Chaque pixel reçoit un coût : en mode global, le carré de sa distance RGB à
+ * la couleur d'origine ; en mode contigu, le coût minimax du meilleur chemin
+ * 4-connexe depuis le point de départ (la plus grande distance rencontrée le
+ * long du chemin). La région remplie pour une tolérance est alors exactement
+ * l'ensemble des pixels de coût inférieur ou égal au seuil, soit la même région
+ * que {@link RemplissageSpans} ou Colorisation.remplacerCouleur.
+ * <p>
+ * Les pixels sont rangés par coût croissant : changer la tolérance ne touche
+ * que les pixels entre l'ancien et le nouveau seuil. En mode contigu, le
+ * parcours (file à seaux indexée par le coût) n'avance que jusqu'au plus grand
+ * seuil demandé et reprend là où il s'était arrêté.
+ */
+public final class SessionRemplissage {
+	private static final int COUT_MAX = 3 * 255 * 255;
+	private static final int AUCUN = -1;
+
+	private final BufferedImage image;
+	private final int largeur;
+	private final int hauteur;
+	private final int coulOrig;
+	private final boolean continu;
+
+	/** Les pixels de l'image à l'ouverture de la session, ligne par ligne. */
+	private final int[] originaux;
+	/** Le coût de chaque pixel (AUCUN tant qu'il n'est pas atteint en mode contigu). */
+	private final int[] couts;
+	/** Les pixels classés par coût croissant ; seuls les nombreClasses premiers sont définitifs. */
+	private final int[] ordre;
+	private int nombreClasses;
+
+	// File à seaux du mode contigu : une liste chaînée de pixels par coût
+	private int[] tetes;
+	private int[] suivants;
+	private int niveau;
+
+	private int remplis;
+	private int couleurAppliquee;
+
+	private SessionRemplissage(BufferedImage image, BufferedImage source, int x, int y, boolean continu) {
+		this.image = image;
+		this.largeur = image.getWidth();
+		this.hauteur = image.getHeight();
+		this.continu = continu;
+		this.originaux = copierPixels(source);
+		this.coulOrig = originaux[y * largeur + x] & 0xFFFFFF;
+		int n = largeur * hauteur;
+		this.couts = new int[n];
+		this.ordre = new int[n];
+	}
+
+	/**
+	 * Copie les pixels ARGB de l'image ligne par ligne, sans passer par getRGB
+	 * lorsque le raster est directement accessible.
+	 */
+	private static int[] copierPixels(BufferedImage image) {
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		if (!tampon.estDirect()) return tampon.pixels;
+		int[] copie = new int[tampon.largeur * tampon.hauteur];
+		for (int y = 0; y < tampon.hauteur; y++) {
+			tampon.copierArgb(tampon.indice(0, y), copie, y * tampon.largeur, tampon.largeur);
+		}
+		return copie;
+	}
+
+	/**
+	 * Ouvre une session sur l'image à partir d'un point de départ.
+	 * L'image n'est pas modifiée tant que {@link #appliquer} n'est pas appelée.
+	 *
+	 * @param image L'image à remplir.
+	 * @param x La coordonnée X du point de départ.
+	 * @param y La coordonnée Y du point de départ.
+	 * @param continu true pour le remplissage contigu, false pour le remplacement global.
+	 * @return La session ouverte.
+	 * @throws IllegalArgumentException si le point est hors de l'image.
+	 */
+	public static SessionRemplissage ouvrir(BufferedImage image, int x, int y, boolean continu) {
+		if (x < 0 || x >= image.getWidth() || y < 0 || y >= image.getHeight()) {
+			throw new IllegalArgumentException("Point de départ hors de l'image : " + x + ", " + y);
+		}
+		SessionRemplissage session = new SessionRemplissage(image, image, x, y, continu);
+		session.classer(x, y);
+		return session;
+	}
+
+	/**
+	 * Reprend la session d'un remplissage déjà appliqué à l'image, à partir
+	 * d'une copie de l'image avant ce remplissage (celle de l'historique).
+	 * La copie n'est acceptée que si l'image en diffère exactement par la
+	 * région remplie à la tolérance donnée.
+	 *
+	 * @param image L'image remplie.
+	 * @param avant L'image avant le remplissage (non modifiée).
+	 * @param x La coordonnée X du point de départ.
+	 * @param y La coordonnée Y du point de départ.
+	 * @param continu true pour le remplissage contigu, false pour le remplacement global.
+	 * @param couleur La couleur du remplissage appliqué (ARGB).
+	 * @param tolerance La tolérance du remplissage appliqué.
+	 * @return La session, ou null si l'image avant ne correspond pas à ce remplissage.
+	 */
+	public static SessionRemplissage reprendre(BufferedImage image, BufferedImage avant, int x, int y,
+			boolean continu, int couleur, double tolerance) {
+		if (avant.getWidth() != image.getWidth() || avant.getHeight() != image.getHeight()
+				|| x < 0 || x >= image.getWidth() || y < 0 || y >= image.getHeight()) {
+			return null;
+		}
+		SessionRemplissage session = new SessionRemplissage(image, avant, x, y, continu);
+		session.classer(x, y);
+		int seuil = RemplissageSpans.seuilCarre(tolerance);
+		int cible = 0;
+		if (seuil >= 0) {
+			if (continu) session.avancer(seuil);
+			cible = session.compter(seuil);
+		}
+		if (!session.estRemplie(cible, couleur)) return null;
+		session.remplis = cible;
+		session.couleurAppliquee = couleur;
+		return session;
+	}
+
+	private void classer(int x, int y) {
+		if (continu) {
+			initialiserParcours(y * largeur + x);
+		} else {
+			classerTout();
+		}
+	}
+
+	/**
+	 * Vérifie que l'image est exactement l'image d'origine dont les cible
+	 * premiers pixels de l'ordre ont reçu la couleur.
+	 */
+	private boolean estRemplie(int cible, int couleur) {
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		int attendue = couleur | tampon.alphaFixe;
+		int changes = 0;
+		for (int k = 0; k < cible; k++) {
+			int p = ordre[k];
+			int py = p / largeur;
+			if (tampon.argb(tampon.indice(p - py * largeur, py)) != attendue) return false;
+			if (originaux[p] != attendue) changes++;
+		}
+		int differences = 0;
+		for (int y = 0; y < hauteur; y++) {
+			int ligne = tampon.indice(0, y);
+			int base = y * largeur;
+			for (int x = 0; x < largeur; x++) {
+				if (tampon.argb(ligne + x) != originaux[base + x]) differences++;
+			}
+		}
+		return differences == changes;
+	}
+
+	/**
+	 * Obtient l'image remplie par la session.
+	 *
+	 * @return L'image de la session.
+	 */
+	public BufferedImage image() {
+		return image;
+	}
+
+	/**
+	 * Obtient le nombre de pixels actuellement remplis.
+	 *
+	 * @return Le nombre de pixels de la région.
+	 */
+	public int nombreRemplis() {
+		return remplis;
+	}
+
+	/**
+	 * Remplit la région correspondant à une tolérance.
+	 * Seuls les pixels qui entrent dans la région, qui en sortent (restaurés),
+	 * ou dont la couleur change sont réécrits.
+	 *
+	 * @param couleur La couleur de remplissage (ARGB).
+	 * @param tolerance La tolérance de distance euclidienne RGB (0-441).
+	 * @return La zone de l'image modifiée, ou null si aucun pixel n'a changé.
+	 */
+	public Rectangle appliquer(int couleur, double tolerance) {
+		int seuil = RemplissageSpans.seuilCarre(tolerance);
+		int cible = 0;
+		if (seuil >= 0) {
+			if (continu) avancer(seuil);
+			cible = compter(seuil);
+		}
+
+		int debut = couleur == couleurAppliquee ? Math.min(cible, remplis) : 0;
+		int fin = Math.max(cible, remplis);
+		couleurAppliquee = couleur;
+		if (debut >= fin) {
+			remplis = cible;
+			return null;
+		}
+
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		int[] pixels = tampon.pixels;
+		int minX = largeur, minY = hauteur, maxX = -1, maxY = -1;
+		for (int k = debut; k < fin; k++) {
+			int p = ordre[k];
+			int py = p / largeur;
+			int px = p - py * largeur;
+			pixels[tampon.indice(px, py)] = k < cible ? couleur : originaux[p];
+			if (px < minX) minX = px;
+			if (px > maxX) maxX = px;
+			if (py < minY) minY = py;
+			if (py > maxY) maxY = py;
+		}
+		tampon.valider();
+		remplis = cible;
+		return new Rectangle(minX, minY, maxX - minX + 1, maxY - minY + 1);
+	}
+
+	/**
+	 * Restaure tous les pixels remplis par la session.
+	 *
+	 * @return La zone de l'image modifiée, ou null si rien n'était rempli.
+	 */
+	public Rectangle annuler() {
+		return appliquer(couleurAppliquee, -1);
+	}
+
+	/**
+	 * Compte les pixels classés dont le coût ne dépasse pas le seuil.
+	 * Les coûts de l'ordre étant croissants, une recherche dichotomique suffit.
+	 */
+	private int compter(int seuil) {
+		int bas = 0;
+		int haut = nombreClasses;
+		while (bas < haut) {
+			int milieu = (bas + haut) >>> 1;
+			if (couts[ordre[milieu]] <= seuil) {
+				bas = milieu + 1;
+			} else {
+				haut = milieu;
+			}
+		}
+		return bas;
+	}
+
+	/**
+	 * Mode global : calcule toutes les distances en parallèle puis range les
+	 * pixels par un tri par dénombrement sur le coût.
+	 */
+	private void classerTout() {
+		ExecuteurTuiles.partage().parcourirLignes(largeur, hauteur, (yDebut, yFin) -> {
+			for (int i = yDebut * largeur; i < yFin * largeur; i++) {
+				couts[i] = RemplissageSpans.distanceCarre(originaux[i], coulOrig);
+			}
+		});
+		int[] positions = new int[COUT_MAX + 2];
+		for (int c : couts) {
+			positions[c + 1]++;
+		}
+		for (int c = 0; c <= COUT_MAX; c++) {
+			positions[c + 1] += positions[c];
+		}
+		for (int p = 0; p < couts.length; p++) {
+			ordre[positions[couts[p]]++] = p;
+		}
+		nombreClasses = couts.length;
+	}
+
+	/**
+	 * Mode contigu : place le point de départ (coût 0) dans la file à seaux.
+	 */
+	private void initialiserParcours(int depart) {
+		Arrays.fill(couts, AUCUN);
+		tetes = new int[COUT_MAX + 1];
+		Arrays.fill(tetes, AUCUN);
+		suivants = new int[couts.length];
+		couts[depart] = 0;
+		suivants[depart] = AUCUN;
+		tetes[0] = depart;
+	}
+
+	/**
+	 * Mode contigu : classe tous les pixels de coût inférieur ou égal au seuil.
+	 * Les pixels sont extraits par coût croissant ; un voisin découvert reçoit
+	 * le maximum entre le coût courant et sa propre distance, qui est son coût
+	 * définitif puisque le premier voisin classé est celui de plus petit coût.
+	 */
+	private void avancer(int seuil) {
+		while (niveau <= seuil) {
+			int p = tetes[niveau];
+			if (p == AUCUN) {
+				if (++niveau > COUT_MAX) break;
+				continue;
+			}
+			tetes[niveau] = suivants[p];
+			ordre[nombreClasses++] = p;
+
+			int py = p / largeur;
+			int px = p - py * largeur;
+			if (px > 0) decouvrir(p - 1);
+			if (px < largeur - 1) decouvrir(p + 1);
+			if (py > 0) decouvrir(p - largeur);
+			if (py < hauteur - 1) decouvrir(p + largeur);
+		}
+		if (niveau > COUT_MAX) {
+			// Parcours terminé : la file n'est plus utile
+			tetes = null;
+			suivants = null;
+		}
+	}
+
+	private void decouvrir(int q) {
+		if (couts[q] != AUCUN) return;
+		int cout = Math.max(niveau, RemplissageSpans.distanceCarre(originaux[q], coulOrig));
+		couts[q] = cout;
+		suivants[q] = tetes[cout];
+		tetes[cout] = q;
+	}
+}
@@ -0,0 +1,253 @@
+/**
+ * Classe calculant les statistiques tonales d'une image.
+ * Histogrammes par composante et de luminance, moyenne, extrêmes et centiles.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Statistiques d'une image, calculées en un seul parcours parallèle : chaque
+ * thread remplit ses propres histogrammes, fusionnés à la fin. Toutes les
+ * autres valeurs (moyenne, minimum, maximum, centiles) sont déduites des
+ * histogrammes. Les pixels totalement transparents sont ignorés.
+ */
+public final class StatistiquesImage {
+	/** Indice de la composante rouge. */
+	public static final int ROUGE = 0;
+	/** Indice de la composante verte. */
+	public static final int VERT = 1;
+	/** Indice de la composante bleue. */
+	public static final int BLEU = 2;
+	/** Indice de la luminance ((max + min) / 2, comme Colorisation.luminance). */
+	public static final int LUMINANCE = 3;
+
+	private static final int CANAUX = 4;
+
+	private final int[][] histogrammes;
+	private final int nombrePixels;
+
+	private StatistiquesImage(int[] cumul) {
+		histogrammes = new int[CANAUX][256];
+		for (int c = 0; c < CANAUX; c++) {
+			System.arraycopy(cumul, c * 256, histogrammes[c], 0, 256);
+		}
+		int total = 0;
+		for (int n : histogrammes[LUMINANCE]) total += n;
+		nombrePixels = total;
+	}
+
+	/**
+	 * Calcule les statistiques d'une image avec l'exécuteur partagé.
+	 *
+	 * @param image L'image à analyser (non modifiée).
+	 * @return Les statistiques de l'image.
+	 */
+	public static StatistiquesImage calculer(BufferedImage image) {
+		return calculer(image, ExecuteurTuiles.partage());
+	}
+
+	/**
+	 * Calcule les statistiques d'une image.
+	 *
+	 * @param image L'image à analyser (non modifiée).
+	 * @param executeur L'exécuteur répartissant les lignes.
+	 * @return Les statistiques de l'image.
+	 */
+	public static StatistiquesImage calculer(BufferedImage image, ExecuteurTuiles executeur) {
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		int[] cumul = executeur.reduireLignes(tampon.largeur, tampon.hauteur, () -> new int[CANAUX * 256],
+				(partiel, yDebut, yFin) -> accumuler(tampon, yDebut, yFin, partiel),
+				StatistiquesImage::fusionner);
+		return new StatistiquesImage(cumul);
+	}
+
+	/**
+	 * Ajoute les pixels d'une bande de lignes aux histogrammes partiels.
+	 *
+	 * @param tampon Le tampon de pixels.
+	 * @param yDebut La première ligne (incluse).
+	 * @param yFin La dernière ligne (exclue).
+	 * @param histo Les quatre histogrammes partiels, à la suite.
+	 */
+	private static void accumuler(TamponPixels tampon, int yDebut, int yFin, int[] histo) {
+		int[] pixels = tampon.pixels;
+		int alphaFixe = tampon.alphaFixe;
+		for (int y = yDebut; y < yFin; y++) {
+			int debut = tampon.indice(0, y);
+			int fin = debut + tampon.largeur;
+			for (int i = debut; i < fin; i++) {
+				int argb = pixels[i] | alphaFixe;
+				if ((argb >>> 24) == 0) continue;
+				int r = (argb >> 16) & 0xFF;
+				int g = (argb >> 8) & 0xFF;
+				int b = argb & 0xFF;
+				histo[r]++;
+				histo[256 + g]++;
+				histo[512 + b]++;
+				int min = Math.min(r, Math.min(g, b));
+				int max = Math.max(r, Math.max(g, b));
+				histo[768 + ((max + min) >> 1)]++;
+			}
+		}
+	}
+
+	private static int[] fusionner(int[] a, int[] b) {
+		for (int i = 0; i < a.length; i++) {
+			a[i] += b[i];
+		}
+		return a;
+	}
+
+	/**
+	 * Obtient le nombre de pixels pris en compte (non transparents).
+	 *
+	 * @return Le nombre de pixels analysés.
+	 */
+	public int nombrePixels() {
+		return nombrePixels;
+	}
+
+	/**
+	 * Obtient une copie de l'histogramme d'un canal.
+	 *
+	 * @param canal ROUGE, VERT, BLEU ou LUMINANCE.
+	 * @return Les 256 effectifs du canal.
+	 */
+	public int[] histogramme(int canal) {
+		return histogrammes[canal].clone();
+	}
+
+	/**
+	 * Obtient l'effectif d'une valeur d'un canal.
+	 *
+	 * @param canal ROUGE, VERT, BLEU ou LUMINANCE.
+	 * @param valeur La valeur (0-255).
+	 * @return Le nombre de pixels ayant cette valeur.
+	 */
+	public int effectif(int canal, int valeur) {
+		return histogrammes[canal][valeur];
+	}
+
+	/**
+	 * Calcule la moyenne d'un canal.
+	 *
+	 * @param canal ROUGE, VERT, BLEU ou LUMINANCE.
+	 * @return La valeur moyenne, ou 0 si aucun pixel.
+	 */
+	public double moyenne(int canal) {
+		if (nombrePixels == 0) return 0;
+		long somme = 0;
+		int[] histo = histogrammes[canal];
+		for (int v = 0; v < 256; v++) {
+			somme += (long) v * histo[v];
+		}
+		return (double) somme / nombrePixels;
+	}
+
+	/**
+	 * Obtient la plus petite valeur présente dans un canal.
+	 *
+	 * @param canal ROUGE, VERT, BLEU ou LUMINANCE.
+	 * @return La valeur minimale, ou 0 si aucun pixel.
+	 */
+	public int minimum(int canal) {
+		int[] histo = histogrammes[canal];
+		for (int v = 0; v < 256; v++) {
+			if (histo[v] > 0) return v;
+		}
+		return 0;
+	}
+
+	/**
+	 * Obtient la plus grande valeur présente dans un canal.
+	 *
+	 * @param canal ROUGE, VERT, BLEU ou LUMINANCE.
+	 * @return La valeur maximale, ou 0 si aucun pixel.
+	 */
+	public int maximum(int canal) {
+		int[] histo = histogrammes[canal];
+		for (int v = 255; v >= 0; v--) {
+			if (histo[v] > 0) return v;
+		}
+		return 0;
+	}
+
+	/**
+	 * Calcule un centile : la plus petite valeur telle qu'au moins le pourcentage
+	 * demandé des pixels lui soit inférieur ou égal.
+	 *
+	 * @param canal ROUGE, VERT, BLEU ou LUMINANCE.
+	 * @param pourcentage Le pourcentage (0-100).
+	 * @return La valeur du centile, ou 0 si aucun pixel.
+	 */
+	public int centile(int canal, double pourcentage) {
+		if (nombrePixels == 0) return 0;
+		pourcentage = Math.max(0, Math.min(100, pourcentage));
+		long seuil = Math.max(1, (long) Math.ceil(nombrePixels * pourcentage / 100.0));
+		int[] histo = histogrammes[canal];
+		long cumul = 0;
+		for (int v = 0; v < 256; v++) {
+			cumul += histo[v];
+			if (cumul >= seuil) return v;
+		}
+		return 255;
+	}
+
+	/**
+	 * Calcule la valeur pivot du contraste : la moyenne des trois composantes.
+	 *
+	 * @return Le pivot arrondi (0-255), ou 127 si aucun pixel.
+	 */
+	public int pivotContraste() {
+		if (nombrePixels == 0) return ChaineAjustements.PIVOT_DEFAUT;
+		return (int) Math.round((moyenne(ROUGE) + moyenne(VERT) + moyenne(BLEU)) / 3);
+	}
+
+	/**
+	 * Construit un contraste automatique : le même intervalle est étiré sur les
+	 * trois composantes, ce qui conserve les teintes.
+	 *
+	 * @param coupure Le pourcentage de pixels saturés à chaque extrémité (ex. 0.5).
+	 * @return La chaîne d'ajustements correspondante (vide si rien à étirer).
+	 */
+	public ChaineAjustements contrasteAuto(double coupure) {
+		int bas = 255;
+		int haut = 0;
+		for (int c = ROUGE; c <= BLEU; c++) {
+			bas = Math.min(bas, centile(c, coupure));
+			haut = Math.max(haut, centile(c, 100 - coupure));
+		}
+		ChaineAjustements chaine = new ChaineAjustements();
+		if (haut > bas && (bas > 0 || haut < 255)) {
+			chaine.niveaux(bas, haut);
+		}
+		return chaine;
+	}
+
+	/**
+	 * Construit des niveaux automatiques : chaque composante est étirée
+	 * indépendamment, ce qui corrige aussi une dominante de couleur.
+	 *
+	 * @param coupure Le pourcentage de pixels saturés à chaque extrémité (ex. 0.5).
+	 * @return La chaîne d'ajustements correspondante (vide si rien à étirer).
+	 */
+	public ChaineAjustements niveauxAuto(double coupure) {
+		int[] bas = new int[3];
+		int[] haut = new int[3];
+		boolean utile = false;
+		for (int c = ROUGE; c <= BLEU; c++) {
+			bas[c] = centile(c, coupure);
+			haut[c] = centile(c, 100 - coupure);
+			utile |= haut[c] > bas[c] && (bas[c] > 0 || haut[c] < 255);
+		}
+		ChaineAjustements chaine = new ChaineAjustements();
+		if (utile) {
+			chaine.niveaux(bas[ROUGE], haut[ROUGE], bas[VERT], haut[VERT], bas[BLEU], haut[BLEU]);
+		}
+		return chaine;
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * Classe représentant des tables de correspondance (LUT) par composante.
+ * Permet d'appliquer un ajustement ponctuel compilé en une seule passe.
+ * 
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.image.BufferedImage;
+
+/**
+ * Trois tables de 256 entrées (rouge, vert, bleu) issues de la compilation
+ * d'une {@link ChaineAjustements}. Les valeurs sont stockées déjà décalées à
+ * leur position dans le pixel ARGB pour limiter le travail par pixel.
+ */
+public final class TableCouleurs {
+	private final int[] rouge;
+	private final int[] vert;
+	private final int[] bleu;
+	private final boolean opaque;
+
+	/**
+	 * Crée des tables à partir des valeurs de sortie de chaque composante.
+	 *
+	 * @param rouge Les 256 valeurs de sortie du rouge (0-255).
+	 * @param vert Les 256 valeurs de sortie du vert (0-255).
+	 * @param bleu Les 256 valeurs de sortie du bleu (0-255).
+	 * @param opaque true si le résultat doit être opaque, false pour conserver l'alpha.
+	 */
+	TableCouleurs(int[] rouge, int[] vert, int[] bleu, boolean opaque) {
+		this.rouge = new int[256];
+		this.vert = new int[256];
+		this.bleu = new int[256];
+		for (int v = 0; v < 256; v++) {
+			this.rouge[v] = rouge[v] << 16;
+			this.vert[v] = vert[v] << 8;
+			this.bleu[v] = bleu[v];
+		}
+		this.opaque = opaque;
+	}
+
+	/**
+	 * Indique si les tables rendent les pixels opaques.
+	 *
+	 * @return true si l'alpha est forcé à 255, false s'il est conservé.
+	 */
+	public boolean estOpaque() {
+		return opaque;
+	}
+
+	/**
+	 * Obtient la valeur de sortie d'une composante.
+	 *
+	 * @param canal 0 pour le rouge, 1 pour le vert, 2 pour le bleu.
+	 * @param v La valeur d'entrée (0-255).
+	 * @return La valeur de sortie (0-255).
+	 */
+	public int valeur(int canal, int v) {
+		switch (canal) {
+			case 0: return rouge[v] >>> 16;
+			case 1: return vert[v] >>> 8;
+			default: return bleu[v];
+		}
+	}
+
+	/**
+	 * Applique les tables sur un pixel.
+	 *
+	 * @param argb Le pixel d'origine (ARGB).
+	 * @return Le pixel ajusté (ARGB).
+	 */
+	public int appliquer(int argb) {
+		int alpha = opaque ? 0xFF000000 : (argb & 0xFF000000);
+		return alpha | rouge[(argb >> 16) & 0xFF] | vert[(argb >> 8) & 0xFF] | bleu[argb & 0xFF];
+	}
+
+	/**
+	 * Applique les tables sur une bande de lignes d'un tampon.
+	 *
+	 * @param tampon Le tampon de pixels (modifié).
+	 * @param yDebut La première ligne traitée (incluse).
+	 * @param yFin La dernière ligne traitée (exclue).
+	 */
+	public void appliquer(TamponPixels tampon, int yDebut, int yFin) {
+		int[] pixels = tampon.pixels;
+		int[] r = rouge;
+		int[] g = vert;
+		int[] b = bleu;
+		int masqueAlpha = opaque ? 0 : 0xFF000000;
+		int alphaFixe = opaque ? 0xFF000000 : 0;
+
+		for (int y = yDebut; y < yFin; y++) {
+			int debut = tampon.indice(0, y);
+			int fin = debut + tampon.largeur;
+			for (int i = debut; i < fin; i++) {
+				int argb = pixels[i];
+				pixels[i] = (argb & masqueAlpha) | alphaFixe
+						| r[(argb >> 16) & 0xFF] | g[(argb >> 8) & 0xFF] | b[argb & 0xFF];
+			}
+		}
+	}
+
+	/**
+	 * Applique les tables sur une suite de pixels, d'un tableau vers un autre
+	 * (les deux peuvent être identiques).
+	 *
+	 * @param source Les pixels d'origine (ARGB).
+	 * @param debutSource L'indice du premier pixel lu.
+	 * @param dest Le tableau recevant les pixels ajustés.
+	 * @param debutDest L'indice du premier pixel écrit.
+	 * @param longueur Le nombre de pixels à traiter.
+	 */
+	public void appliquer(int[] source, int debutSource, int[] dest, int debutDest, int longueur) {
+		int[] r = rouge;
+		int[] g = vert;
+		int[] b = bleu;
+		int masqueAlpha = opaque ? 0 : 0xFF000000;
+		int alphaFixe = opaque ? 0xFF000000 : 0;
+
+		for (int k = 0; k < longueur; k++) {
+			int argb = source[debutSource + k];
+			dest[debutDest + k] = (argb & masqueAlpha) | alphaFixe
+					| r[(argb >> 16) & 0xFF] | g[(argb >> 8) & 0xFF] | b[argb & 0xFF];
+		}
+	}
+
+	/**
+	 * Applique les tables sur toute l'image, en une seule passe parallèle.
+	 *
+	 * @param image L'image à ajuster (modifiée).
+	 */
+	public void appliquer(BufferedImage image) {
+		TamponPixels tampon = TamponPixels.ouvrir(image);
+		ExecuteurTuiles.partage().parcourirLignes(tampon.largeur, tampon.hauteur,
+				(yDebut, yFin) -> appliquer(tampon, yDebut, yFin));
+		tampon.valider();
+	}
+}
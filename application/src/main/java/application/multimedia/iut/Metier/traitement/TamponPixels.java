@@ -0,0 +1,142 @@
+/**
+ * Classe donnant un accès direct au tableau de pixels d'une image.
+ * Évite les appels getRGB()/setRGB() pixel par pixel dans les traitements.
+ * 
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBuffer;
+import java.awt.image.DataBufferInt;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+
+/**
+ * Vue ligne par ligne (row-major) sur les pixels ARGB d'une image.
+ * Pour une image TYPE_INT_ARGB ou TYPE_INT_RGB, le tableau est celui du
+ * DataBufferInt et les écritures sont immédiates. Pour les autres types, les
+ * pixels sont copiés en un seul appel getRGB() puis recopiés par {@link #valider()}.
+ * <p>
+ * En TYPE_INT_RGB, l'octet de poids fort n'est pas lu par le modèle de couleur
+ * et vaut n'importe quoi (Java2D et setRGB y écrivent 0). Il n'est pas réécrit
+ * à l'ouverture : les traitements qui lisent l'alpha, ou recopient les pixels
+ * dans une image ARGB, ajoutent {@link #alphaFixe} aux pixels lus.
+ */
+public final class TamponPixels {
+	private final BufferedImage image;
+	private final boolean direct;
+
+	/** Les pixels ARGB (non prémultipliés). */
+	public final int[] pixels;
+	/** La largeur de l'image en pixels. */
+	public final int largeur;
+	/** La hauteur de l'image en pixels. */
+	public final int hauteur;
+	/** L'indice du pixel (0, 0) dans le tableau. */
+	public final int decalage;
+	/** Le nombre d'entrées entre deux lignes consécutives. */
+	public final int pas;
+	/**
+	 * L'alpha à ajouter aux pixels lus : 0xFF000000 pour une image TYPE_INT_RGB
+	 * lue directement, 0 sinon. {@code pixels[i] | alphaFixe} est l'ARGB du pixel.
+	 */
+	public final int alphaFixe;
+
+	private TamponPixels(BufferedImage image, int[] pixels, int decalage, int pas, boolean direct, int alphaFixe) {
+		this.image = image;
+		this.pixels = pixels;
+		this.largeur = image.getWidth();
+		this.hauteur = image.getHeight();
+		this.decalage = decalage;
+		this.pas = pas;
+		this.direct = direct;
+		this.alphaFixe = alphaFixe;
+	}
+
+	/**
+	 * Ouvre un tampon sur les pixels d'une image.
+	 * Utilise directement le raster si l'image est TYPE_INT_ARGB ou TYPE_INT_RGB,
+	 * sinon copie les pixels.
+	 *
+	 * @param image L'image à parcourir.
+	 * @return Le tampon de pixels de l'image.
+	 */
+	public static TamponPixels ouvrir(BufferedImage image) {
+		int type = image.getType();
+		if (type == BufferedImage.TYPE_INT_ARGB || type == BufferedImage.TYPE_INT_RGB) {
+			WritableRaster raster = image.getRaster();
+			DataBuffer donnees = raster.getDataBuffer();
+			if (donnees instanceof DataBufferInt && donnees.getNumBanks() == 1
+					&& raster.getSampleModel() instanceof SinglePixelPackedSampleModel) {
+				int pas = ((SinglePixelPackedSampleModel) raster.getSampleModel()).getScanlineStride();
+				int decalage = donnees.getOffset()
+						- raster.getSampleModelTranslateY() * pas
+						- raster.getSampleModelTranslateX();
+				return new TamponPixels(image, ((DataBufferInt) donnees).getData(), decalage, pas, true,
+						type == BufferedImage.TYPE_INT_RGB ? 0xFF000000 : 0);
+			}
+		}
+		int largeur = image.getWidth();
+		int[] copie = image.getRGB(0, 0, largeur, image.getHeight(), null, 0, largeur);
+		return new TamponPixels(image, copie, 0, largeur, false, 0);
+	}
+
+	/**
+	 * Lit un pixel en ARGB, alpha compris.
+	 *
+	 * @param i L'indice du pixel dans {@link #pixels}.
+	 * @return La couleur ARGB du pixel.
+	 */
+	public int argb(int i) {
+		return pixels[i] | alphaFixe;
+	}
+
+	/**
+	 * Recopie des pixels consécutifs en ARGB, alpha compris, vers un autre tableau.
+	 *
+	 * @param i L'indice du premier pixel dans {@link #pixels}.
+	 * @param destination Le tableau de destination.
+	 * @param position L'indice du premier pixel dans la destination.
+	 * @param longueur Le nombre de pixels à recopier.
+	 */
+	public void copierArgb(int i, int[] destination, int position, int longueur) {
+		System.arraycopy(pixels, i, destination, position, longueur);
+		if (alphaFixe != 0) {
+			for (int k = position; k < position + longueur; k++) {
+				destination[k] |= alphaFixe;
+			}
+		}
+	}
+
+	/**
+	 * Indique si le tampon travaille directement sur le raster de l'image.
+	 *
+	 * @return true si les écritures sont immédiatement visibles dans l'image.
+	 */
+	public boolean estDirect() {
+		return direct;
+	}
+
+	/**
+	 * Calcule l'indice d'un pixel dans le tableau.
+	 *
+	 * @param x La coordonnée X du pixel.
+	 * @param y La coordonnée Y du pixel.
+	 * @return L'indice du pixel dans {@link #pixels}.
+	 */
+	public int indice(int x, int y) {
+		return decalage + y * pas + x;
+	}
+
+	/**
+	 * Reporte les modifications dans l'image si les pixels ont été copiés.
+	 * Ne fait rien lorsque le tampon est direct.
+	 */
+	public void valider() {
+		if (!direct) {
+			image.setRGB(0, 0, largeur, hauteur, pixels, decalage, pas);
+		}
+	}
+}
@@ -0,0 +1,691 @@
+/**
+ * Classe traitant des fichiers d'images trop grands pour la mémoire.
+ * Lit, transforme et écrit l'image par bandes horizontales.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.Dimension;
+import java.awt.Rectangle;
+import java.awt.image.BufferedImage;
+import java.awt.image.ColorModel;
+import java.awt.image.DataBuffer;
+import java.awt.image.MultiPixelPackedSampleModel;
+import java.awt.image.PixelInterleavedSampleModel;
+import java.awt.image.Raster;
+import java.awt.image.RenderedImage;
+import java.awt.image.SampleModel;
+import java.awt.image.SinglePixelPackedSampleModel;
+import java.awt.image.WritableRaster;
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.Iterator;
+import java.util.Vector;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.TimeUnit;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageTypeSpecifier;
+import javax.imageio.metadata.IIOMetadata;
+import javax.imageio.stream.ImageInputStream;
+
+import org.w3c.dom.Node;
+
+/**
+ * Traitement en flux d'un fichier d'image : la source est lue par bandes
+ * horizontales, chaque bande passe par une opération puis est écrite en PNG
+ * avant que la suivante soit lue. La mémoire utilisée dépend de la taille
+ * d'une bande, pas de celle de l'image.
+ * <p>
+ * Les PNG non entrelacés et les JPEG sont décodés en un seul passage : un
+ * fil de lecture décode le fichier de haut en bas dans une image dont seule
+ * la bande courante existe, et remet chaque bande terminée au fil d'écriture.
+ * Les autres formats sont lus région par région ({@link ImageReadParam#setSourceRegion}),
+ * ce qui ne coûte rien aux formats à accès direct (BMP...).
+ * <p>
+ * L'écriture s'appuie sur une {@link RenderedImage} dont les tuiles (les
+ * bandes) sont calculées à la demande : l'encodeur PNG la parcourt ligne par
+ * ligne et seule la bande courante est gardée. Les opérations doivent être
+ * locales à chaque pixel (ajustements de couleur, symétrie horizontale...) :
+ * une bande ne voit pas ses voisines.
+ */
+public final class TraitementEnFlux {
+	/** Taille maximale visée pour une bande en ARGB. */
+	private static final long OCTETS_BANDE = 64L << 20;
+	/** Copies complètes d'une image ouverte : décodée, normalisée, et dans l'historique. */
+	private static final int COPIES_OUVERTURE = 3;
+	/** Bandes présentes ensemble en traitement : en décodage, remise, convertie, et une de marge. */
+	private static final int BANDES_EN_MEMOIRE = 4;
+
+	/**
+	 * Opération appliquée à chaque bande, en place.
+	 */
+	public interface OperationBande {
+		/**
+		 * Transforme une bande de l'image.
+		 *
+		 * @param bande Les pixels de la bande (ARGB ou RGB), à modifier.
+		 * @param yDebut La ligne de l'image où commence la bande.
+		 */
+		void appliquer(BufferedImage bande, int yDebut);
+	}
+
+	private TraitementEnFlux() {
+	}
+
+	/**
+	 * Lit les dimensions d'une image sans décoder ses pixels.
+	 *
+	 * @param fichier Le fichier d'image.
+	 * @return La largeur et la hauteur de l'image.
+	 * @throws IOException si le fichier n'est pas une image lisible.
+	 */
+	public static Dimension dimensions(File fichier) throws IOException {
+		try (Lecteur lecteur = new Lecteur(fichier)) {
+			return new Dimension(lecteur.largeur, lecteur.hauteur);
+		}
+	}
+
+	/**
+	 * Mémoire encore libre dans le tas : la taille maximale du tas moins ce
+	 * qui y est occupé.
+	 *
+	 * @return Le nombre d'octets disponibles.
+	 */
+	public static long memoireDisponible() {
+		Runtime runtime = Runtime.getRuntime();
+		return runtime.maxMemory() - (runtime.totalMemory() - runtime.freeMemory());
+	}
+
+	/**
+	 * Mémoire nécessaire pour ouvrir une image en entier : ses pixels décodés
+	 * en ARGB, pour chacune des copies que l'ouverture garde.
+	 *
+	 * @param largeur La largeur de l'image.
+	 * @param hauteur La hauteur de l'image.
+	 * @return Le nombre d'octets nécessaires.
+	 */
+	public static long octetsOuverture(int largeur, int hauteur) {
+		return 4L * largeur * hauteur * COPIES_OUVERTURE;
+	}
+
+	/**
+	 * Indique si une image tient en entier dans la mémoire libre. Si la mémoire
+	 * occupée semble trop grande, un ramasse-miettes est demandé avant de
+	 * conclure : l'image précédente vient souvent d'être abandonnée.
+	 *
+	 * @param largeur La largeur de l'image.
+	 * @param hauteur La hauteur de l'image.
+	 * @return true si l'image peut être ouverte en pleine résolution.
+	 */
+	public static boolean tientEnMemoire(int largeur, int hauteur) {
+		long octets = octetsOuverture(largeur, hauteur);
+		if (octets <= memoireDisponible()) return true;
+		System.gc();
+		return octets <= memoireDisponible();
+	}
+
+	/**
+	 * Nombre de pixels qu'une image ouverte en entier peut compter dans la
+	 * mémoire encore libre.
+	 *
+	 * @return Le nombre maximal de pixels.
+	 */
+	public static long pixelsMaxEnMemoire() {
+		return memoireDisponible() / (4L * COPIES_OUVERTURE);
+	}
+
+	/**
+	 * Lit une image en entier si elle tient dans la limite, sinon une version
+	 * sous-échantillonnée (une ligne et une colonne sur n) décodée directement
+	 * à taille réduite.
+	 *
+	 * @param fichier Le fichier d'image.
+	 * @param pixelsMax Le nombre maximal de pixels de l'image lue.
+	 * @return L'image lue, éventuellement réduite, ou null si le format n'est pas reconnu.
+	 * @throws IOException en cas d'erreur de lecture.
+	 */
+	public static BufferedImage lireDansLimite(File fichier, long pixelsMax) throws IOException {
+		Lecteur lecteur;
+		try {
+			lecteur = new Lecteur(fichier);
+		} catch (IOException e) {
+			return ImageIO.read(fichier);
+		}
+		try (lecteur) {
+			long pixels = (long) lecteur.largeur * lecteur.hauteur;
+			ImageReadParam param = lecteur.reader.getDefaultReadParam();
+			if (pixels > pixelsMax) {
+				int pas = (int) Math.ceil(Math.sqrt((double) pixels / Math.max(1, pixelsMax)));
+				param.setSourceSubsampling(pas, pas, 0, 0);
+			}
+			return lecteur.reader.read(0, param);
+		}
+	}
+
+	/**
+	 * Applique une opération à un fichier d'image, bande par bande, et écrit
+	 * le résultat en PNG. La hauteur des bandes est choisie pour environ 64 Mo,
+	 * moins si la mémoire libre est réduite.
+	 *
+	 * @param entree Le fichier source.
+	 * @param sortie Le fichier PNG produit.
+	 * @param operation L'opération appliquée à chaque bande.
+	 * @throws IOException en cas d'erreur de lecture ou d'écriture.
+	 */
+	public static void traiter(File entree, File sortie, OperationBande operation) throws IOException {
+		traiter(entree, sortie, 0, operation);
+	}
+
+	/**
+	 * Applique une opération à un fichier d'image, bande par bande, et écrit
+	 * le résultat en PNG.
+	 *
+	 * @param entree Le fichier source.
+	 * @param sortie Le fichier PNG produit.
+	 * @param hauteurBande La hauteur d'une bande en lignes, ou 0 pour la choisir selon la largeur.
+	 * @param operation L'opération appliquée à chaque bande.
+	 * @throws IOException en cas d'erreur de lecture ou d'écriture.
+	 */
+	public static void traiter(File entree, File sortie, int hauteurBande, OperationBande operation)
+			throws IOException {
+		try (Lecteur lecteur = new Lecteur(entree)) {
+			if (hauteurBande <= 0) {
+				long octets = Math.min(OCTETS_BANDE, memoireDisponible() / BANDES_EN_MEMOIRE);
+				hauteurBande = (int) Math.max(1, octets / (4L * lecteur.largeur));
+			}
+			ImageEnBandes image = new ImageEnBandes(lecteur, Math.min(hauteurBande, lecteur.hauteur), operation);
+			if (!ImageIO.write(image, "png", sortie)) {
+				throw new IOException("Aucun encodeur PNG disponible");
+			}
+			if (image.erreur != null) throw image.erreur;
+		}
+	}
+
+	/**
+	 * Lecteur d'un fichier d'image, gardé ouvert pour lire toutes ses bandes.
+	 */
+	private static final class Lecteur implements AutoCloseable {
+		final ImageInputStream flux;
+		final ImageReader reader;
+		final int largeur;
+		final int hauteur;
+		/** Le décodage en un seul passage en cours, ou null. */
+		private DecodageSequentiel decodage;
+		/** false une fois le décodage en un seul passage écarté pour ce fichier. */
+		private boolean sequentielPossible = true;
+
+		Lecteur(File fichier) throws IOException {
+			flux = ImageIO.createImageInputStream(fichier);
+			if (flux == null) throw new IOException("Fichier illisible : " + fichier);
+			Iterator<ImageReader> lecteurs = ImageIO.getImageReaders(flux);
+			if (!lecteurs.hasNext()) {
+				flux.close();
+				throw new IOException("Format d'image non reconnu : " + fichier);
+			}
+			reader = lecteurs.next();
+			reader.setInput(flux, false, true);
+			largeur = reader.getWidth(0);
+			hauteur = reader.getHeight(0);
+		}
+
+		/**
+		 * Lit une bande de lignes de l'image, convertie en pixels entiers. Les
+		 * bandes demandées de haut en bas viennent du décodage en un seul
+		 * passage quand le format le permet.
+		 */
+		BufferedImage lireBande(int yDebut, int nombre, boolean alpha) throws IOException {
+			if (decodage == null && sequentielPossible && yDebut == 0) {
+				sequentielPossible = false;
+				ImageTypeSpecifier type = typeSequentiel();
+				if (type != null) decodage = DecodageSequentiel.demarrer(reader, type, largeur, hauteur, nombre);
+			}
+			BufferedImage lue;
+			if (decodage != null && decodage.prochainY <= yDebut) {
+				do {
+					lue = decodage.bandeSuivante();
+				} while (decodage.prochainY <= yDebut);
+			} else {
+				// Retour en arrière : le lecteur ne peut plus servir aux deux à la fois
+				arreterDecodage();
+				ImageReadParam param = reader.getDefaultReadParam();
+				param.setSourceRegion(new Rectangle(0, yDebut, largeur, nombre));
+				lue = reader.read(0, param);
+			}
+			return NormalisationImage.convertir(lue, alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+		}
+
+		/**
+		 * Choisit le type de pixels du décodage en un seul passage : celui
+		 * que le lecteur produit lui-même, si le fichier est écrit de haut en bas.
+		 *
+		 * @return Le type décodé, ou null si le fichier doit être lu par régions.
+		 */
+		private ImageTypeSpecifier typeSequentiel() throws IOException {
+			String format = reader.getFormatName().toLowerCase();
+			if (!format.equals("png") && !format.equals("jpeg") || !decodeDansLOrdre(format)) return null;
+			Iterator<ImageTypeSpecifier> types = reader.getImageTypes(0);
+			if (!types.hasNext()) return null;
+			ImageTypeSpecifier type = types.next();
+			return DecodageSequentiel.pasDeLigne(type.getSampleModel(largeur, 1)) > 0 ? type : null;
+		}
+
+		/**
+		 * Indique si le lecteur écrit les lignes une seule fois, de haut en bas :
+		 * ce n'est pas le cas d'un PNG entrelacé (Adam7) ni d'un JPEG progressif,
+		 * dont chaque passe repeint toute l'image.
+		 */
+		private boolean decodeDansLOrdre(String format) throws IOException {
+			IIOMetadata metadonnees = reader.getImageMetadata(0);
+			if (metadonnees == null) return false;
+			Node racine = metadonnees.getAsTree(metadonnees.getNativeMetadataFormatName());
+			if (format.equals("png")) {
+				return "none".equals(attribut(chercherNoeud(racine, "IHDR"), "interlaceMethod"));
+			}
+			String procede = attribut(chercherNoeud(racine, "sof"), "process");
+			return procede != null && !procede.equals("2");
+		}
+
+		/**
+		 * Cherche le premier noeud d'un nom donné dans un arbre de métadonnées.
+		 */
+		private static Node chercherNoeud(Node noeud, String nom) {
+			if (noeud.getNodeName().equals(nom)) return noeud;
+			for (Node enfant = noeud.getFirstChild(); enfant != null; enfant = enfant.getNextSibling()) {
+				Node trouve = chercherNoeud(enfant, nom);
+				if (trouve != null) return trouve;
+			}
+			return null;
+		}
+
+		private static String attribut(Node noeud, String nom) {
+			Node attribut = noeud != null ? noeud.getAttributes().getNamedItem(nom) : null;
+			return attribut != null ? attribut.getNodeValue() : null;
+		}
+
+		private void arreterDecodage() {
+			if (decodage != null) {
+				decodage.arreter();
+				decodage = null;
+			}
+		}
+
+		@Override
+		public void close() throws IOException {
+			arreterDecodage();
+			reader.dispose();
+			flux.close();
+		}
+	}
+
+	/**
+	 * Décodage d'un fichier en un seul passage, dans un fil de lecture qui
+	 * remet les bandes une à une. La destination du lecteur est une image
+	 * dont les pixels ({@link FenetreBandes}) ne couvrent que la bande en
+	 * cours : dès qu'une ligne de la bande suivante est écrite, la bande
+	 * courante est terminée et remise au fil d'écriture, qui la convertit
+	 * pendant que la suivante est décodée.
+	 * <p>
+	 * Les indices des pixels tenant sur un int, une très grande image est
+	 * décodée en quelques segments de lignes, chacun par une lecture.
+	 */
+	private static final class DecodageSequentiel implements Runnable {
+		private final ImageReader reader;
+		private final ImageTypeSpecifier type;
+		private final int largeur;
+		private final int hauteur;
+		final int hauteurBande;
+		/** Nombre d'éléments entre deux lignes décodées. */
+		final int pas;
+		private final int lignesParSegment;
+		private final SynchronousQueue<BufferedImage> bandes = new SynchronousQueue<>();
+		private final Thread fil;
+		private volatile Throwable echec;
+		/** La première ligne de la prochaine bande remise. */
+		int prochainY;
+
+		private DecodageSequentiel(ImageReader reader, ImageTypeSpecifier type, int largeur, int hauteur,
+				int hauteurBande) {
+			this.reader = reader;
+			this.type = type;
+			this.largeur = largeur;
+			this.hauteur = hauteur;
+			this.hauteurBande = hauteurBande;
+			this.pas = pasDeLigne(type.getSampleModel(largeur, 1));
+			long lignes = (Integer.MAX_VALUE - 8L) / Math.max(pas, largeur);
+			this.lignesParSegment = (int) Math.max(hauteurBande, lignes / hauteurBande * hauteurBande);
+			this.fil = new Thread(this, "lecture-bandes");
+			this.fil.setDaemon(true);
+		}
+
+		static DecodageSequentiel demarrer(ImageReader reader, ImageTypeSpecifier type, int largeur, int hauteur,
+				int hauteurBande) {
+			DecodageSequentiel decodage = new DecodageSequentiel(reader, type, largeur, hauteur, hauteurBande);
+			decodage.fil.start();
+			return decodage;
+		}
+
+		/**
+		 * Nombre d'éléments entre deux lignes d'un modèle de pixels.
+		 *
+		 * @return Le pas, ou 0 si le modèle n'est pas rangé ligne par ligne dans un seul tableau.
+		 */
+		static int pasDeLigne(SampleModel modele) {
+			if (modele instanceof PixelInterleavedSampleModel) {
+				return ((PixelInterleavedSampleModel) modele).getScanlineStride();
+			}
+			if (modele instanceof MultiPixelPackedSampleModel) {
+				return ((MultiPixelPackedSampleModel) modele).getScanlineStride();
+			}
+			if (modele instanceof SinglePixelPackedSampleModel) {
+				return ((SinglePixelPackedSampleModel) modele).getScanlineStride();
+			}
+			return 0;
+		}
+
+		@Override
+		public void run() {
+			try {
+				for (int yDebut = 0; yDebut < hauteur; yDebut += lignesParSegment) {
+					int lignes = Math.min(lignesParSegment, hauteur - yDebut);
+					FenetreBandes fenetre = new FenetreBandes(this, lignes);
+					ImageReadParam param = reader.getDefaultReadParam();
+					param.setSourceRegion(new Rectangle(0, yDebut, largeur, lignes));
+					param.setDestination(fenetre.image);
+					reader.read(0, param);
+					fenetre.terminer();
+				}
+			} catch (ArretDecodage e) {
+				// Le fil d'écriture n'attend plus de bande
+			} catch (Exception | OutOfMemoryError e) {
+				echec = e;
+			}
+		}
+
+		/**
+		 * Remet une bande décodée au fil d'écriture (appelé par le fil de lecture).
+		 */
+		void remettre(DataBuffer pixels, int lignes) {
+			ColorModel modele = type.getColorModel();
+			WritableRaster raster = Raster.createWritableRaster(type.getSampleModel(largeur, lignes), pixels, null);
+			try {
+				bandes.put(new BufferedImage(modele, raster, modele.isAlphaPremultiplied(), null));
+			} catch (InterruptedException e) {
+				throw new ArretDecodage();
+			}
+		}
+
+		/**
+		 * Attend la bande suivante (appelé par le fil d'écriture).
+		 */
+		BufferedImage bandeSuivante() throws IOException {
+			try {
+				BufferedImage bande;
+				while ((bande = bandes.poll(100, TimeUnit.MILLISECONDS)) == null) {
+					if (!fil.isAlive() && (bande = bandes.poll()) == null) {
+						Throwable cause = echec;
+						if (cause instanceof IOException) throw (IOException) cause;
+						throw new IOException("Décodage interrompu", cause);
+					}
+				}
+				prochainY += bande.getHeight();
+				return bande;
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new InterruptedIOException("Lecture des bandes interrompue");
+			}
+		}
+
+		/**
+		 * Arrête le fil de lecture et attend sa fin, pour rendre le lecteur libre.
+		 */
+		void arreter() {
+			fil.interrupt();
+			try {
+				fil.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	/**
+	 * Signale au lecteur d'image que le fil d'écriture a renoncé aux bandes.
+	 */
+	private static final class ArretDecodage extends RuntimeException {
+		private static final long serialVersionUID = 1L;
+	}
+
+	/**
+	 * Pixels d'un segment de l'image dont seule la bande en cours est gardée.
+	 * Le lecteur écrit les lignes dans l'ordre : un accès au-delà de la bande
+	 * la termine, un accès avant elle est refusé.
+	 */
+	private static final class FenetreBandes extends DataBuffer {
+		private final DecodageSequentiel decodage;
+		private final int pas;
+		private final int lignes;
+		/** L'image de destination du lecteur, de la taille du segment. */
+		final BufferedImage image;
+		/** La première ligne du segment dans la bande courante. */
+		private int debut;
+		private DataBuffer bande;
+
+		FenetreBandes(DecodageSequentiel decodage, int lignes) {
+			super(decodage.type.getSampleModel(decodage.largeur, 1).getDataType(), decodage.pas * lignes);
+			this.decodage = decodage;
+			this.pas = decodage.pas;
+			this.lignes = lignes;
+			this.bande = nouvelleBande();
+			ColorModel modele = decodage.type.getColorModel();
+			WritableRaster raster = Raster.createWritableRaster(
+					decodage.type.getSampleModel(decodage.largeur, lignes), this, null);
+			this.image = new BufferedImage(modele, raster, modele.isAlphaPremultiplied(), null);
+		}
+
+		private DataBuffer nouvelleBande() {
+			return decodage.type.getSampleModel(decodage.largeur, decodage.hauteurBande).createDataBuffer();
+		}
+
+		/**
+		 * Ramène l'indice d'un élément du segment à la bande courante, en
+		 * remettant les bandes que le lecteur a dépassées.
+		 */
+		private int position(int i) {
+			int ligne = i / pas;
+			while (ligne >= debut + decodage.hauteurBande) {
+				decodage.remettre(bande, decodage.hauteurBande);
+				debut += decodage.hauteurBande;
+				bande = nouvelleBande();
+			}
+			if (ligne < debut) throw new IllegalStateException("Lignes décodées dans le désordre");
+			return i - debut * pas;
+		}
+
+		/**
+		 * Remet la dernière bande du segment, une fois la lecture terminée.
+		 */
+		void terminer() {
+			decodage.remettre(bande, lignes - debut);
+		}
+
+		@Override
+		public int getElem(int banque, int i) {
+			int indice = position(i);
+			return bande.getElem(indice);
+		}
+
+		@Override
+		public void setElem(int banque, int i, int valeur) {
+			// position() peut changer de bande : l'indice est calculé avant de la lire
+			int indice = position(i);
+			bande.setElem(indice, valeur);
+		}
+	}
+
+	/**
+	 * Image dont les tuiles sont les bandes de la source transformées,
+	 * calculées à la demande. Seule la dernière bande est gardée : un
+	 * parcours de haut en bas lit donc chaque bande une seule fois.
+	 */
+	private static final class ImageEnBandes implements RenderedImage {
+		private final Lecteur lecteur;
+		private final int hauteurBande;
+		private final OperationBande operation;
+		private final boolean alpha;
+		private final ColorModel modeleCouleur;
+		private final SampleModel modeleEchantillons;
+		private int indiceCourant = -1;
+		private Raster bandeCourante;
+		/** Erreur de lecture survenue pendant l'écriture (l'interface ne laisse pas passer IOException). */
+		IOException erreur;
+
+		ImageEnBandes(Lecteur lecteur, int hauteurBande, OperationBande operation) throws IOException {
+			this.lecteur = lecteur;
+			this.hauteurBande = hauteurBande;
+			this.operation = operation;
+			Iterator<ImageTypeSpecifier> types = lecteur.reader.getImageTypes(0);
+			this.alpha = !types.hasNext() || types.next().getColorModel().hasAlpha();
+			BufferedImage modele = new BufferedImage(1, 1,
+					alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+			this.modeleCouleur = modele.getColorModel();
+			this.modeleEchantillons = modele.getSampleModel().createCompatibleSampleModel(lecteur.largeur, hauteurBande);
+		}
+
+		@Override
+		public synchronized Raster getTile(int tileX, int tileY) {
+			if (tileY != indiceCourant) {
+				bandeCourante = null;
+				int yDebut = tileY * hauteurBande;
+				int nombre = Math.min(hauteurBande, lecteur.hauteur - yDebut);
+				BufferedImage bande;
+				try {
+					bande = lecteur.lireBande(yDebut, nombre, alpha);
+				} catch (IOException e) {
+					if (erreur == null) erreur = e;
+					bande = new BufferedImage(lecteur.largeur, nombre,
+							alpha ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB);
+				}
+				if (operation != null) operation.appliquer(bande, yDebut);
+				bandeCourante = bande.getRaster().createTranslatedChild(0, yDebut);
+				indiceCourant = tileY;
+			}
+			return bandeCourante;
+		}
+
+		@Override
+		public Raster getData(Rectangle zone) {
+			Rectangle limites = zone.intersection(new Rectangle(0, 0, getWidth(), getHeight()));
+			WritableRaster resultat = modeleCouleur.createCompatibleWritableRaster(limites.width, limites.height)
+					.createWritableTranslatedChild(limites.x, limites.y);
+			int premiere = limites.y / hauteurBande;
+			int derniere = (limites.y + limites.height - 1) / hauteurBande;
+			for (int ty = premiere; ty <= derniere; ty++) {
+				resultat.setRect(getTile(0, ty));
+			}
+			return resultat;
+		}
+
+		@Override
+		public Raster getData() {
+			return getData(new Rectangle(0, 0, getWidth(), getHeight()));
+		}
+
+		@Override
+		public WritableRaster copyData(WritableRaster raster) {
+			if (raster == null) return (WritableRaster) getData();
+			raster.setRect(getData(raster.getBounds()));
+			return raster;
+		}
+
+		@Override
+		public Vector<RenderedImage> getSources() {
+			return null;
+		}
+
+		@Override
+		public Object getProperty(String name) {
+			return java.awt.Image.UndefinedProperty;
+		}
+
+		@Override
+		public String[] getPropertyNames() {
+			return null;
+		}
+
+		@Override
+		public ColorModel getColorModel() {
+			return modeleCouleur;
+		}
+
+		@Override
+		public SampleModel getSampleModel() {
+			return modeleEchantillons;
+		}
+
+		@Override
+		public int getWidth() {
+			return lecteur.largeur;
+		}
+
+		@Override
+		public int getHeight() {
+			return lecteur.hauteur;
+		}
+
+		@Override
+		public int getMinX() {
+			return 0;
+		}
+
+		@Override
+		public int getMinY() {
+			return 0;
+		}
+
+		@Override
+		public int getNumXTiles() {
+			return 1;
+		}
+
+		@Override
+		public int getNumYTiles() {
+			return (lecteur.hauteur + hauteurBande - 1) / hauteurBande;
+		}
+
+		@Override
+		public int getMinTileX() {
+			return 0;
+		}
+
+		@Override
+		public int getMinTileY() {
+			return 0;
+		}
+
+		@Override
+		public int getTileWidth() {
+			return lecteur.largeur;
+		}
+
+		@Override
+		public int getTileHeight() {
+			return hauteurBande;
+		}
+
+		@Override
+		public int getTileGridXOffset() {
+			return 0;
+		}
+
+		@Override
+		public int getTileGridYOffset() {
+			return 0;
+		}
+	}
+}
@@ -0,0 +1,181 @@
+/**
+ * Classe accumulant des transformations géométriques avant de les appliquer.
+ * Rotation, symétries et redimensionnement sont composés en une seule matrice.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Metier.traitement;
+
+import java.awt.geom.AffineTransform;
+import java.awt.geom.NoninvertibleTransformException;
+import java.awt.image.BufferedImage;
+
+/**
+ * Transformation différée d'une image : chaque opération (rotation,
+ * symétrie, redimensionnement) est ajoutée à une matrice affine unique, et
+ * l'image n'est rééchantillonnée qu'une fois par {@link #appliquer(boolean)}.
+ * Enchaîner rotation, symétrie et redimensionnement ne coûte donc qu'une passe,
+ * sans image intermédiaire ni cumul des erreurs d'interpolation.
+ * <p>
+ * Chaque opération agit sur le cadre courant (les dimensions produites par
+ * les opérations précédentes), comme les méthodes équivalentes de Format :
+ * une rotation agrandit le cadre pour englober l'image pivotée, une symétrie
+ * le conserve, un redimensionnement le remplace.
+ * <p>
+ * Exemple : {@code new TransformationDifferee(image).pivoter(30).symetrieHorizontale().redimensionner(800, 600).appliquer(true)}
+ */
+public final class TransformationDifferee {
+	private final BufferedImage source;
+	/** Des coordonnées source (pixel i sur [i, i + 1[) vers le cadre courant. */
+	private final AffineTransform transformation = new AffineTransform();
+	private int largeur;
+	private int hauteur;
+
+	/**
+	 * Démarre une transformation vide de l'image.
+	 *
+	 * @param source L'image à transformer (non modifiée).
+	 */
+	public TransformationDifferee(BufferedImage source) {
+		this.source = source;
+		this.largeur = source.getWidth();
+		this.hauteur = source.getHeight();
+	}
+
+	/**
+	 * Obtient la largeur de l'image qui sera produite.
+	 *
+	 * @return La largeur du cadre courant.
+	 */
+	public int largeur() {
+		return largeur;
+	}
+
+	/**
+	 * Obtient la hauteur de l'image qui sera produite.
+	 *
+	 * @return La hauteur du cadre courant.
+	 */
+	public int hauteur() {
+		return hauteur;
+	}
+
+	/**
+	 * Ajoute une rotation autour du centre du cadre, dans le sens horaire.
+	 * Les angles droits sont exacts et échangent simplement les dimensions.
+	 *
+	 * @param angleDeg L'angle en degrés.
+	 * @return Cette transformation, pour enchaîner les appels.
+	 */
+	public TransformationDifferee pivoter(double angleDeg) {
+		double angle = ((angleDeg % 360) + 360) % 360;
+		double cos;
+		double sin;
+		int nouvelleLargeur;
+		int nouvelleHauteur;
+		if (angle % 90 == 0) {
+			int quarts = (int) (angle / 90);
+			cos = quarts == 0 ? 1 : quarts == 2 ? -1 : 0;
+			sin = quarts == 1 ? 1 : quarts == 3 ? -1 : 0;
+			nouvelleLargeur = (quarts & 1) == 0 ? largeur : hauteur;
+			nouvelleHauteur = (quarts & 1) == 0 ? hauteur : largeur;
+		} else {
+			double radians = Math.toRadians(angle);
+			cos = Math.cos(radians);
+			sin = Math.sin(radians);
+			nouvelleLargeur = (int) Math.ceil(largeur * Math.abs(cos) + hauteur * Math.abs(sin));
+			nouvelleHauteur = (int) Math.ceil(hauteur * Math.abs(cos) + largeur * Math.abs(sin));
+		}
+		// Centre du cadre ramené à l'origine, rotation, puis centre du nouveau cadre
+		AffineTransform etape = new AffineTransform(cos, sin, -sin, cos, 0, 0);
+		etape.translate(-largeur / 2.0, -hauteur / 2.0);
+		etape.preConcatenate(AffineTransform.getTranslateInstance(nouvelleLargeur / 2.0, nouvelleHauteur / 2.0));
+		transformation.preConcatenate(etape);
+		largeur = nouvelleLargeur;
+		hauteur = nouvelleHauteur;
+		return this;
+	}
+
+	/**
+	 * Ajoute une symétrie gauche-droite du cadre.
+	 *
+	 * @return Cette transformation, pour enchaîner les appels.
+	 */
+	public TransformationDifferee symetrieHorizontale() {
+		transformation.preConcatenate(new AffineTransform(-1, 0, 0, 1, largeur, 0));
+		return this;
+	}
+
+	/**
+	 * Ajoute une symétrie haut-bas du cadre.
+	 *
+	 * @return Cette transformation, pour enchaîner les appels.
+	 */
+	public TransformationDifferee symetrieVerticale() {
+		transformation.preConcatenate(new AffineTransform(1, 0, 0, -1, 0, hauteur));
+		return this;
+	}
+
+	/**
+	 * Ajoute un redimensionnement du cadre aux dimensions données.
+	 *
+	 * @param nouvelleLargeur La nouvelle largeur, strictement positive.
+	 * @param nouvelleHauteur La nouvelle hauteur, strictement positive.
+	 * @return Cette transformation, pour enchaîner les appels.
+	 * @throws IllegalArgumentException si une dimension n'est pas positive.
+	 */
+	public TransformationDifferee redimensionner(int nouvelleLargeur, int nouvelleHauteur) {
+		if (nouvelleLargeur <= 0 || nouvelleHauteur <= 0) {
+			throw new IllegalArgumentException("Dimensions invalides : " + nouvelleLargeur + "x" + nouvelleHauteur);
+		}
+		transformation.preConcatenate(AffineTransform.getScaleInstance(
+				(double) nouvelleLargeur / largeur, (double) nouvelleHauteur / hauteur));
+		largeur = nouvelleLargeur;
+		hauteur = nouvelleHauteur;
+		return this;
+	}
+
+	/**
+	 * Produit l'image transformée en une seule passe.
+	 * En bilinéaire, une forte réduction lit d'abord le niveau adapté de la
+	 * {@link Pyramide} de la source pour que chaque pixel source compte.
+	 *
+	 * @param bilineaire true pour interpoler, false pour le plus proche voisin.
+	 * @return Une nouvelle image ARGB, transparente hors de la source.
+	 */
+	public BufferedImage appliquer(boolean bilineaire) {
+		AffineTransform inverse;
+		try {
+			inverse = transformation.createInverse();
+		} catch (NoninvertibleTransformException e) {
+			throw new IllegalStateException("Transformation non inversible", e);
+		}
+
+		BufferedImage lue = source;
+		if (bilineaire) {
+			// Pixels source parcourus par pas de destination, dans la direction la moins réduite
+			double pasX = Math.hypot(inverse.getScaleX(), inverse.getShearY());
+			double pasY = Math.hypot(inverse.getShearX(), inverse.getScaleY());
+			int niveau = (int) Math.floor(Math.log(Math.min(pasX, pasY)) / Math.log(2));
+			niveau = Math.min(niveau, 31 - Integer.numberOfLeadingZeros(Math.max(source.getWidth(), source.getHeight())));
+			if (niveau > 0) {
+				lue = new Pyramide(source).niveau(niveau);
+				// Le pixel i du niveau n couvre exactement les pixels source [i 2^n, (i + 1) 2^n[
+				double echelle = 1.0 / (1 << niveau);
+				inverse.preConcatenate(AffineTransform.getScaleInstance(echelle, echelle));
+			}
+		}
+
+		BufferedImage resultat = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_ARGB);
+		// Le pixel de destination (x, y) est échantillonné en son centre (x + 0.5, y + 0.5)
+		double[] matrice = {
+				inverse.getScaleX(), inverse.getShearX(),
+				inverse.getTranslateX() + 0.5 * (inverse.getScaleX() + inverse.getShearX()),
+				inverse.getShearY(), inverse.getScaleY(),
+				inverse.getTranslateY() + 0.5 * (inverse.getShearY() + inverse.getScaleY()) };
+		EchantillonnageAffine.echantillonner(TamponPixels.ouvrir(lue), TamponPixels.ouvrir(resultat),
+				0, 0, matrice, bilineaire);
+		return resultat;
+	}
+}
@@ -21,6 +21,8 @@ import java.io.IOException;
 
 import javax.imageio.ImageIO;
 import javax.swing.BorderFactory;
+import javax.swing.JCheckBox;
+import javax.swing.JComboBox;
 import javax.swing.JFileChooser;
 import javax.swing.JLabel;
 import javax.swing.JMenuBar;
@@ -34,6 +36,10 @@ import javax.swing.filechooser.FileNameExtensionFilter;
 
 import application.multimedia.iut.Controleur;
 import application.multimedia.iut.Metier.GestionnaireOutils;
+import application.multimedia.iut.Metier.image.CoucheAjustement;
+import application.multimedia.iut.Metier.traitement.ChaineAjustements;
+import application.multimedia.iut.Metier.traitement.Reechantillonneur.Filtre;
+import application.multimedia.iut.Metier.traitement.StatistiquesImage;
 import application.multimedia.iut.Vue.barres.MenuBarBuilder;
 import application.multimedia.iut.Vue.barres.ToolBarBuilder;
 import application.multimedia.iut.Vue.dialogs.TexteImageEditorDialog;
@@ -123,7 +129,7 @@ public class PaintPanel extends JPanel {
 		toile.setOpaque(true);
 		toile.setBorder(BorderFactory.createLineBorder(Color.LIGHT_GRAY));
 
-		// Définir une taille préférée pour que la toile prenne tout l'espace
+		// Taille de départ : ensuite ajustée aux couches et au zoom par le gestionnaire d'images
 		toile.setPreferredSize(new Dimension(2000, 2000));
 
 		panneauDeroulement = new JScrollPane(toile);
@@ -150,6 +156,13 @@ public class PaintPanel extends JPanel {
 		gestionnaireImages.enregistrerFichier(nouveauFichier);
 	}
 
+	/**
+	 * Applique les calques de réglage à un fichier, sans l'ouvrir en entier.
+	 */
+	public void appliquerReglagesAuFichier() {
+		gestionnaireImages.appliquerReglagesAuFichier();
+	}
+
 	/**
 	 * Applique un facteur de zoom sur l'image courante.
 	 *
@@ -271,6 +284,7 @@ public class PaintPanel extends JPanel {
 			g2d.setComposite(AlphaComposite.Clear);
 			g2d.fillRect(0, 0, imageCourante.getWidth(), imageCourante.getHeight());
 			g2d.dispose();
+			controleur.signalerModification(imageCourante);
 			gestionnaireImages.rafraichirAffichage();
 		}
 	}
@@ -297,30 +311,22 @@ public class PaintPanel extends JPanel {
 	// ========================================
 
 	/**
-	 * Effectue un retournement horizontal de l'image courante.
+	 * Effectue un retournement horizontal de l'image courante, sur place.
 	 */
 	public void flipH() {
-		BufferedImage imageCourante = gestionnaireImages.obtenirImageCourante();
-		if (imageCourante != null) {
-			BufferedImage nouvelleImage = controleur.flipH(imageCourante);
-			if (nouvelleImage != null) {
-				gestionnaireImages.definirImageCourante(nouvelleImage);
-				gestionnaireImages.rafraichirAffichage();
-			}
+		if (gestionnaireImages.obtenirImageCourante() != null) {
+			controleur.retournerImageCourante(true);
+			gestionnaireImages.rafraichirAffichage();
 		}
 	}
 
 	/**
-	 * Effectue un retournement vertical de l'image courante.
+	 * Effectue un retournement vertical de l'image courante, sur place.
 	 */
 	public void flipV() {
-		BufferedImage imageCourante = gestionnaireImages.obtenirImageCourante();
-		if (imageCourante != null) {
-			BufferedImage nouvelleImage = controleur.flipV(imageCourante);
-			if (nouvelleImage != null) {
-				gestionnaireImages.definirImageCourante(nouvelleImage);
-				gestionnaireImages.rafraichirAffichage();
-			}
+		if (gestionnaireImages.obtenirImageCourante() != null) {
+			controleur.retournerImageCourante(false);
+			gestionnaireImages.rafraichirAffichage();
 		}
 	}
 
@@ -328,12 +334,21 @@ public class PaintPanel extends JPanel {
 	 * Ouvre un dialogue pour effectuer une rotation de l'image courante.
 	 */
 	public void rotation() {
-		String input = JOptionPane.showInputDialog(this, "Angle de rotation (degrés):", "Rotation",
+		JPanel panel = new JPanel(new GridLayout(2, 2, 5, 5));
+		JTextField angleField = new JTextField();
+		JCheckBox lisseBox = new JCheckBox("Lissage (bilinéaire)");
+
+		panel.add(new JLabel("Angle de rotation (degrés):"));
+		panel.add(angleField);
+		panel.add(lisseBox);
+
+		int result = JOptionPane.showConfirmDialog(this, panel, "Rotation", JOptionPane.OK_CANCEL_OPTION,
 				JOptionPane.QUESTION_MESSAGE);
-		if (input != null && !input.trim().isEmpty()) {
+		String input = angleField.getText();
+		if (result == JOptionPane.OK_OPTION && !input.trim().isEmpty()) {
 			try {
 				double angle = Double.parseDouble(input.trim());
-				rotation(angle);
+				rotation(angle, lisseBox.isSelected());
 			} catch (NumberFormatException e) {
 				JOptionPane.showMessageDialog(this, "Veuillez entrer un nombre valide.", "Erreur",
 						JOptionPane.ERROR_MESSAGE);
@@ -347,9 +362,19 @@ public class PaintPanel extends JPanel {
 	 * @param angle L'angle de rotation en degrés (sens horaire).
 	 */
 	public void rotation(double angle) {
+		rotation(angle, false);
+	}
+
+	/**
+	 * Effectue une rotation de l'image courante, avec lissage éventuel.
+	 * 
+	 * @param angle L'angle de rotation en degrés (sens horaire).
+	 * @param lisse true pour interpoler les angles qui ne sont pas droits.
+	 */
+	public void rotation(double angle, boolean lisse) {
 		BufferedImage imageCourante = gestionnaireImages.obtenirImageCourante();
 		if (imageCourante != null) {
-			BufferedImage nouvelleImage = controleur.rotation(imageCourante, angle);
+			BufferedImage nouvelleImage = controleur.rotation(imageCourante, angle, lisse);
 			if (nouvelleImage != null) {
 				gestionnaireImages.definirImageCourante(nouvelleImage);
 				gestionnaireImages.rafraichirAffichage();
@@ -367,14 +392,18 @@ public class PaintPanel extends JPanel {
 			return;
 		}
 
-		JPanel panel = new JPanel(new GridLayout(2, 2, 5, 5));
+		JPanel panel = new JPanel(new GridLayout(3, 2, 5, 5));
 		JTextField largeurField = new JTextField(String.valueOf(imageCourante.getWidth()));
 		JTextField hauteurField = new JTextField(String.valueOf(imageCourante.getHeight()));
+		JComboBox<Filtre> filtreBox = new JComboBox<>(Filtre.values());
+		filtreBox.setSelectedItem(Filtre.BILINEAIRE);
 
 		panel.add(new JLabel("Largeur:"));
 		panel.add(largeurField);
 		panel.add(new JLabel("Hauteur:"));
 		panel.add(hauteurField);
+		panel.add(new JLabel("Filtre:"));
+		panel.add(filtreBox);
 
 		int result = JOptionPane.showConfirmDialog(this, panel, "Redimensionner l'image", JOptionPane.OK_CANCEL_OPTION,
 				JOptionPane.PLAIN_MESSAGE);
@@ -386,7 +415,7 @@ public class PaintPanel extends JPanel {
 
 				if (nouvelleLargeur > 0 && nouvelleHauteur > 0) {
 					BufferedImage nouvelleImage = controleur.redimensionner(imageCourante, nouvelleLargeur,
-							nouvelleHauteur);
+							nouvelleHauteur, (Filtre) filtreBox.getSelectedItem());
 					if (nouvelleImage != null) {
 						gestionnaireImages.definirImageCourante(nouvelleImage);
 						gestionnaireImages.rafraichirAffichage();
@@ -550,6 +579,145 @@ public class PaintPanel extends JPanel {
 		gestionnaireImages.rafraichirAffichage();
 	}
 
+	/**
+	 * Étire automatiquement le contraste de l'image courante.
+	 */
+	public void appliquerContrasteAuto() {
+		controleur.appliquerContrasteAuto();
+		gestionnaireImages.rafraichirAffichage();
+	}
+
+	/**
+	 * Ajuste automatiquement les niveaux de l'image courante.
+	 */
+	public void appliquerNiveauxAuto() {
+		controleur.appliquerNiveauxAuto();
+		gestionnaireImages.rafraichirAffichage();
+	}
+
+	/**
+	 * Change la tolérance du pot de peinture. Le dernier remplissage est
+	 * mis à jour en direct ; il est enregistré dans l'historique quand le
+	 * réglage est terminé.
+	 * 
+	 * @param tolerance La nouvelle tolérance (0-441).
+	 * @param enCours true tant que l'utilisateur déplace le curseur.
+	 */
+	public void modifierToleranceRemplissage(int tolerance, boolean enCours) {
+		if (controleur.modifierToleranceRemplissage(tolerance)) {
+			gestionnaireImages.rafraichirAffichage();
+			if (!enCours) controleur.validerToleranceRemplissage();
+		}
+	}
+
+	/**
+	 * Obtient la tolérance du pot de peinture.
+	 * 
+	 * @return La tolérance (0-441).
+	 */
+	public int getToleranceRemplissage() {
+		return controleur.getToleranceRemplissage();
+	}
+
+	/**
+	 * Ajoute un calque de réglage non destructif.
+	 * 
+	 * @param chaine Les ajustements du calque.
+	 * @return Le calque créé, ou null si aucune image.
+	 */
+	public CoucheAjustement ajouterCalqueReglage(ChaineAjustements chaine) {
+		CoucheAjustement calque = controleur.ajouterCalqueReglage(chaine);
+		gestionnaireImages.rafraichirAffichage();
+		return calque;
+	}
+
+	/**
+	 * Modifie les ajustements d'un calque de réglage.
+	 * 
+	 * @param calque Le calque à modifier.
+	 * @param chaine Les nouveaux ajustements.
+	 */
+	public void modifierCalqueReglage(CoucheAjustement calque, ChaineAjustements chaine) {
+		controleur.modifierCalqueReglage(calque, chaine);
+		gestionnaireImages.rafraichirAffichage();
+	}
+
+	/**
+	 * Retire un calque de réglage.
+	 * 
+	 * @param calque Le calque à retirer.
+	 */
+	public void supprimerCalqueReglage(CoucheAjustement calque) {
+		controleur.supprimerCalqueReglage(calque);
+		gestionnaireImages.rafraichirAffichage();
+	}
+
+	/**
+	 * Retire tous les calques de réglage.
+	 */
+	public void supprimerCalquesReglage() {
+		controleur.supprimerCalquesReglage();
+		gestionnaireImages.rafraichirAffichage();
+	}
+
+	/**
+	 * Obtient le dernier calque de réglage ajouté.
+	 * 
+	 * @return Le calque, ou null s'il n'y en a pas.
+	 */
+	public CoucheAjustement dernierCalqueReglage() {
+		return controleur.dernierCalqueReglage();
+	}
+
+	/**
+	 * Applique définitivement les calques de réglage aux couches.
+	 */
+	public void aplatirCalquesReglage() {
+		controleur.aplatirCalquesReglage();
+		gestionnaireImages.rafraichirAffichage();
+	}
+
+	/**
+	 * Calcule les statistiques de l'image courante.
+	 * 
+	 * @return Les statistiques, ou null si aucune image.
+	 */
+	public StatistiquesImage statistiquesImageCourante() {
+		return controleur.statistiquesImageCourante();
+	}
+
+	/**
+	 * Obtient le pivot du contraste de l'image courante (sa moyenne).
+	 * 
+	 * @return La valeur pivot (0-255).
+	 */
+	public int pivotContraste() {
+		return controleur.pivotContraste();
+	}
+
+	/**
+	 * Démarre l'aperçu en direct d'un ajustement de couleur.
+	 */
+	public void demarrerApercu() {
+		gestionnaireImages.demarrerApercu();
+	}
+
+	/**
+	 * Affiche l'aperçu en direct des ajustements donnés.
+	 * 
+	 * @param chaine Les ajustements à prévisualiser.
+	 */
+	public void afficherApercu(ChaineAjustements chaine) {
+		gestionnaireImages.afficherApercu(chaine);
+	}
+
+	/**
+	 * Termine l'aperçu en direct sans modifier l'image.
+	 */
+	public void terminerApercu() {
+		gestionnaireImages.terminerApercu();
+	}
+
 	/**
 	 * Applique l'outil pot de peinture sur l'image courante.
 	 * 
@@ -7,9 +7,16 @@
  */
 package application.multimedia.iut.Vue.barres;
 
+import application.multimedia.iut.Metier.image.CoucheAjustement;
+import application.multimedia.iut.Metier.traitement.ChaineAjustements;
+import application.multimedia.iut.Metier.traitement.StatistiquesImage;
 import application.multimedia.iut.Vue.PaintPanel;
+import application.multimedia.iut.Vue.panels.HistogrammePanel;
 
 import javax.swing.*;
+import javax.swing.event.ChangeListener;
+import java.awt.BorderLayout;
+import java.awt.GridLayout;
 import java.awt.event.KeyEvent;
 import java.awt.Toolkit;
 
@@ -52,7 +59,8 @@ public class MenuBarBuilder {
 
 	/**
 	 * Crée le menu Fichier avec les opérations de gestion de fichiers.
-	 * Contient : Nouveau, Ouvrir, Enregistrer, Enregistrer sous, Quitter.
+	 * Contient : Nouveau, Ouvrir, Enregistrer, Enregistrer sous,
+	 * Appliquer les réglages à un fichier, Quitter.
 	 *
 	 * @return Le menu Fichier.
 	 */
@@ -64,6 +72,7 @@ public class MenuBarBuilder {
 		JMenuItem ouvrirItem = new JMenuItem("Ouvrir");
 		JMenuItem enregistrerItem = new JMenuItem("Enregistrer");
 		JMenuItem enregistrerSousItem = new JMenuItem("Enregistrer sous...");
+		JMenuItem reglagesFichierItem = new JMenuItem("Appliquer les réglages à un fichier...");
 		JMenuItem quitterItem = new JMenuItem("Quitter");
 
 		nouveauItem.setAccelerator(KeyStroke.getKeyStroke(KeyEvent.VK_N, menuShortcut));
@@ -82,12 +91,14 @@ public class MenuBarBuilder {
 		ouvrirItem.addActionListener(e -> panneau.ouvrirFichier());
 		enregistrerItem.addActionListener(e -> panneau.enregistrerFichier(false));
 		enregistrerSousItem.addActionListener(e -> panneau.enregistrerFichier(true));
+		reglagesFichierItem.addActionListener(e -> panneau.appliquerReglagesAuFichier());
 		quitterItem.addActionListener(e -> System.exit(0));
 
 		fichierMenu.add(nouveauItem);
 		fichierMenu.add(ouvrirItem);
 		fichierMenu.add(enregistrerItem);
 		fichierMenu.add(enregistrerSousItem);
+		fichierMenu.add(reglagesFichierItem);
 		fichierMenu.addSeparator();
 		fichierMenu.add(quitterItem);
 
@@ -243,7 +254,8 @@ public class MenuBarBuilder {
 
 	/**
 	 * Crée le menu Filtres avec les effets applicables.
-	 * Contient : Contraste, Luminosité, Teinture.
+	 * Contient : Contraste, Luminosité, Teinture, Contraste et Niveaux automatiques, Histogramme,
+	 * Calques de réglage.
 	 *
 	 * @return Le menu Filtres.
 	 */
@@ -267,9 +279,34 @@ public class MenuBarBuilder {
 		luminositeItem.addActionListener(e -> ouvrirDialogueLuminosite());
 		teintureItem.addActionListener(e -> ouvrirDialogueTeinture());
 
+		JMenuItem contrasteAutoItem = new JMenuItem("Contraste automatique");
+		JMenuItem niveauxAutoItem = new JMenuItem("Niveaux automatiques");
+		JMenuItem histogrammeItem = new JMenuItem("Histogramme");
+
+		contrasteAutoItem.addActionListener(e -> panneau.appliquerContrasteAuto());
+		niveauxAutoItem.addActionListener(e -> panneau.appliquerNiveauxAuto());
+		histogrammeItem.addActionListener(e -> afficherHistogramme());
+
 		filtresMenu.add(contrasteItem);
 		filtresMenu.add(luminositeItem);
 		filtresMenu.add(teintureItem);
+		filtresMenu.addSeparator();
+		filtresMenu.add(contrasteAutoItem);
+		filtresMenu.add(niveauxAutoItem);
+		filtresMenu.add(histogrammeItem);
+
+		JMenuItem calqueReglageItem = new JMenuItem("Calque de réglage...");
+		JMenuItem aplatirReglagesItem = new JMenuItem("Aplatir les calques de réglage");
+		JMenuItem supprimerReglagesItem = new JMenuItem("Supprimer les calques de réglage");
+
+		calqueReglageItem.addActionListener(e -> ouvrirDialogueCalqueReglage());
+		aplatirReglagesItem.addActionListener(e -> panneau.aplatirCalquesReglage());
+		supprimerReglagesItem.addActionListener(e -> panneau.supprimerCalquesReglage());
+
+		filtresMenu.addSeparator();
+		filtresMenu.add(calqueReglageItem);
+		filtresMenu.add(aplatirReglagesItem);
+		filtresMenu.add(supprimerReglagesItem);
 
 		return filtresMenu;
 	}
@@ -346,6 +383,68 @@ public class MenuBarBuilder {
 		}
 	}
 
+	/**
+	 * Ouvre un dialogue créant un calque de réglage (luminosité et contraste).
+	 * Le calque est ajouté tout de suite et mis à jour en direct ;
+	 * il est retiré si le dialogue est annulé.
+	 */
+	private void ouvrirDialogueCalqueReglage() {
+		CoucheAjustement calque = panneau.ajouterCalqueReglage(new ChaineAjustements());
+		if (calque == null) {
+			JOptionPane.showMessageDialog(panneau, "Aucune image ouverte.", "Calque de réglage", JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+
+		JSlider luminosite = new JSlider(-255, 255, 0);
+		luminosite.setMajorTickSpacing(100);
+		luminosite.setPaintTicks(true);
+		luminosite.setPaintLabels(true);
+		JSlider contraste = new JSlider(-100, 100, 0);
+		contraste.setMajorTickSpacing(50);
+		contraste.setPaintTicks(true);
+		contraste.setPaintLabels(true);
+
+		int pivot = panneau.pivotContraste();
+		ChangeListener miseAJour = e -> panneau.modifierCalqueReglage(calque,
+				new ChaineAjustements().luminosite(luminosite.getValue()).contraste(contraste.getValue(), pivot));
+		luminosite.addChangeListener(miseAJour);
+		contraste.addChangeListener(miseAJour);
+
+		JPanel contenu = new JPanel(new GridLayout(4, 1, 5, 5));
+		contenu.add(new JLabel("Luminosité"));
+		contenu.add(luminosite);
+		contenu.add(new JLabel("Contraste"));
+		contenu.add(contraste);
+
+		int resultat = JOptionPane.showConfirmDialog(panneau, contenu, "Calque de réglage",
+				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		if (resultat != JOptionPane.OK_OPTION) {
+			panneau.supprimerCalqueReglage(calque);
+		}
+	}
+
+	/**
+	 * Affiche l'histogramme et les statistiques de l'image courante.
+	 */
+	private void afficherHistogramme() {
+		StatistiquesImage stats = panneau.statistiquesImageCourante();
+		if (stats == null) {
+			JOptionPane.showMessageDialog(panneau, "Aucune image ouverte.", "Histogramme", JOptionPane.INFORMATION_MESSAGE);
+			return;
+		}
+
+		JPanel contenu = new JPanel(new BorderLayout(5, 5));
+		contenu.add(new HistogrammePanel(stats), BorderLayout.CENTER);
+		contenu.add(new JLabel(String.format(
+				"<html>Pixels : %d<br>Moyenne R/V/B : %.1f / %.1f / %.1f<br>Luminance : min %d, max %d, moyenne %.1f, médiane %d</html>",
+				stats.nombrePixels(),
+				stats.moyenne(StatistiquesImage.ROUGE), stats.moyenne(StatistiquesImage.VERT), stats.moyenne(StatistiquesImage.BLEU),
+				stats.minimum(StatistiquesImage.LUMINANCE), stats.maximum(StatistiquesImage.LUMINANCE),
+				stats.moyenne(StatistiquesImage.LUMINANCE), stats.centile(StatistiquesImage.LUMINANCE, 50))),
+				BorderLayout.SOUTH);
+		JOptionPane.showMessageDialog(panneau, contenu, "Histogramme", JOptionPane.PLAIN_MESSAGE);
+	}
+
 	/**
 	 * Ouvre un dialogue pour appliquer une teinture.
 	 */
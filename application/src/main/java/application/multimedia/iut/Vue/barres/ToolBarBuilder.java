@@ -8,6 +8,7 @@
 package application.multimedia.iut.Vue.barres;
 
 import application.multimedia.iut.Metier.GestionnaireOutils;
+import application.multimedia.iut.Metier.traitement.ChaineAjustements;
 import application.multimedia.iut.Vue.utils.LucideIconLoader;
 import application.multimedia.iut.Vue.PaintPanel;
 import javax.swing.*;
@@ -171,6 +172,26 @@ public class ToolBarBuilder {
 		barre.add(remplissageBtn);
 		barre.add(texteBtn);
 		barre.add(texteImageBtn);
+
+		ajouterToleranceRemplissage(barre);
+	}
+
+	/**
+	 * Ajoute le curseur de tolérance du pot de peinture.
+	 * Déplacer le curseur juste après un remplissage redessine sa région en direct.
+	 *
+	 * @param barre La barre d'outils à modifier.
+	 */
+	private void ajouterToleranceRemplissage(JToolBar barre) {
+		JSlider tolerance = new JSlider(0, 441, panneau.getToleranceRemplissage());
+		tolerance.setToolTipText("Tolérance du remplissage");
+		tolerance.setPreferredSize(new Dimension(100, tolerance.getPreferredSize().height));
+		tolerance.setMaximumSize(tolerance.getPreferredSize());
+		tolerance.setOpaque(false);
+		tolerance.addChangeListener(
+				e -> panneau.modifierToleranceRemplissage(tolerance.getValue(), tolerance.getValueIsAdjusting()));
+
+		barre.add(tolerance);
 	}
 
 	/**
@@ -244,6 +265,8 @@ public class ToolBarBuilder {
 
 	/**
 	 * Ouvre une boîte de dialogue pour ajuster le contraste.
+	 * Le contraste pivote autour de la moyenne de l'image.
+	 * L'effet est prévisualisé en direct sur la toile pendant le réglage.
 	 */
 	private void ouvrirDialogueContraste() {
 		JSlider slider = new JSlider(-100, 100, 0);
@@ -252,8 +275,13 @@ public class ToolBarBuilder {
 		slider.setPaintTicks(true);
 		slider.setPaintLabels(true);
 
+		int pivot = panneau.pivotContraste();
+		panneau.demarrerApercu();
+		slider.addChangeListener(e -> panneau.afficherApercu(new ChaineAjustements().contraste(slider.getValue(), pivot)));
+
 		int resultat = JOptionPane.showConfirmDialog(panneau, slider, "Ajuster le contraste",
 				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		panneau.terminerApercu();
 
 		if (resultat == JOptionPane.OK_OPTION) {
 			panneau.appliquerContraste(slider.getValue());
@@ -262,6 +290,7 @@ public class ToolBarBuilder {
 
 	/**
 	 * Ouvre une boîte de dialogue pour ajuster la luminosité.
+	 * L'effet est prévisualisé en direct sur la toile pendant le réglage.
 	 */
 	private void ouvrirDialogueLuminosite() {
 		JSlider slider = new JSlider(-255, 255, 0);
@@ -270,8 +299,12 @@ public class ToolBarBuilder {
 		slider.setPaintTicks(true);
 		slider.setPaintLabels(true);
 
+		panneau.demarrerApercu();
+		slider.addChangeListener(e -> panneau.afficherApercu(new ChaineAjustements().luminosite(slider.getValue())));
+
 		int resultat = JOptionPane.showConfirmDialog(panneau, slider, "Ajuster la luminosité",
 				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		panneau.terminerApercu();
 
 		if (resultat == JOptionPane.OK_OPTION) {
 			panneau.appliquerLuminosite(slider.getValue());
@@ -280,6 +313,7 @@ public class ToolBarBuilder {
 
 	/**
 	 * Ouvre une boîte de dialogue pour appliquer une teinture.
+	 * L'effet est prévisualisé en direct sur la toile pendant le réglage.
 	 */
 	private void ouvrirDialogueTeinture() {
 		JPanel panel = new JPanel(new GridLayout(0, 2, 5, 5));
@@ -298,8 +332,18 @@ public class ToolBarBuilder {
 		panel.add(new JLabel("Intensité:"));
 		panel.add(alphaSlider);
 
+		panneau.demarrerApercu();
+		javax.swing.event.ChangeListener apercu = e -> panneau.afficherApercu(new ChaineAjustements().teinte(
+				redSlider.getValue(), greenSlider.getValue(), blueSlider.getValue(), alphaSlider.getValue()));
+		redSlider.addChangeListener(apercu);
+		greenSlider.addChangeListener(apercu);
+		blueSlider.addChangeListener(apercu);
+		alphaSlider.addChangeListener(apercu);
+		apercu.stateChanged(null);
+
 		int resultat = JOptionPane.showConfirmDialog(panneau, panel, "Appliquer une teinture",
 				JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+		panneau.terminerApercu();
 
 		if (resultat == JOptionPane.OK_OPTION) {
 			panneau.appliquerTeinte(redSlider.getValue(), greenSlider.getValue(),
@@ -0,0 +1,79 @@
+/**
+ * Panneau d'affichage de l'histogramme d'une image.
+ * Trace les histogrammes rouge, vert, bleu et de luminance.
+ *
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Vue.panels;
+
+import application.multimedia.iut.Metier.traitement.StatistiquesImage;
+
+import javax.swing.*;
+import java.awt.*;
+
+/**
+ * Panneau traçant les quatre histogrammes d'une {@link StatistiquesImage}.
+ * Les courbes sont normalisées sur l'effectif maximal tous canaux confondus.
+ */
+public class HistogrammePanel extends JPanel {
+
+    private static final Color[] COULEURS = {
+        new Color(220, 50, 50, 160),
+        new Color(50, 180, 50, 160),
+        new Color(50, 90, 220, 160),
+        new Color(40, 40, 40, 220)
+    };
+
+    private final StatistiquesImage statistiques;
+
+    /**
+     * Constructeur du panneau d'histogramme.
+     *
+     * @param statistiques Les statistiques de l'image à afficher.
+     */
+    public HistogrammePanel(StatistiquesImage statistiques) {
+        this.statistiques = statistiques;
+        setPreferredSize(new Dimension(256 * 2 + 20, 220));
+        setBackground(Color.WHITE);
+    }
+
+    /**
+     * Dessine les histogrammes, la luminance par-dessus les composantes.
+     *
+     * @param g Le contexte graphique.
+     */
+    @Override
+    protected void paintComponent(Graphics g) {
+        super.paintComponent(g);
+        if (statistiques == null || statistiques.nombrePixels() == 0) return;
+
+        int marge = 10;
+        int largeur = getWidth() - 2 * marge;
+        int hauteur = getHeight() - 2 * marge;
+
+        int max = 1;
+        for (int c = StatistiquesImage.ROUGE; c <= StatistiquesImage.LUMINANCE; c++) {
+            for (int v = 0; v < 256; v++) {
+                max = Math.max(max, statistiques.effectif(c, v));
+            }
+        }
+
+        Graphics2D g2d = (Graphics2D) g;
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        for (int c = StatistiquesImage.ROUGE; c <= StatistiquesImage.LUMINANCE; c++) {
+            g2d.setColor(COULEURS[c]);
+            int xPrecedent = marge;
+            int yPrecedent = marge + hauteur;
+            for (int v = 0; v < 256; v++) {
+                int x = marge + v * largeur / 255;
+                int y = marge + hauteur - (int) ((long) statistiques.effectif(c, v) * hauteur / max);
+                g2d.drawLine(xPrecedent, yPrecedent, x, y);
+                xPrecedent = x;
+                yPrecedent = y;
+            }
+        }
+        g2d.setColor(Color.GRAY);
+        g2d.drawRect(marge, marge, largeur, hauteur);
+    }
+}
@@ -0,0 +1,135 @@
+/**
+ * Classe gérant l'aperçu en direct des ajustements de couleur.
+ * Calcule l'aperçu en arrière-plan sur une copie réduite de la couche active.
+ * 
+ * @author Lechasles Antoine , Martin Ravenel , Julien Oyer
+ * @version 1.0
+ */
+package application.multimedia.iut.Vue.utils;
+
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import javax.swing.JComponent;
+import javax.swing.SwingUtilities;
+
+import application.multimedia.iut.Metier.image.CoucheImage;
+import application.multimedia.iut.Metier.traitement.ChaineAjustements;
+
+/**
+ * Aperçu en direct des dialogues de contraste, luminosité et teinture.
+ * Au démarrage, une image réduite (proxy) de la couche active est créée une
+ * seule fois. Chaque déplacement de curseur calcule l'ajustement sur ce proxy
+ * dans un thread de fond ; une demande plus récente annule la précédente si
+ * elle n'a pas commencé et rend son résultat obsolète sinon. L'image pleine
+ * résolution n'est traitée qu'à la validation du dialogue.
+ */
+public class ApercuAjustement {
+	/** Plus grand côté du proxy en pixels. */
+	public static final int COTE_MAX_PROXY = 1024;
+
+	private static final ExecutorService CALCUL = Executors.newSingleThreadExecutor(tache -> {
+		Thread thread = new Thread(tache, "apercu-ajustement");
+		thread.setDaemon(true);
+		return thread;
+	});
+
+	private final JComponent toile;
+	private CoucheImage couche;
+	private double zoom;
+	private BufferedImage proxy;
+	private Future<?> calculEnCours;
+	private volatile int generation;
+
+	/**
+	 * Constructeur de l'aperçu.
+	 *
+	 * @param toile Le composant dont la zone de la couche est repeinte quand un aperçu est prêt.
+	 */
+	public ApercuAjustement(JComponent toile) {
+		this.toile = toile;
+	}
+
+	/**
+	 * Démarre une session d'aperçu sur une couche.
+	 * Crée le proxy réduit de l'image de la couche.
+	 *
+	 * @param couche La couche à prévisualiser (couche active).
+	 * @param zoom Le zoom courant, pour ne pas calculer plus de pixels que ceux affichés.
+	 */
+	public void demarrer(CoucheImage couche, double zoom) {
+		terminer();
+		if (couche == null) return;
+		this.couche = couche;
+		this.zoom = zoom;
+		this.proxy = creerProxy(couche.image, zoom);
+	}
+
+	/**
+	 * Demande le calcul de l'aperçu pour une chaîne d'ajustements.
+	 * Le calcul précédent est annulé ou ignoré s'il n'est pas encore affiché.
+	 *
+	 * @param chaine Les ajustements à prévisualiser.
+	 */
+	public void demander(ChaineAjustements chaine) {
+		if (couche == null || proxy == null) return;
+		if (calculEnCours != null) calculEnCours.cancel(false);
+
+		int demande = ++generation;
+		CoucheImage cible = couche;
+		BufferedImage source = proxy;
+		calculEnCours = CALCUL.submit(() -> {
+			if (demande != generation) return;
+			BufferedImage resultat = copier(source);
+			chaine.appliquer(resultat);
+			SwingUtilities.invokeLater(() -> {
+				if (demande != generation || cible != couche) return;
+				cible.definirApercu(resultat);
+				toile.repaint(cible.zoneAffichee(null, zoom));
+			});
+		});
+	}
+
+	/**
+	 * Termine la session : annule le calcul en cours et retire l'aperçu de la couche.
+	 */
+	public void terminer() {
+		generation++;
+		if (calculEnCours != null) {
+			calculEnCours.cancel(false);
+			calculEnCours = null;
+		}
+		if (couche != null) {
+			couche.definirApercu(null);
+			toile.repaint(couche.zoneAffichee(null, zoom));
+			couche = null;
+		}
+		proxy = null;
+	}
+
+	/**
+	 * Crée une copie réduite de l'image, au plus de la taille affichée et de {@link #COTE_MAX_PROXY}.
+	 */
+	private static BufferedImage creerProxy(BufferedImage image, double zoom) {
+		double echelle = Math.min(1.0, zoom);
+		echelle = Math.min(echelle, (double) COTE_MAX_PROXY / Math.max(image.getWidth(), image.getHeight()));
+		int largeur = Math.max(1, (int) Math.round(image.getWidth() * echelle));
+		int hauteur = Math.max(1, (int) Math.round(image.getHeight() * echelle));
+		BufferedImage proxy = new BufferedImage(largeur, hauteur, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g2d = proxy.createGraphics();
+		g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+		g2d.drawImage(image, 0, 0, largeur, hauteur, null);
+		g2d.dispose();
+		return proxy;
+	}
+
+	private static BufferedImage copier(BufferedImage source) {
+		BufferedImage copie = new BufferedImage(source.getWidth(), source.getHeight(), BufferedImage.TYPE_INT_ARGB);
+		source.copyData(copie.getRaster());
+		return copie;
+	}
+}
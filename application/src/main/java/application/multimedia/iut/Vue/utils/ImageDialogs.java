@@ -8,6 +8,7 @@
 package application.multimedia.iut.Vue.utils;
 
 import java.awt.Component;
+import java.awt.Dimension;
 import java.io.File;
 
 import javax.swing.JFileChooser;
@@ -22,6 +23,8 @@ public final class ImageDialogs {
 
     public enum LoadChoice { REPLACE, SUPERPOSE, CANCEL }
 
+    public enum SizeChoice { PREVIEW, FULL, CANCEL }
+
     /**
      * Ouvre un sélecteur de fichiers pour choisir une ou plusieurs images.
      * Supporte les formats JPG, PNG, GIF et BMP.
@@ -106,4 +109,31 @@ public final class ImageDialogs {
         if (choice == JOptionPane.NO_OPTION) return LoadChoice.SUPERPOSE;
         return LoadChoice.REPLACE;
     }
+
+    /**
+     * Demande à l'utilisateur comment ouvrir une image trop grande pour la
+     * mémoire libre : en aperçu réduit ou en pleine résolution malgré tout.
+     *
+     * @param parent Le composant parent pour le dialogue.
+     * @param taille Les dimensions de l'image.
+     * @param moNecessaires La mémoire demandée par la pleine résolution, en Mo.
+     * @param moLibres La mémoire encore libre, en Mo.
+     * @return Le choix de l'utilisateur (PREVIEW, FULL ou CANCEL).
+     */
+    public static SizeChoice askSizeChoice(Component parent, Dimension taille, long moNecessaires, long moLibres) {
+        String[] options = {"Aperçu réduit", "Pleine résolution", "Annuler"};
+        int choice = JOptionPane.showOptionDialog(parent,
+            "L'image fait " + taille.width + "x" + taille.height + " pixels : l'ouvrir en pleine résolution\n"
+                + "demande environ " + moNecessaires + " Mo, et il reste " + moLibres + " Mo de mémoire libre.\n\n"
+                + "Un aperçu réduit tient en mémoire mais ne peut pas être enregistré tel quel.",
+            "Image trop grande",
+            JOptionPane.YES_NO_CANCEL_OPTION,
+            JOptionPane.WARNING_MESSAGE,
+            null,
+            options,
+            options[0]);
+        if (choice == JOptionPane.CANCEL_OPTION || choice == JOptionPane.CLOSED_OPTION) return SizeChoice.CANCEL;
+        if (choice == JOptionPane.NO_OPTION) return SizeChoice.FULL;
+        return SizeChoice.PREVIEW;
+    }
 }
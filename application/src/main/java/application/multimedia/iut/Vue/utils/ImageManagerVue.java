@@ -14,6 +14,7 @@ import java.awt.Font;
 import java.awt.Frame;
 import java.awt.Graphics;
 import java.awt.Point;
+import java.awt.Rectangle;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -33,18 +34,26 @@ import javax.swing.SwingUtilities;
 import application.multimedia.iut.Controleur;
 import application.multimedia.iut.Metier.image.CoucheImage;
 import application.multimedia.iut.Metier.outils.OutilDessin;
+import application.multimedia.iut.Metier.traitement.ChaineAjustements;
+import application.multimedia.iut.Metier.traitement.TraitementEnFlux;
 import application.multimedia.iut.Vue.dialogs.SimpleTexteDialog;
 import application.multimedia.iut.Vue.utils.ImageDialogs.LoadChoice;
+import application.multimedia.iut.Vue.utils.ImageDialogs.SizeChoice;
 
 /**
  * Gestionnaire centralisé pour toutes les opérations sur images.
  * Coordonne le chargement, l'enregistrement, le zoom, et le placement d'images.
  */
 public class ImageManagerVue {
+	/** Marge laissée autour des couches sur la toile, en pixels. */
+	private static final int MARGE_TOILE = 50;
+
 	private final Controleur controleur;
 	private final JLabel toile;
 	private final JComponent parent;
 
+	private final ApercuAjustement apercuAjustement;
+
 	private Point dernierePositionSouris;
 	private boolean glisserEnCours = false;
 	private CoucheImage coucheGlissee;
@@ -61,6 +70,7 @@ public class ImageManagerVue {
 		this.toile = toile;
 		this.parent = parent;
 		this.controleur = controleur;
+		this.apercuAjustement = new ApercuAjustement(toile);
 		
 		// Créer une image blanche vide au démarrage pour permettre le dessin
 		// Utiliser une taille plus grande (1920x1080 ou la taille préférée de la toile)
@@ -76,6 +86,7 @@ public class ImageManagerVue {
 	 */
 	private void afficherImage() {
 		if (controleur.pileCouchesEstVide()) return;
+		ajusterTailleToile();
 		toile.setIcon(null);
 		toile.repaint();
 	}
@@ -84,10 +95,27 @@ public class ImageManagerVue {
 	 * Rafraîchit l'affichage (version publique).
 	 */
 	public void rafraichirAffichage() {
+		ajusterTailleToile();
 		toile.setIcon(null);
 		toile.repaint();
 	}
 
+	/**
+	 * Ajuste la taille de la toile aux couches avec le zoom appliqué, plus une marge.
+	 * Les barres de défilement suivent ainsi l'image affichée ; la toile
+	 * remplit toujours au moins le viewport.
+	 */
+	private void ajusterTailleToile() {
+		Rectangle limites = controleur.getPileCouches().limitesCouches();
+		if (limites == null) return;
+		Dimension taille = new Dimension(Math.max(1, limites.x + limites.width + MARGE_TOILE),
+				Math.max(1, limites.y + limites.height + MARGE_TOILE));
+		if (!taille.equals(toile.getPreferredSize())) {
+			toile.setPreferredSize(taille);
+			toile.revalidate();
+		}
+	}
+
 	/**
 	 * Obtient les dimensions actuelles de la zone de dessin.
 	 *
@@ -121,8 +149,19 @@ public class ImageManagerVue {
 			imageInitialeBlanchePresente = false; // Marquer que l'image initiale a été remplacée
 		}
 
+		// Une image qui ne tient pas dans la mémoire libre n'est réduite qu'avec l'accord de l'utilisateur
+		boolean apercuReduit = false;
+		if (!controleur.tientEnMemoire(fichierChoisi)) {
+			Dimension taille = controleur.tailleFichier(fichierChoisi);
+			SizeChoice ouverture = ImageDialogs.askSizeChoice(parent, taille,
+					TraitementEnFlux.octetsOuverture(taille.width, taille.height) >> 20,
+					TraitementEnFlux.memoireDisponible() >> 20);
+			if (ouverture == SizeChoice.CANCEL) return;
+			apercuReduit = ouverture == SizeChoice.PREVIEW;
+		}
+
 		try{
-			controleur.ouvrirFichier(fichierChoisi, choix, obtenirTailleToile());
+			controleur.ouvrirFichier(fichierChoisi, choix, obtenirTailleToile(), apercuReduit);
 		} catch (IOException ex) {
 			messageErreur("Erreur", "Erreur lors du chargement: " + ex.getMessage());
 			return;
@@ -131,7 +170,15 @@ public class ImageManagerVue {
 		if (!controleur.pileCouchesEstVide()) {
 			afficherImage();
 			BufferedImage active = obtenirImageCourante();
-			messageInfo("Succès", "Image(s) chargée(s) !\nActive: " + (active != null ? active.getWidth() + "x" + active.getHeight() : "-"));
+			String message = "Image(s) chargée(s) !\nActive: " + (active != null ? active.getWidth() + "x" + active.getHeight() : "-");
+			Dimension tailleReelle = controleur.tailleReelleApercu();
+			if (tailleReelle != null && fichierChoisi.equals(controleur.fichierApercuReduit())) {
+				message += "\n\nL'image fait " + tailleReelle.width + "x" + tailleReelle.height
+						+ " pixels : elle a été ouverte réduite et n'est qu'un aperçu.\n"
+						+ "Elle ne peut pas être enregistrée telle quelle ; seuls les calques de réglage\n"
+						+ "peuvent être appliqués au fichier d'origine en pleine résolution.";
+			}
+			messageInfo("Succès", message);
 		}
 	}
 
@@ -146,6 +193,11 @@ public class ImageManagerVue {
 			return;
 		}
 
+		if (controleur.contientApercuReduit()) {
+			enregistrerApercuReduit();
+			return;
+		}
+
 		File fichierChoisi = ImageDialogs.selectSavePng(parent);
 		try{
 			controleur.enregistrerFichier(fichierChoisi);
@@ -156,6 +208,50 @@ public class ImageManagerVue {
 		
 	}
 
+	/**
+	 * Enregistre un document ouvert en aperçu réduit : l'aperçu lui-même n'est
+	 * pas écrit, le fichier d'origine est traité en pleine résolution avec les
+	 * calques de réglage si l'utilisateur l'accepte.
+	 */
+	private void enregistrerApercuReduit() {
+		File entree = controleur.fichierApercuReduit();
+		Dimension tailleReelle = controleur.tailleReelleApercu();
+		int reponse = JOptionPane.showConfirmDialog(parent,
+				"L'image " + entree.getName() + " (" + tailleReelle.width + "x" + tailleReelle.height
+						+ ") a été ouverte réduite : l'enregistrer écrirait l'aperçu réduit.\n\n"
+						+ "Appliquer plutôt les calques de réglage au fichier d'origine, en pleine résolution ?\n"
+						+ "Les autres retouches faites sur l'aperçu ne seront pas reprises.",
+				"Aperçu réduit", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+		if (reponse != JOptionPane.YES_OPTION) return;
+		File sortie = ImageDialogs.selectSavePng(parent);
+		if (sortie == null) return;
+
+		try {
+			controleur.appliquerReglagesAuFichier(entree, sortie);
+			messageInfo("Succès", "Fichier d'origine traité et enregistré en pleine résolution !");
+		} catch (IOException ex) {
+			messageErreur("Erreur", "Erreur lors du traitement: " + ex.getMessage());
+		}
+	}
+
+	/**
+	 * Applique les calques de réglage à un fichier choisi, traité par bandes
+	 * en pleine résolution, et enregistre le résultat en PNG.
+	 */
+	public void appliquerReglagesAuFichier() {
+		File entree = ImageDialogs.selectImage(parent);
+		if (entree == null) return;
+		File sortie = ImageDialogs.selectSavePng(parent);
+		if (sortie == null) return;
+
+		try {
+			controleur.appliquerReglagesAuFichier(entree, sortie);
+			messageInfo("Succès", "Fichier traité et enregistré avec succès !");
+		} catch (IOException ex) {
+			messageErreur("Erreur", "Erreur lors du traitement: " + ex.getMessage());
+		}
+	}
+
 	/**
 	 * Démarre le mode de placement interactif d'une nouvelle image.
 	 * Affiche un message d'instruction à l'utilisateur.
@@ -208,6 +304,9 @@ public class ImageManagerVue {
 	 * @param g Le contexte graphique pour le rendu.
 	 */
 	public void dessinerImage(Graphics g) {
+		// Seule la partie de la toile visible dans le viewport est dessinée
+		Rectangle visible = toile.getVisibleRect();
+		g.clipRect(visible.x, visible.y, visible.width, visible.height);
 		controleur.peindre(g);
 	}
 
@@ -277,6 +376,30 @@ public class ImageManagerVue {
 		afficherImage();
 	}
 
+	/**
+	 * Démarre l'aperçu en direct d'un ajustement sur la couche active.
+	 */
+	public void demarrerApercu() {
+		apercuAjustement.demarrer(controleur.getPileCouches().coucheActive(), controleur.getPileCouches().niveauZoom());
+	}
+
+	/**
+	 * Met à jour l'aperçu en direct avec de nouveaux paramètres.
+	 * Le calcul est fait en arrière-plan sur une copie réduite de la couche.
+	 *
+	 * @param chaine Les ajustements à prévisualiser.
+	 */
+	public void afficherApercu(ChaineAjustements chaine) {
+		apercuAjustement.demander(chaine);
+	}
+
+	/**
+	 * Termine l'aperçu en direct et réaffiche l'image de la couche.
+	 */
+	public void terminerApercu() {
+		apercuAjustement.terminer();
+	}
+
 	/**
 	 * Trouve la couche visible à une position donnée.
 	 * Parcourt les couches du dessus vers le dessous.
@@ -317,7 +440,7 @@ public class ImageManagerVue {
 								JOptionPane.PLAIN_MESSAGE);
 							if (texte != null && !texte.trim().isEmpty()) {
 								controleur.dessinerTexte(couche.image, texte, x, y);
-								toile.repaint();
+								repeindreZone(couche, null);
 							}
 						}
 						return;
@@ -334,8 +457,8 @@ public class ImageManagerVue {
 						if (x >= 0 && x < couche.image.getWidth() && y >= 0 && y < couche.image.getHeight()) {
 							Color couleur = controleur.getCouleurActive();
 							int couleurRGB = couleur.getRGB();
-							controleur.appliquerPotDePeinture(couleurRGB, 50, true, x, y);
-							toile.repaint();
+							Rectangle zone = controleur.appliquerPotDePeinture(couleurRGB, controleur.getToleranceRemplissage(), true, x, y);
+							if (zone != null) repeindreZone(couche, zone);
 						}
 						return;
 					}
@@ -356,8 +479,8 @@ public class ImageManagerVue {
 							
 							// Vérifier que les coordonnées sont dans l'image
 							if (xImage >= 0 && xImage < couche.image.getWidth() && yImage >= 0 && yImage < couche.image.getHeight()) {
-								controleur.commencerDessin(couche.image, xImage, yImage);
-								toile.repaint();
+								Rectangle zone = controleur.commencerDessin(couche.image, xImage, yImage);
+								if (zone != null) repeindreZone(couche, zone);
 							}
 							return;
 						}
@@ -366,8 +489,9 @@ public class ImageManagerVue {
 				
 				// Gestion du placement
 				if (controleur.getSessionPlacement().estActive()) {
+					Rectangle avant = zoneDeplacee();
 					controleur.getSessionPlacement().deplacerAu(e.getPoint(), controleur.getPileCouches().niveauZoom());
-					toile.repaint();
+					repeindreDeplacement(avant);
 					dernierePositionSouris = e.getPoint();
 					glisserEnCours = true;
 					toile.setCursor(Cursor.getPredefinedCursor(Cursor.MOVE_CURSOR));
@@ -410,8 +534,8 @@ public class ImageManagerVue {
 						
 						// Vérifier que les coordonnées sont dans l'image
 						if (xImage >= 0 && xImage < couche.image.getWidth() && yImage >= 0 && yImage < couche.image.getHeight()) {
-							controleur.continuerDessin(couche.image, xImage, yImage);
-							toile.repaint();
+							Rectangle zone = controleur.continuerDessin(couche.image, xImage, yImage);
+							if (zone != null) repeindreZone(couche, zone);
 						}
 					}
 					return;
@@ -421,6 +545,7 @@ public class ImageManagerVue {
 				Point positionActuelle = e.getPoint();
 				int dx = positionActuelle.x - dernierePositionSouris.x;
 				int dy = positionActuelle.y - dernierePositionSouris.y;
+				Rectangle avant = zoneDeplacee();
 				if (controleur.getSessionPlacement().estActive()) {
 					controleur.getSessionPlacement().translater(dx, dy);
 				} else if (coucheGlissee != null) {
@@ -429,7 +554,7 @@ public class ImageManagerVue {
 					coucheGlissee.y += dy;
 				}
 				dernierePositionSouris = positionActuelle;
-				toile.repaint();
+				repeindreDeplacement(avant);
 			}
 		};
 
@@ -437,6 +562,51 @@ public class ImageManagerVue {
 		toile.addMouseMotionListener(adaptationSouris);
 	}
 
+	/**
+	 * Repeint la partie de la toile où est affichée une zone d'une couche.
+	 * Un coup de pinceau ne redessine ainsi que quelques pixels, quelle que
+	 * soit la taille de l'image.
+	 *
+	 * @param couche La couche modifiée.
+	 * @param zone La zone modifiée en pixels de l'image, ou null pour toute la couche.
+	 */
+	private void repeindreZone(CoucheImage couche, Rectangle zone) {
+		toile.repaint(couche.zoneAffichee(zone, controleur.getPileCouches().niveauZoom()));
+	}
+
+	/**
+	 * Obtient la partie de la toile occupée par ce qui est déplacé à la souris :
+	 * l'image en cours de placement avec son cadre, ou la couche de base glissée.
+	 *
+	 * @return La zone occupée, ou null si rien n'est déplacé.
+	 */
+	private Rectangle zoneDeplacee() {
+		double zoom = controleur.getPileCouches().niveauZoom();
+		if (controleur.getSessionPlacement().estActive()) {
+			Rectangle zone = controleur.getSessionPlacement().limitesCouche(zoom);
+			// Le cadre pointillé de 2 pixels déborde de l'image
+			if (zone != null) zone.grow(2, 2);
+			return zone;
+		}
+		return coucheGlissee != null ? coucheGlissee.enRectangle(zoom) : null;
+	}
+
+	/**
+	 * Repeint, en une seule zone, l'ancienne et la nouvelle position de ce qui a été déplacé.
+	 * Déplacer la couche de base déplace aussi la zone de clipping des autres
+	 * couches, qui ne change qu'à l'intérieur de ces deux positions.
+	 *
+	 * @param avant La zone occupée avant le déplacement.
+	 */
+	private void repeindreDeplacement(Rectangle avant) {
+		Rectangle apres = zoneDeplacee();
+		if (avant == null || apres == null) {
+			toile.repaint();
+		} else {
+			toile.repaint(avant.union(apres));
+		}
+	}
+
 	/**
 	 * Affiche un message d'erreur dans une boîte de dialogue.
 	 *
@@ -3,6 +3,7 @@ package application.multimedia.iut.Metier;
 import java.awt.image.BufferedImage;
 import java.io.File;
 import java.io.IOException;
+import java.util.List;
 import javax.imageio.ImageIO;
 
 public class AjoutContenuTest {
@@ -46,6 +47,20 @@ public class AjoutContenuTest {
 				ImageIO.write(resultatFusionV, "png", fichierSortieFusionV);
 				System.out.println("Image fusionneé verticalement sauvegardée : : " + fichierSortieFusionV.getAbsolutePath());
 
+				System.out.println("\n--- Test Fusion Horizontale de trois images---");
+				BufferedImage resultatPanorama = AjoutContenu.fusionHorizontale(
+						List.of(imageOriginaleGauche, imageOriginaleDroite, imageOriginaleGauche), 100);
+				File fichierSortiePanorama = new File(outputDir + "image_fusion_H_3images_100px.png");
+				ImageIO.write(resultatPanorama, "png", fichierSortiePanorama);
+				System.out.println("Panorama sauvegardé : " + fichierSortiePanorama.getAbsolutePath());
+
+				System.out.println("\n--- Test Planche contact---");
+				BufferedImage resultatPlanche = AjoutContenu.planche(
+						List.of(imageOriginaleGauche, resultatFusionH, resultatFusionV, imageOriginaleDroite), 2, 200, 200, 10);
+				File fichierSortiePlanche = new File(outputDir + "image_planche_2x2.png");
+				ImageIO.write(resultatPlanche, "png", fichierSortiePlanche);
+				System.out.println("Planche sauvegardée : " + fichierSortiePlanche.getAbsolutePath());
+
 			} catch (IllegalArgumentException e) {
 				System.err.println("Erreur paramètre fusion : " + e.getMessage());
 			}
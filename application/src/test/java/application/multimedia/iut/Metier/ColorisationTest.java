@@ -6,6 +6,9 @@ import java.io.File;
 
 import javax.imageio.ImageIO;
 
+import application.multimedia.iut.Metier.traitement.SessionRemplissage;
+import application.multimedia.iut.Metier.traitement.StatistiquesImage;
+
 public class ColorisationTest {
 
 	// Exemple autonome : méthode main montrant l'utilisation d'une méthode statique
@@ -77,6 +80,49 @@ public class ColorisationTest {
 			return;
 		}
 
+		try {
+			 image = ImageIO.read(new File("./application/src/main/resources/chat.png"));
+		}
+		catch (Exception e) {
+			System.err.println("Erreur de lecture de l'image : " + e.getMessage());
+			return;
+		}
+
+
+		// Test Chaîne d'ajustements (une seule passe)
+		Colorisation.appliquerAjustements(image, Colorisation.ajustements().luminosite(20).contraste(30).teinte(255, 0, 0, 102));
+
+		try {
+			ImageIO.write(image, "png", new File("./application/src/test/resources/chat_chaine.png"));
+		}
+		catch (Exception e) {
+			System.err.println("Erreur d'écriture de l'image : " + e.getMessage());
+			return;
+		}
+
+		try {
+			 image = ImageIO.read(new File("./application/src/main/resources/chat.png"));
+		}
+		catch (Exception e) {
+			System.err.println("Erreur de lecture de l'image : " + e.getMessage());
+			return;
+		}
+
+
+		// Test Statistiques et niveaux automatiques
+		StatistiquesImage stats = Colorisation.statistiques(image);
+		System.out.println("Pixels : " + stats.nombrePixels() + ", moyenne luminance : " + stats.moyenne(StatistiquesImage.LUMINANCE)
+				+ ", médiane : " + stats.centile(StatistiquesImage.LUMINANCE, 50) + ", pivot : " + stats.pivotContraste());
+		Colorisation.niveauxAuto(image);
+
+		try {
+			ImageIO.write(image, "png", new File("./application/src/test/resources/chat_niveauxAuto.png"));
+		}
+		catch (Exception e) {
+			System.err.println("Erreur d'écriture de l'image : " + e.getMessage());
+			return;
+		}
+
 		try {
 			 image = ImageIO.read(new File("./application/src/main/resources/tortue.png"));
 		}
@@ -96,5 +142,29 @@ public class ColorisationTest {
 			System.err.println("Erreur d'écriture de l'image : " + e.getMessage());
 			return;
 		}
+
+		try {
+			 image = ImageIO.read(new File("./application/src/main/resources/tortue.png"));
+		}
+		catch (Exception e) {
+			System.err.println("Erreur de lecture de l'image : " + e.getMessage());
+			return;
+		}
+
+
+		// Test Session de remplissage (la tolérance change sans refaire le remplissage)
+		SessionRemplissage session = SessionRemplissage.ouvrir(image, 0, 0, true);
+		for (int tolerance = 40; tolerance <= 100; tolerance += 20) {
+			session.appliquer((new Color(0, 20, 120)).getRGB(), tolerance);
+			System.out.println("Tolérance " + tolerance + " : " + session.nombreRemplis() + " pixels remplis");
+		}
+
+		try {
+			ImageIO.write(image, "png", new File("./application/src/test/resources/tortue_sessionRemplissage.png"));
+		}
+		catch (Exception e) {
+			System.err.println("Erreur d'écriture de l'image : " + e.getMessage());
+			return;
+		}
 	}
 }
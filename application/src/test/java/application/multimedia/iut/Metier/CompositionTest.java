@@ -0,0 +1,58 @@
+package application.multimedia.iut.Metier;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+
+import javax.imageio.ImageIO;
+
+import application.multimedia.iut.Metier.image.CoucheImage;
+import application.multimedia.iut.Metier.image.PileCouches;
+import application.multimedia.iut.Metier.image.RenduToile;
+
+public class CompositionTest {
+	public static final File fichierSortie = new File("application/src/test/resources/composition_calque_translucide.png");
+
+	// Une seule couche translucide doit être enregistrée sans changer un seul pixel.
+	public static void main(String[] args) {
+
+		// Toutes les couleurs et tous les alphas : x = alpha, y = couleur
+		BufferedImage calque = new BufferedImage(256, 256, BufferedImage.TYPE_INT_ARGB);
+		for (int y = 0; y < 256; y++) {
+			for (int x = 0; x < 256; x++) {
+				int couleur = (y * 0x9E3779B1 + x * 0x85EBCA6B) & 0xFFFFFF;
+				calque.setRGB(x, y, (x << 24) | couleur);
+			}
+		}
+
+		PileCouches pile = new PileCouches();
+		pile.ajouterCouche(new CoucheImage(calque, 0, 0));
+		BufferedImage composite = new RenduToile().construireComposite(pile);
+
+		BufferedImage relue;
+		try {
+			ImageIO.write(composite, "png", fichierSortie);
+			relue = ImageIO.read(fichierSortie);
+		}
+		catch (Exception e) {
+			System.err.println("Erreur d'écriture de l'image : " + e.getMessage());
+			return;
+		}
+
+		int differents = 0;
+		for (int y = 0; y < 256; y++) {
+			for (int x = 1; x < 256; x++) {
+				if (relue.getRGB(x, y) != calque.getRGB(x, y)) {
+					if (differents == 0) {
+						System.err.println("Premier pixel modifié en " + x + ", " + y + " : "
+								+ Integer.toHexString(calque.getRGB(x, y)) + " devient " + Integer.toHexString(relue.getRGB(x, y)));
+					}
+					differents++;
+				}
+			}
+		}
+		System.out.println("Calque translucide enregistré : " + differents + " pixels modifiés sur " + (255 * 256));
+		if (differents > 0) {
+			throw new AssertionError("Le composite d'une seule couche translucide doit être identique à la couche");
+		}
+	}
+}
@@ -5,6 +5,8 @@ import java.io.IOException;
 
 import javax.imageio.ImageIO;
 
+import application.multimedia.iut.Metier.traitement.Reechantillonneur.Filtre;
+
 public class FormatTest {
 	public final static File inputFile = new File("application/src/main/resources/chat.png");
 	public static final String outputDir = "application/src/test/resources/testFormatResultats_";
@@ -28,6 +30,16 @@ public class FormatTest {
 			ImageIO.write(imageRedimensionnee, "png", fichierSortieRedim);
 			System.out.println("Image redimensionnée sauvegardée : " + fichierSortieRedim.getAbsolutePath());
 
+			BufferedImage imageLanczos = Format.redimensionner(imageOriginale, 150, 200, Filtre.LANCZOS3);
+			File fichierSortieLanczos = new File(outputDir + "image_redim_lanczos_test.png");
+			ImageIO.write(imageLanczos, "png", fichierSortieLanczos);
+			System.out.println("Image redimensionnée (Lanczos 3) sauvegardée : " + fichierSortieLanczos.getAbsolutePath());
+
+			BufferedImage miniature = Format.reduireParPyramide(imageOriginale, 40, 30, Filtre.BILINEAIRE);
+			File fichierMiniature = new File(outputDir + "image_miniature_test.png");
+			ImageIO.write(miniature, "png", fichierMiniature);
+			System.out.println("Miniature (pyramide) sauvegardée : " + fichierMiniature.getAbsolutePath());
+
 			System.out.println("\n--- Test couper ---");
 			BufferedImage imageCoupee = Format.couper(imageOriginale, 230, 150, 360, 275);
 			File fichierCoupe = new File(outputDir + "image_coupee_test.png");
@@ -45,6 +57,17 @@ public class FormatTest {
 			ImageIO.write(imagePivotee147, "png", fichierRotation147);
 			System.out.println("Image pivotée (, 147°) sauvegardée : " + fichierRotation147.getAbsolutePath());
 
+			BufferedImage imagePivoteeLisse = Format.rotation(imageOriginale, 147.0, true);
+			File fichierRotationLisse = new File(outputDir + "image_rotation_147_lisse_test.png");
+			ImageIO.write(imagePivoteeLisse, "png", fichierRotationLisse);
+			System.out.println("Image pivotée (147°, bilinéaire) sauvegardée : " + fichierRotationLisse.getAbsolutePath());
+
+			BufferedImage imageEnchainee = Format.transformer(imageOriginale).pivoter(147.0).symetrieHorizontale()
+					.redimensionner(300, 250).appliquer(true);
+			File fichierEnchaine = new File(outputDir + "image_transformations_enchainees_test.png");
+			ImageIO.write(imageEnchainee, "png", fichierEnchaine);
+			System.out.println("Image pivotée, retournée et redimensionnée en une passe sauvegardée : " + fichierEnchaine.getAbsolutePath());
+
 			System.out.println("\n--- Test symétrie ---");
 			BufferedImage imageSymetrieH = Format.symetrieHorizontale(imageOriginale);
 			File fichierSymetrieH = new File(outputDir + "image_symetrie_horizontale_test.png");
@@ -56,6 +79,13 @@ public class FormatTest {
 			ImageIO.write(imageSymetrieV, "png", fichierSymetrieV);
 			System.out.println("Image symétrisée verticalement sauvegardée : " + fichierSymetrieV.getAbsolutePath());
 
+			BufferedImage imageEnPlace = Format.symetrieHorizontale(imageOriginale);
+			Format.symetrieHorizontaleEnPlace(imageEnPlace);
+			Format.symetrieVerticaleEnPlace(imageEnPlace);
+			File fichierEnPlace = new File(outputDir + "image_symetrie_en_place_test.png");
+			ImageIO.write(imageEnPlace, "png", fichierEnPlace);
+			System.out.println("Image symétrisée sur place sauvegardée : " + fichierEnPlace.getAbsolutePath());
+
 		} catch (IOException e) {
 			System.err.println(
 					"Une erreur d'E/S est survenue lors de la lecture/sauvegarde de l'image. (Vérifiez le chemin du fichier source : "
@@ -0,0 +1,47 @@
+package application.multimedia.iut.Metier;
+
+import java.awt.image.BufferedImage;
+
+import application.multimedia.iut.Metier.traitement.Reechantillonneur.Filtre;
+
+public class ReechantillonnageTest {
+
+	// Une très forte réduction d'un dégradé de 0 à 255 doit en garder la moyenne
+	// et la symétrie, pas la valeur d'un seul pixel source.
+	public static void main(String[] args) {
+		int largeur = 8000;
+		BufferedImage degrade = new BufferedImage(largeur, 4, BufferedImage.TYPE_INT_RGB);
+		for (int x = 0; x < largeur; x++) {
+			int gris = x * 256 / largeur;
+			for (int y = 0; y < 4; y++) {
+				degrade.setRGB(x, y, (gris << 16) | (gris << 8) | gris);
+			}
+		}
+
+		int erreurs = 0;
+		for (Filtre filtre : new Filtre[] { Filtre.BILINEAIRE, Filtre.BICUBIQUE, Filtre.LANCZOS3 }) {
+			for (int cible : new int[] { 1, 3 }) {
+				BufferedImage reduite = Format.redimensionner(degrade, cible, 1, filtre);
+				int[] gris = new int[cible];
+				StringBuilder valeurs = new StringBuilder();
+				for (int x = 0; x < cible; x++) {
+					gris[x] = reduite.getRGB(x, 0) & 0xFF;
+					valeurs.append(' ').append(gris[x]);
+				}
+				System.out.println(filtre + " " + largeur + " -> " + cible + " :" + valeurs);
+
+				// Le pixel du milieu voit tout le dégradé autour de son centre : 127,5
+				if (Math.abs(gris[cible / 2] - 127.5) > 2) erreurs++;
+				// Les bords sont symétriques et le dégradé reste croissant
+				if (cible > 1 && (Math.abs(gris[0] + gris[cible - 1] - 255) > 2 || gris[0] >= gris[cible / 2]
+						|| gris[cible / 2] >= gris[cible - 1])) {
+					erreurs++;
+				}
+			}
+		}
+		System.out.println("Réductions incorrectes : " + erreurs);
+		if (erreurs > 0) {
+			throw new AssertionError("Une forte réduction doit rendre la moyenne des pixels couverts");
+		}
+	}
+}
@@ -1,4 +1,11 @@
 @echo off
 
-REM Lancer le fichier JAR
-java -jar application\target\application-1.0-SNAPSHOT.jar
\ No newline at end of file
+set JAR=application\target\application-1.0-SNAPSHOT.jar
+
+REM Lancer le fichier JAR, avec le module vectoriel s'il contient les noyaux du profil simd
+findstr /m "NoyauxVectoriels.class" "%JAR%" >nul
+if %errorlevel% == 0 (
+	java --add-modules jdk.incubator.vector -jar "%JAR%"
+) else (
+	java -jar "%JAR%"
+)
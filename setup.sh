@@ -1,4 +1,10 @@
 #!/bin/bash
 
-# Lancer le fichier JAR
-java -jar application/target/application-1.0-SNAPSHOT.jar
+JAR=application/target/application-1.0-SNAPSHOT.jar
+
+# Lancer le fichier JAR, avec le module vectoriel s'il contient les noyaux du profil simd
+if grep -q "NoyauxVectoriels.class" "$JAR"; then
+	java --add-modules jdk.incubator.vector -jar "$JAR"
+else
+	java -jar "$JAR"
+fi